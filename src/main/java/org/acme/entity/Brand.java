@@ -4,6 +4,9 @@ import io.quarkus.hibernate.orm.panache.PanacheEntity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.acme.service.RecentWindows;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -12,9 +15,13 @@ import java.util.List;
 
 /**
  * Brand entity representing product brands in the ecommerce system
+ * Cached in the second-level cache since brands are small and rarely written
  */
 @Entity
 @Table(name = "brands")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners(RecentWindows.Listener.class)
 public class Brand extends PanacheEntity {
 
     @NotBlank(message = "Brand name is required")
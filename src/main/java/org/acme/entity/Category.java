@@ -4,6 +4,8 @@ import io.quarkus.hibernate.orm.panache.PanacheEntity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -13,9 +15,12 @@ import java.util.List;
 /**
  * Category entity representing product categories in the ecommerce system
  * Supports hierarchical categories with parent-child relationships
+ * Cached in the second-level cache together with its children collection
  */
 @Entity
 @Table(name = "categories")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Category extends PanacheEntity {
 
     @NotBlank(message = "Category name is required")
@@ -55,6 +60,7 @@ public class Category extends PanacheEntity {
     public Category parent;
 
     @OneToMany(mappedBy = "parent", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     public List<Category> children;
 
     // Relationship with products
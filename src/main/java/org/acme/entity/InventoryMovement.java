@@ -0,0 +1,59 @@
+package org.acme.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * One stock change of a product, appended to the inventory ledger and never updated.
+ * A product's stock is its compacted snapshot (products.stock_quantity) plus the movements
+ * recorded after the snapshot's watermark (products.stock_movement_id).
+ * Ids come from an identity column, not a pooled sequence: a movement recorded after a compaction
+ * must get a higher id than every movement that compaction folded.
+ */
+@Entity
+@Table(name = "inventory_movements", indexes = {
+    @Index(name = "idx_inventory_movements_product", columnList = "product_id, id")
+})
+public class InventoryMovement extends PanacheEntityBase {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    public Long id;
+
+    // No foreign key: the ledger outlives the products it describes
+    @Column(name = "product_id", nullable = false)
+    public Long productId;
+
+    @Column(name = "quantity_change", nullable = false)
+    public Integer quantityChange;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reason", nullable = false, length = 20)
+    public Reason reason;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    public LocalDateTime createdAt;
+
+    // Default constructor
+    public InventoryMovement() {}
+
+    public InventoryMovement(Long productId, int quantityChange, Reason reason) {
+        this.productId = productId;
+        this.quantityChange = quantityChange;
+        this.reason = reason;
+    }
+
+    /**
+     * Enum for why stock moved
+     */
+    public enum Reason {
+        RESTOCK,      // Stock added (addStock, warehouse feeds)
+        SALE,         // Stock taken by a checkout (reduceStock)
+        RESERVATION,  // Stock taken by confirmed reservations
+        ADJUSTMENT    // Stock set to a counted level (updateStock)
+    }
+}
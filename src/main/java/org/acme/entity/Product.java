@@ -3,7 +3,13 @@ package org.acme.entity;
 import io.quarkus.hibernate.orm.panache.PanacheEntity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.acme.repository.TagRepository;
+import org.acme.service.RecentWindows;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.ColumnTransformer;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Formula;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
@@ -14,7 +20,16 @@ import java.util.List;
  * Product entity representing products in the ecommerce system
  */
 @Entity
-@Table(name = "products")
+// Price indexes serve the price range and cheapest/most expensive queries when the column snapshot is disabled,
+// the timestamp indexes the reloads of the recent windows
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_price", columnList = "price"),
+    @Index(name = "idx_products_category_price", columnList = "category_id, price"),
+    @Index(name = "idx_products_created_at", columnList = "created_at"),
+    @Index(name = "idx_products_updated_at", columnList = "updated_at")
+})
+@DynamicUpdate
+@EntityListeners({TagRepository.Listener.class, RecentWindows.Listener.class})
 @NamedEntityGraph(
     name = "Product.basic",
     attributeNodes = {
@@ -85,10 +100,27 @@ public class Product extends PanacheEntity {
     @Column(name = "compare_at_price", precision = 12, scale = 2)
     public BigDecimal compareAtPrice;
 
+    // Current stock: the compacted snapshot plus the inventory movements recorded after its watermark.
+    // Read-only; stock changes are InventoryMovement rows recorded by ProductService
     @Min(value = 0, message = "Stock quantity cannot be negative")
-    @Column(name = "stock_quantity", nullable = false)
+    @Formula("(stock_quantity + coalesce((select sum(m.quantity_change) from inventory_movements m " +
+            "where m.product_id = id and m.id > stock_movement_id), 0))")
     public Integer stockQuantity = 0;
 
+    // Compacted stock level, taken from stockQuantity when the product is inserted
+    @Column(name = "stock_quantity", nullable = false, updatable = false)
+    public Integer stockSnapshot;
+
+    // Last inventory movement folded into the snapshot
+    @ColumnDefault("0")
+    @Column(name = "stock_movement_id", nullable = false, insertable = false, updatable = false)
+    public Long stockMovementId;
+
+    // Units taken by the movements after the watermark, kept by the conditional UPDATE that guards against overselling
+    @ColumnDefault("0")
+    @Column(name = "stock_taken", nullable = false, insertable = false, updatable = false)
+    public Integer stockTaken;
+
     @Min(value = 0, message = "Low stock threshold cannot be negative")
     @Column(name = "low_stock_threshold")
     public Integer lowStockThreshold = 5;
@@ -116,9 +148,16 @@ public class Product extends PanacheEntity {
     @Column(name = "image_url")
     public List<String> imageUrls;
 
+    // Tag names are stored once in the tags dictionary and product_tags holds their ids, translated
+    // on read and write; TagRepository.Listener adds the names to the dictionary before the product is written
     @ElementCollection
-    @CollectionTable(name = "product_tags", joinColumns = @JoinColumn(name = "product_id"))
-    @Column(name = "tag")
+    @CollectionTable(name = "product_tags", joinColumns = @JoinColumn(name = "product_id"), indexes = {
+        @Index(name = "idx_product_tags_product", columnList = "product_id, tag_id"),
+        @Index(name = "idx_product_tags_tag", columnList = "tag_id, product_id")
+    })
+    @Column(name = "tag_id", nullable = false, columnDefinition = "bigint")
+    @ColumnTransformer(read = "(select tg.name from tags tg where tg.id = tag_id)",
+            write = "(select tg.id from tags tg where tg.name = ?)")
     public List<String> tags;
 
     @CreationTimestamp
@@ -129,6 +168,12 @@ public class Product extends PanacheEntity {
     @Column(name = "updated_at", nullable = false)
     public LocalDateTime updatedAt;
 
+    // Optimistic lock for entity updates; stock moves append movements and bump stock_taken natively, which leave it alone
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    public Long version;
+
     // Relationships
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "brand_id")
@@ -223,26 +268,8 @@ public class Product extends PanacheEntity {
         return trackInventory && stockQuantity <= lowStockThreshold;
     }
 
-    public void updateStock(int quantity) {
-        if (trackInventory) {
-            this.stockQuantity = Math.max(0, quantity);
-        }
-    }
-
-    public void addStock(int quantity) {
-        if (trackInventory && quantity > 0) {
-            this.stockQuantity += quantity;
-        }
-    }
-
-    public void reduceStock(int quantity) {
-        if (trackInventory && quantity > 0) {
-            this.stockQuantity = Math.max(0, this.stockQuantity - quantity);
-        }
-    }
-
     // Helper method to generate slug from name
-    private String generateSlug(String name) {
+    public static String generateSlug(String name) {
         if (name == null) return null;
         return name.toLowerCase()
                 .replaceAll("[^a-z0-9\\s-]", "")
@@ -252,6 +279,11 @@ public class Product extends PanacheEntity {
     }
 
     @PrePersist
+    public void prePersist() {
+        updateSlug();
+        this.stockSnapshot = this.stockQuantity;
+    }
+
     @PreUpdate
     public void updateSlug() {
         if (this.slug == null || this.slug.isEmpty()) {
@@ -0,0 +1,34 @@
+package org.acme.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last stock journal segment of a node whose deltas are applied to the products.
+ * Written in the same transaction as the deltas, so replaying the journal after a crash
+ * skips the segments that already reached the database.
+ */
+@Entity
+@Table(name = "stock_journal_checkpoints")
+public class StockJournalCheckpoint extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "node_id", length = 100)
+    public String nodeId;
+
+    @Column(name = "applied_segment", nullable = false)
+    public Long appliedSegment;
+
+    @Column(name = "applied_at", nullable = false)
+    public LocalDateTime appliedAt;
+
+    // Default constructor
+    public StockJournalCheckpoint() {}
+
+    public StockJournalCheckpoint(String nodeId) {
+        this.nodeId = nodeId;
+        this.appliedSegment = 0L;
+    }
+}
@@ -0,0 +1,27 @@
+package org.acme.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+
+/**
+ * Entry of the tag dictionary: every distinct tag name is stored once and referenced
+ * from product_tags by id (see {@link Product#tags})
+ */
+@Entity
+@Table(name = "tags")
+public class Tag extends PanacheEntityBase {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    public Long id;
+
+    @Column(name = "name", nullable = false, unique = true, length = 255)
+    public String name;
+
+    // Default constructor
+    public Tag() {}
+
+    public Tag(String name) {
+        this.name = name;
+    }
+}
@@ -1,10 +1,13 @@
 package org.acme.graphql;
 
+import graphql.schema.DataFetchingEnvironment;
+import io.smallrye.graphql.api.Context;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import org.acme.entity.Category;
 import org.acme.graphql.exception.ExceptionMapper;
 import org.acme.graphql.input.CategoryInput;
+import org.acme.graphql.util.GraphQLFieldSelector;
 import org.acme.service.CategoryService;
 import org.eclipse.microprofile.graphql.*;
 
@@ -23,30 +26,36 @@ public class CategoryGraphQLResource {
     @Inject
     ExceptionMapper exceptionMapper;
 
+    @Inject
+    GraphQLFieldSelector fieldSelector;
+
+    @Inject
+    Context context;
+
     // Queries
     
     @Query("category")
     @Description("Get a category by ID")
     public Category getCategory(@Name("id") Long id) {
-        return categoryService.findCategoryById(id);
+        return withProducts(categoryService.getCategory(id));
     }
 
     @Query("categoryBySlug")
     @Description("Get a category by slug")
     public Optional<Category> getCategoryBySlug(@Name("slug") String slug) {
-        return categoryService.findCategoryBySlug(slug);
+        return categoryService.findCategoryBySlug(slug).map(this::withProducts);
     }
 
     @Query("categoryByName")
     @Description("Get a category by name")
     public Optional<Category> getCategoryByName(@Name("name") String name) {
-        return categoryService.findCategoryByName(name);
+        return categoryService.findCategoryByName(name).map(this::withProducts);
     }
 
     @Query("categories")
     @Description("Get all active categories")
     public List<Category> getAllCategories() {
-        return categoryService.getAllActiveCategories();
+        return withProducts(categoryService.getAllActiveCategories());
     }
 
     @Query("categoriesWithPagination")
@@ -54,13 +63,13 @@ public class CategoryGraphQLResource {
     public List<Category> getAllCategoriesWithPagination(
             @Name("pageIndex") @DefaultValue("0") int pageIndex,
             @Name("pageSize") @DefaultValue("20") int pageSize) {
-        return categoryService.getAllActiveCategories(pageIndex, pageSize);
+        return withProducts(categoryService.getAllActiveCategories(pageIndex, pageSize));
     }
 
     @Query("rootCategories")
     @Description("Get root categories (categories without parent)")
     public List<Category> getRootCategories() {
-        return categoryService.getRootCategories();
+        return withProducts(categoryService.getRootCategories());
     }
 
     @Query("rootCategoriesWithPagination")
@@ -68,31 +77,31 @@ public class CategoryGraphQLResource {
     public List<Category> getRootCategoriesWithPagination(
             @Name("pageIndex") @DefaultValue("0") int pageIndex,
             @Name("pageSize") @DefaultValue("20") int pageSize) {
-        return categoryService.getRootCategories(pageIndex, pageSize);
+        return withProducts(categoryService.getRootCategories(pageIndex, pageSize));
     }
 
     @Query("childCategories")
     @Description("Get child categories by parent ID")
     public List<Category> getChildCategories(@Name("parentId") Long parentId) {
-        return categoryService.getChildCategories(parentId);
+        return withProducts(categoryService.getChildCategories(parentId));
     }
 
     @Query("categoryHierarchy")
     @Description("Get category hierarchy (all descendants)")
     public List<Category> getCategoryHierarchy(@Name("categoryId") Long categoryId) {
-        return categoryService.getCategoryHierarchy(categoryId);
+        return withProducts(categoryService.getCategoryHierarchy(categoryId));
     }
 
     @Query("categoryPath")
     @Description("Get category path from root to category")
     public List<Category> getCategoryPath(@Name("categoryId") Long categoryId) {
-        return categoryService.getCategoryPath(categoryId);
+        return withProducts(categoryService.getCategoryPath(categoryId));
     }
 
     @Query("searchCategories")
     @Description("Search categories by name pattern")
     public List<Category> searchCategories(@Name("namePattern") String namePattern) {
-        return categoryService.searchCategoriesByName(namePattern);
+        return withProducts(categoryService.searchCategoriesByName(namePattern));
     }
 
     @Query("searchCategoriesWithPagination")
@@ -101,7 +110,7 @@ public class CategoryGraphQLResource {
             @Name("namePattern") String namePattern,
             @Name("pageIndex") @DefaultValue("0") int pageIndex,
             @Name("pageSize") @DefaultValue("20") int pageSize) {
-        return categoryService.searchCategoriesByName(namePattern, pageIndex, pageSize);
+        return withProducts(categoryService.searchCategoriesByName(namePattern, pageIndex, pageSize));
     }
 
     @Query("categoriesWithProducts")
@@ -189,4 +198,19 @@ public class CategoryGraphQLResource {
         categoryService.deleteCategory(id);
         return true;
     }
+
+    // Snapshot categories carry no products; serve the managed entities, which load them, when selected
+
+    private Category withProducts(Category category) {
+        return selectsProducts() ? categoryService.findCategoryById(category.id) : category;
+    }
+
+    private List<Category> withProducts(List<Category> categories) {
+        return selectsProducts() ? categoryService.toManaged(categories) : categories;
+    }
+
+    private boolean selectsProducts() {
+        DataFetchingEnvironment environment = context.unwrap(DataFetchingEnvironment.class);
+        return environment != null && fieldSelector.isAnyFieldRequested(environment, "products", "**/products");
+    }
 }
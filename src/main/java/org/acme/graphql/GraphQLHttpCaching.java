@@ -0,0 +1,242 @@
+package org.acme.graphql;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.analysis.QueryTraverser;
+import graphql.analysis.QueryVisitorFieldEnvironment;
+import graphql.analysis.QueryVisitorStub;
+import graphql.language.Document;
+import graphql.language.OperationDefinition;
+import graphql.parser.Parser;
+import graphql.schema.GraphQLObjectType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLTypeUtil;
+import graphql.schema.GraphQLUnmodifiedType;
+import io.quarkus.vertx.http.runtime.filters.Filters;
+import io.vertx.core.MultiMap;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.acme.service.ReadRouting;
+import org.acme.service.invalidation.CatalogVersion;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * HTTP caching for GraphQL queries sent as GET. The response is tagged with a strong ETag of the
+ * request and the {@link CatalogVersion} read before it executes, so a matching If-None-Match is
+ * answered with 304 without executing the query until the next committed catalog change.
+ * Cache-Control follows the types the query reaches: queries that only reach brands and categories
+ * may be cached for reference-max-age, anything reaching products or derived statistics for
+ * product-max-age. Fields backed by state that is not versioned (stock reservations) are no-store.
+ * A tagged response never carries the read-routing cookie, and is only private if it sets another one.
+ * Queries reaching products read from the primary unless catalog.graphql-http-cache.read-from-primary is off.
+ */
+@ApplicationScoped
+public class GraphQLHttpCaching {
+
+    private static final Set<String> REFERENCE_TYPES = Set.of("Brand", "Category");
+    private static final Set<String> UNVERSIONED_FIELDS = Set.of("availableStock", "reservationStatistics");
+    private static final int POLICY_CACHE_SIZE = 1000;
+
+    @Inject
+    CatalogVersion catalogVersion;
+
+    @Inject
+    ReadRouting readRouting;
+
+    @Inject
+    Instance<GraphQLSchema> graphQLSchema;
+
+    @ConfigProperty(name = "catalog.graphql-http-cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "catalog.graphql-http-cache.reference-max-age", defaultValue = "5m")
+    Duration referenceMaxAge;
+
+    @ConfigProperty(name = "catalog.graphql-http-cache.product-max-age", defaultValue = "10s")
+    Duration productMaxAge;
+
+    @ConfigProperty(name = "catalog.graphql-http-cache.read-from-primary", defaultValue = "true")
+    boolean readFromPrimary;
+
+    @ConfigProperty(name = "quarkus.smallrye-graphql.root-path", defaultValue = "graphql")
+    String rootPath;
+
+    // Caching policy per query, operation and variables
+    private final Cache<String, Policy> policies = Caffeine.newBuilder()
+            .maximumSize(POLICY_CACHE_SIZE)
+            .build();
+
+    void registerFilter(@Observes Filters filters) {
+        if (enabled) {
+            filters.register(this::handle, 10);
+        }
+    }
+
+    private void handle(RoutingContext context) {
+        if (context.request().method() != HttpMethod.GET || !isGraphQLPath(context.normalizedPath())) {
+            context.next();
+            return;
+        }
+        MultiMap params = context.queryParams();
+        String query = params.get("query");
+        if (query == null) {
+            context.next();
+            return;
+        }
+        String operationName = params.get("operationName");
+        String variables = params.get("variables");
+        String requestKey = String.join("\n", String.valueOf(operationName), String.valueOf(variables),
+                String.valueOf(params.get("extensions")), query);
+        Policy policy = policies.get(requestKey, key -> policy(query, operationName, variables));
+        if (policy == Policy.NOT_CACHEABLE) {
+            context.response().putHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+            context.next();
+            return;
+        }
+
+        // The representation depends on Accept (application/json or application/graphql-response+json)
+        String etag = etag(catalogVersion.current(), context.request().getHeader(HttpHeaders.ACCEPT), requestKey);
+        context.response()
+                .putHeader(HttpHeaders.ETAG, etag)
+                .putHeader(HttpHeaders.CACHE_CONTROL, policy.cacheControl)
+                .putHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (matches(context.request().getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            context.response().setStatusCode(304).end();
+            return;
+        }
+        context.addHeadersEndHandler(ignored -> {
+            if (context.response().getStatusCode() != 200) {
+                context.response().headers()
+                        .remove(HttpHeaders.ETAG)
+                        .set(HttpHeaders.CACHE_CONTROL, "no-store");
+                return;
+            }
+            // Runs before the response's cookies are written: a shared cache must not hand one client's
+            // read-routing cookie to others, and any other cookie makes the response private
+            context.response().removeCookie(ReadRouting.PRIMARY_UNTIL_COOKIE, false);
+            if (context.response().headers().contains(HttpHeaders.SET_COOKIE)) {
+                context.response().headers().set(HttpHeaders.CACHE_CONTROL, policy.cacheControl.replace("public", "private"));
+            }
+        });
+        // The ETag carries this node's catalog version, which a lagging replica may not have reached.
+        // Only product listings are routed to the replica, so reference-only queries are unaffected;
+        // with read-from-primary off a response may be up to the replica lag older than its ETag says.
+        if (readFromPrimary && policy.reachesProducts) {
+            readRouting.readFromPrimary(context);
+        }
+        context.next();
+    }
+
+    private boolean isGraphQLPath(String path) {
+        String graphQLPath = rootPath.startsWith("/") ? rootPath : "/" + rootPath;
+        return graphQLPath.equals(path) || (graphQLPath + "/").equals(path);
+    }
+
+    /**
+     * Caching policy of a query operation; not cacheable for mutations, unversioned fields and requests
+     * that do not validate (left to the GraphQL endpoint to reject)
+     */
+    private Policy policy(String query, String operationName, String variables) {
+        GraphQLSchema schema = graphQLSchema.isResolvable() ? graphQLSchema.get() : null;
+        if (schema == null) {
+            return Policy.NOT_CACHEABLE;
+        }
+        try {
+            Document document = Parser.parse(query);
+            List<OperationDefinition> operations = document.getDefinitionsOfType(OperationDefinition.class).stream()
+                    .filter(operation -> operationName == null || operationName.equals(operation.getName()))
+                    .toList();
+            if (operations.size() != 1 || operations.get(0).getOperation() != OperationDefinition.Operation.QUERY) {
+                return Policy.NOT_CACHEABLE;
+            }
+            Map<String, Object> variableValues = variables == null || variables.isBlank()
+                    ? Map.of() : new JsonObject(variables).getMap();
+            TypeCollector collector = new TypeCollector();
+            QueryTraverser.newQueryTraverser()
+                    .schema(schema)
+                    .document(document)
+                    .operationName(operationName)
+                    .variables(variableValues)
+                    .build()
+                    .visitPreOrder(collector);
+            if (collector.unversioned) {
+                return Policy.NOT_CACHEABLE;
+            }
+            Duration maxAge = collector.onlyReferenceTypes ? referenceMaxAge : productMaxAge;
+            return new Policy("public, max-age=" + maxAge.toSeconds(), !collector.onlyReferenceTypes);
+        } catch (RuntimeException e) {
+            return Policy.NOT_CACHEABLE;
+        }
+    }
+
+    private String etag(long version, String accept, String requestKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((catalogVersion.instance() + "\n" + version + "\n" + accept + "\n" + requestKey)
+                    .getBytes(StandardCharsets.UTF_8));
+            byte[] hash = Arrays.copyOf(digest.digest(), 18);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * If-None-Match comparison, which is weak: a W/ prefix on the client's tags is ignored
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cache-Control of a cacheable query and whether it reaches types other than brands and categories
+     */
+    private record Policy(String cacheControl, boolean reachesProducts) {
+        static final Policy NOT_CACHEABLE = new Policy("", false);
+    }
+
+    private static class TypeCollector extends QueryVisitorStub {
+        boolean onlyReferenceTypes = true;
+        boolean unversioned;
+
+        @Override
+        public void visitField(QueryVisitorFieldEnvironment environment) {
+            if (environment.getParentEnvironment() == null
+                    && UNVERSIONED_FIELDS.contains(environment.getField().getName())) {
+                unversioned = true;
+            }
+            GraphQLUnmodifiedType type = GraphQLTypeUtil.unwrapAll(environment.getFieldDefinition().getType());
+            if (type instanceof GraphQLObjectType && !REFERENCE_TYPES.contains(type.getName())) {
+                onlyReferenceTypes = false;
+            }
+        }
+    }
+}
@@ -1,13 +1,21 @@
 package org.acme.graphql;
 
+import graphql.schema.DataFetchingEnvironment;
+import io.smallrye.graphql.api.Context;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import org.acme.entity.Brand;
 import org.acme.entity.Category;
+import org.acme.entity.InventoryMovement;
 import org.acme.entity.Product;
 import org.acme.graphql.exception.ExceptionMapper;
+import org.acme.graphql.input.ProductFilterInput;
 import org.acme.graphql.input.ProductInput;
+import org.acme.graphql.util.CollectionFetchPlanner;
+import org.acme.graphql.util.GraphQLFieldSelector;
 import org.acme.service.OptimizedProductService;
+import org.acme.service.ProductDetailCache;
+import org.acme.service.ProductFacetService;
 import org.acme.service.ProductService;
 import org.eclipse.microprofile.graphql.*;
 
@@ -21,38 +29,67 @@ import java.util.Optional;
 @GraphQLApi
 public class ProductGraphQLResource {
 
+    // Relations of the brand and category that a product detail snapshot does not hold
+    private static final String[] OUTSIDE_DETAIL_SNAPSHOT = {
+            "brand/products", "category/products", "category/children", "category/parent", "category/rootCategory"};
+
     @Inject
     ProductService productService;
 
     @Inject
     OptimizedProductService optimizedProductService;
 
+    @Inject
+    ProductFacetService productFacetService;
+
     @Inject
     ExceptionMapper exceptionMapper;
 
+    @Inject
+    CollectionFetchPlanner collectionFetchPlanner;
+
+    @Inject
+    GraphQLFieldSelector fieldSelector;
+
+    @Inject
+    ProductDetailCache productDetailCache;
+
+    @Inject
+    Context context;
+
     // Queries
     
     @Query("product")
     @Description("Get a product by ID")
     public Product getProduct(@Name("id") Long id) {
+        if (servedFromDetailCache()) {
+            return productDetailCache.getProduct(id);
+        }
         return productService.findProductById(id);
     }
 
     @Query("productBySlug")
     @Description("Get a product by slug")
     public Optional<Product> getProductBySlug(@Name("slug") String slug) {
+        if (servedFromDetailCache()) {
+            return productDetailCache.findProductBySlug(slug);
+        }
         return productService.findProductBySlug(slug);
     }
 
     @Query("productBySku")
     @Description("Get a product by SKU")
     public Optional<Product> getProductBySku(@Name("sku") String sku) {
+        if (servedFromDetailCache()) {
+            return productDetailCache.findProductBySku(sku);
+        }
         return productService.findProductBySku(sku);
     }
 
     @Query("products")
     @Description("Get all active products")
     public List<Product> getAllProducts() {
+        collectionFetchPlanner.plan(context);
         return productService.getAllActiveProducts();
     }
 
@@ -61,6 +98,7 @@ public class ProductGraphQLResource {
     public List<Product> getAllProductsWithPagination(
             @Name("pageIndex") @DefaultValue("0") int pageIndex,
             @Name("pageSize") @DefaultValue("20") int pageSize) {
+        collectionFetchPlanner.plan(context);
         return productService.getAllActiveProducts(pageIndex, pageSize);
     }
 
@@ -70,6 +108,7 @@ public class ProductGraphQLResource {
     public List<Product> getProductsBasic(
             @Name("pageIndex") @DefaultValue("0") int pageIndex,
             @Name("pageSize") @DefaultValue("20") int pageSize) {
+        collectionFetchPlanner.plan(context);
         return optimizedProductService.getProductsBasic(pageIndex, pageSize);
     }
 
@@ -78,6 +117,7 @@ public class ProductGraphQLResource {
     public List<Product> getProductsWithBrandAndCategory(
             @Name("pageIndex") @DefaultValue("0") int pageIndex,
             @Name("pageSize") @DefaultValue("20") int pageSize) {
+        collectionFetchPlanner.plan(context);
         return optimizedProductService.getProductsWithBrandAndCategory(pageIndex, pageSize);
     }
 
@@ -87,6 +127,7 @@ public class ProductGraphQLResource {
             @Name("namePattern") String namePattern,
             @Name("pageIndex") @DefaultValue("0") int pageIndex,
             @Name("pageSize") @DefaultValue("20") int pageSize) {
+        collectionFetchPlanner.plan(context);
         return optimizedProductService.searchProductsBasic(namePattern, pageIndex, pageSize);
     }
 
@@ -96,6 +137,7 @@ public class ProductGraphQLResource {
             @Name("namePattern") String namePattern,
             @Name("pageIndex") @DefaultValue("0") int pageIndex,
             @Name("pageSize") @DefaultValue("20") int pageSize) {
+        collectionFetchPlanner.plan(context);
         return optimizedProductService.searchProductsWithBrandAndCategory(namePattern, pageIndex, pageSize);
     }
 
@@ -104,12 +146,14 @@ public class ProductGraphQLResource {
     public List<Product> getFeaturedProductsBasic(
             @Name("pageIndex") @DefaultValue("0") int pageIndex,
             @Name("pageSize") @DefaultValue("20") int pageSize) {
+        collectionFetchPlanner.plan(context);
         return optimizedProductService.getFeaturedProductsBasic(pageIndex, pageSize);
     }
 
     @Query("featuredProducts")
     @Description("Get featured products")
     public List<Product> getFeaturedProducts() {
+        collectionFetchPlanner.plan(context);
         return productService.getFeaturedProducts();
     }
 
@@ -118,12 +162,28 @@ public class ProductGraphQLResource {
     public List<Product> getFeaturedProductsWithPagination(
             @Name("pageIndex") @DefaultValue("0") int pageIndex,
             @Name("pageSize") @DefaultValue("20") int pageSize) {
+        collectionFetchPlanner.plan(context);
         return productService.getFeaturedProducts(pageIndex, pageSize);
     }
 
+    @Query("recentlyCreatedProducts")
+    @Description("Get recently created products")
+    public List<Product> getRecentlyCreatedProducts(@Name("limit") @DefaultValue("10") int limit) {
+        collectionFetchPlanner.plan(context);
+        return productService.getRecentlyCreatedProducts(limit);
+    }
+
+    @Query("recentlyUpdatedProducts")
+    @Description("Get recently updated products")
+    public List<Product> getRecentlyUpdatedProducts(@Name("limit") @DefaultValue("10") int limit) {
+        collectionFetchPlanner.plan(context);
+        return productService.getRecentlyUpdatedProducts(limit);
+    }
+
     @Query("productsByCategory")
     @Description("Get products by category ID")
     public List<Product> getProductsByCategory(@Name("categoryId") Long categoryId) {
+        collectionFetchPlanner.plan(context);
         return productService.getProductsByCategory(categoryId);
     }
 
@@ -133,12 +193,14 @@ public class ProductGraphQLResource {
             @Name("categoryId") Long categoryId,
             @Name("pageIndex") @DefaultValue("0") int pageIndex,
             @Name("pageSize") @DefaultValue("20") int pageSize) {
+        collectionFetchPlanner.plan(context);
         return productService.getProductsByCategory(categoryId, pageIndex, pageSize);
     }
 
     @Query("productsByBrand")
     @Description("Get products by brand ID")
     public List<Product> getProductsByBrand(@Name("brandId") Long brandId) {
+        collectionFetchPlanner.plan(context);
         return productService.getProductsByBrand(brandId);
     }
 
@@ -148,12 +210,14 @@ public class ProductGraphQLResource {
             @Name("brandId") Long brandId,
             @Name("pageIndex") @DefaultValue("0") int pageIndex,
             @Name("pageSize") @DefaultValue("20") int pageSize) {
+        collectionFetchPlanner.plan(context);
         return productService.getProductsByBrand(brandId, pageIndex, pageSize);
     }
 
     @Query("searchProducts")
     @Description("Search products by name pattern")
     public List<Product> searchProducts(@Name("namePattern") String namePattern) {
+        collectionFetchPlanner.plan(context);
         return productService.searchProductsByName(namePattern);
     }
 
@@ -163,6 +227,7 @@ public class ProductGraphQLResource {
             @Name("namePattern") String namePattern,
             @Name("pageIndex") @DefaultValue("0") int pageIndex,
             @Name("pageSize") @DefaultValue("20") int pageSize) {
+        collectionFetchPlanner.plan(context);
         return productService.searchProductsByName(namePattern, pageIndex, pageSize);
     }
 
@@ -171,34 +236,91 @@ public class ProductGraphQLResource {
     public List<Product> getProductsByPriceRange(
             @Name("minPrice") BigDecimal minPrice,
             @Name("maxPrice") BigDecimal maxPrice) {
+        collectionFetchPlanner.plan(context);
         return productService.getProductsByPriceRange(minPrice, maxPrice);
     }
 
     @Query("productsByPriceRangeWithPagination")
-    @Description("Get products by price range with pagination")
+    @Description("Get products by price range with pagination, optionally within one category")
     public List<Product> getProductsByPriceRangeWithPagination(
             @Name("minPrice") BigDecimal minPrice,
             @Name("maxPrice") BigDecimal maxPrice,
+            @Name("categoryId") Long categoryId,
             @Name("pageIndex") @DefaultValue("0") int pageIndex,
             @Name("pageSize") @DefaultValue("20") int pageSize) {
-        return productService.getProductsByPriceRange(minPrice, maxPrice, pageIndex, pageSize);
+        collectionFetchPlanner.plan(context);
+        return productService.getProductsByPriceRange(categoryId, minPrice, maxPrice, pageIndex, pageSize);
+    }
+
+    @Query("cheapestProducts")
+    @Description("Get the cheapest active products, of one category if given, cheapest first")
+    public List<Product> getCheapestProducts(
+            @Name("categoryId") Long categoryId,
+            @Name("limit") @DefaultValue("10") int limit) {
+        collectionFetchPlanner.plan(context);
+        return productService.getCheapestProducts(categoryId, limit);
+    }
+
+    @Query("mostExpensiveProducts")
+    @Description("Get the most expensive active products, of one category if given, most expensive first")
+    public List<Product> getMostExpensiveProducts(
+            @Name("categoryId") Long categoryId,
+            @Name("limit") @DefaultValue("10") int limit) {
+        collectionFetchPlanner.plan(context);
+        return productService.getMostExpensiveProducts(categoryId, limit);
+    }
+
+    @Query("filterProducts")
+    @Description("Get active products matching any combination of brands, categories, tags, flags and price, ordered by name")
+    public List<Product> filterProducts(
+            @Name("filter") ProductFilterInput filter,
+            @Name("pageIndex") @DefaultValue("0") int pageIndex,
+            @Name("pageSize") @DefaultValue("20") int pageSize) {
+        collectionFetchPlanner.plan(context);
+        return productService.filterProducts(ProductFilterInput.toFilter(filter), pageIndex, pageSize);
+    }
+
+    @Query("productFacets")
+    @Description("Count the active products matching a filter per brand, category, tag and price bucket")
+    public ProductFacetService.ProductFacets getProductFacets(@Name("filter") ProductFilterInput filter) {
+        return productFacetService.getFacets(ProductFilterInput.toFilter(filter));
+    }
+
+    @Query("productsByTags")
+    @Description("Get active products carrying any or all of the given tags, ordered by id; pass the last id of a page as after to get the next")
+    public List<Product> getProductsByTags(
+            @Name("tags") List<String> tags,
+            @Name("mode") @DefaultValue("ANY") ProductService.TagMatchMode mode,
+            @Name("first") @DefaultValue("20") int first,
+            @Name("after") Long after) {
+        collectionFetchPlanner.plan(context);
+        return productService.getProductsByTags(tags, mode, first, after);
+    }
+
+    @Query("popularTags")
+    @Description("Get the tags carried by the most active products, highest count first")
+    public List<ProductFacetService.TagCount> getPopularTags(@Name("limit") @DefaultValue("10") int limit) {
+        return productService.getPopularTags(limit);
     }
 
     @Query("lowStockProducts")
     @Description("Get products with low stock")
     public List<Product> getLowStockProducts() {
+        collectionFetchPlanner.plan(context);
         return productService.getLowStockProducts();
     }
 
     @Query("outOfStockProducts")
     @Description("Get out of stock products")
     public List<Product> getOutOfStockProducts() {
+        collectionFetchPlanner.plan(context);
         return productService.getOutOfStockProducts();
     }
 
     @Query("inStockProducts")
     @Description("Get in stock products")
     public List<Product> getInStockProducts() {
+        collectionFetchPlanner.plan(context);
         return productService.getInStockProducts();
     }
 
@@ -208,6 +330,14 @@ public class ProductGraphQLResource {
         return productService.getProductStatistics();
     }
 
+    @Query("inventoryMovements")
+    @Description("Get the stock movements of a product, newest first")
+    public List<InventoryMovement> getInventoryMovements(
+            @Name("productId") Long productId,
+            @Name("limit") @DefaultValue("50") int limit) {
+        return productService.getInventoryMovements(productId, limit);
+    }
+
     // Mutations
 
     @Mutation("createProduct")
@@ -266,6 +396,7 @@ public class ProductGraphQLResource {
             productData.trackInventory = input.trackInventory;
             productData.imageUrls = input.imageUrls;
             productData.tags = input.tags;
+            productData.version = input.version;
 
             // Set relationships
             if (input.categoryId != null) {
@@ -327,4 +458,13 @@ public class ProductGraphQLResource {
         productService.deleteProduct(id);
         return true;
     }
+
+    /**
+     * Whether everything the current product query selects is held by a cached detail snapshot
+     */
+    private boolean servedFromDetailCache() {
+        DataFetchingEnvironment environment = context.unwrap(DataFetchingEnvironment.class);
+        return productDetailCache.isEnabled() && environment != null
+                && !fieldSelector.isAnyFieldRequested(environment, OUTSIDE_DETAIL_SNAPSHOT);
+    }
 }
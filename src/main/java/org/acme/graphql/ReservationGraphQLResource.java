@@ -0,0 +1,50 @@
+package org.acme.graphql;
+
+import jakarta.inject.Inject;
+import org.acme.service.StockReservationService;
+import org.acme.service.StockReservationService.Reservation;
+import org.eclipse.microprofile.graphql.*;
+
+/**
+ * GraphQL API for time-bounded stock reservations
+ */
+@GraphQLApi
+public class ReservationGraphQLResource {
+
+    @Inject
+    StockReservationService stockReservationService;
+
+    // Queries
+
+    @Query("availableStock")
+    @Description("Get the stock of a product that can still be reserved")
+    public int getAvailableStock(@Name("productId") Long productId) {
+        return stockReservationService.getAvailableStock(productId);
+    }
+
+    @Query("reservationStatistics")
+    @Description("Get stock reservation statistics")
+    public StockReservationService.ReservationStatistics getReservationStatistics() {
+        return stockReservationService.getStatistics();
+    }
+
+    // Mutations
+
+    @Mutation("reserveStock")
+    @Description("Hold stock of a product until the reservation is confirmed, released or expires")
+    public Reservation reserveStock(@Name("productId") Long productId, @Name("quantity") int quantity) {
+        return stockReservationService.reserveStock(productId, quantity);
+    }
+
+    @Mutation("confirmReservation")
+    @Description("Confirm a reservation; its quantity is taken from the product stock")
+    public Reservation confirmReservation(@Name("id") String id) {
+        return stockReservationService.confirmReservation(id);
+    }
+
+    @Mutation("releaseReservation")
+    @Description("Release a reservation and give its stock back")
+    public Reservation releaseReservation(@Name("id") String id) {
+        return stockReservationService.releaseReservation(id);
+    }
+}
@@ -1,6 +1,7 @@
 package org.acme.graphql.exception;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import org.acme.service.exception.BusinessException;
@@ -25,6 +26,8 @@ public class ExceptionMapper {
             return mapEntityNotFoundException((EntityNotFoundException) throwable);
         } else if (throwable instanceof ConstraintViolationException) {
             return mapConstraintViolationException((ConstraintViolationException) throwable);
+        } else if (throwable instanceof OptimisticLockException) {
+            return new GraphQLBusinessException(throwable.getMessage(), "CONCURRENT_MODIFICATION");
         } else if (throwable instanceof IllegalArgumentException) {
             return new GraphQLBusinessException(throwable.getMessage(), "INVALID_ARGUMENT");
         } else {
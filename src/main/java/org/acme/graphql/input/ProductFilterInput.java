@@ -0,0 +1,49 @@
+package org.acme.graphql.input;
+
+import org.acme.service.ProductFilter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * GraphQL input type for product filters: set conditions are combined with AND, the values
+ * of one condition with OR; allOf and anyOf nest further filters
+ */
+public class ProductFilterInput {
+
+    public List<Long> brandIds;
+
+    public List<Long> categoryIds;
+
+    public List<String> tags;
+
+    public Boolean featured;
+
+    public Boolean inStock;
+
+    public BigDecimal minPrice;
+
+    public BigDecimal maxPrice;
+
+    public List<ProductFilterInput> allOf;
+
+    public List<ProductFilterInput> anyOf;
+
+    // Default constructor
+    public ProductFilterInput() {}
+
+    /**
+     * Convert to the service filter; a missing input matches every active product
+     */
+    public static ProductFilter toFilter(ProductFilterInput input) {
+        if (input == null) {
+            return ProductFilter.ALL;
+        }
+        return new ProductFilter(input.brandIds, input.categoryIds, input.tags, input.featured, input.inStock,
+                input.minPrice, input.maxPrice, toFilters(input.allOf), toFilters(input.anyOf));
+    }
+
+    private static List<ProductFilter> toFilters(List<ProductFilterInput> inputs) {
+        return inputs == null ? null : inputs.stream().map(ProductFilterInput::toFilter).toList();
+    }
+}
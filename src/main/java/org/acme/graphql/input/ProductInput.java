@@ -59,6 +59,9 @@ public class ProductInput {
 
     public Long brandId;
 
+    // Version the update is based on; a stale version is rejected instead of overwriting newer changes
+    public Long version;
+
     // Default constructor
     public ProductInput() {}
 
@@ -0,0 +1,97 @@
+package org.acme.graphql.util;
+
+import graphql.schema.DataFetchingEnvironment;
+import io.smallrye.graphql.api.Context;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.service.ReadRouting;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+
+/**
+ * Chooses how the lazy product collections (imageUrls, tags) are loaded for a listing,
+ * based on the GraphQL selection set of the current field
+ */
+@ApplicationScoped
+public class CollectionFetchPlanner {
+
+    private static final String[] COLLECTION_FIELDS = {"imageUrls", "tags"};
+
+    @Inject
+    Session session;
+
+    @Inject
+    GraphQLFieldSelector fieldSelector;
+
+    @Inject
+    ReadRouting readRouting;
+
+    @ConfigProperty(name = "catalog.fetch.collection-batch-size", defaultValue = "50")
+    int collectionBatchSize;
+
+    /**
+     * Configure the current session (and the replica session when reads are routed there)
+     * before the listing query runs:
+     * nothing when no collection is selected, batch fetching when the page fits in one batch,
+     * subselect fetching (one query per collection for the whole result) otherwise
+     */
+    public FetchMode plan(Context context) {
+        FetchMode mode = choose(context);
+        configure(session, mode, context);
+        if (readRouting.routesToReplica()) {
+            configure(readRouting.readSession(), mode, context);
+        }
+        return mode;
+    }
+
+    /**
+     * Pick the fetch mode for the current field without touching the session
+     */
+    public FetchMode choose(Context context) {
+        if (!selectsCollection(context.unwrap(DataFetchingEnvironment.class))) {
+            return FetchMode.LAZY;
+        }
+
+        Integer pageSize = context.getArgumentOrDefault("pageSize", null);
+        if (pageSize != null && pageSize <= collectionBatchSize) {
+            return FetchMode.BATCH;
+        }
+        return FetchMode.SUBSELECT;
+    }
+
+    private void configure(Session target, FetchMode mode, Context context) {
+        switch (mode) {
+            case BATCH -> {
+                Integer pageSize = context.getArgumentOrDefault("pageSize", null);
+                target.setFetchBatchSize(Math.max(pageSize, 1));
+            }
+            case SUBSELECT -> {
+                target.setSubselectFetchingEnabled(true);
+                target.setFetchBatchSize(collectionBatchSize);
+            }
+            case LAZY -> {
+            }
+        }
+    }
+
+    private boolean selectsCollection(DataFetchingEnvironment environment) {
+        if (environment == null) {
+            return false;
+        }
+        for (String field : COLLECTION_FIELDS) {
+            if (fieldSelector.isFieldRequested(environment, field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Enum for collection fetch modes
+     */
+    public enum FetchMode {
+        LAZY,      // Collections not selected, leave them unloaded
+        BATCH,     // Load collections for a whole page with one IN-list query each
+        SUBSELECT  // Load collections for the whole result by re-using the listing query
+    }
+}
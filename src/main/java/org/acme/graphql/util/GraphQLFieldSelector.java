@@ -38,6 +38,18 @@ public class GraphQLFieldSelector {
         return environment.getSelectionSet().contains(fieldName);
     }
 
+    /**
+     * Check if any of the fields is requested; nested fields are given as paths like "category/parent"
+     */
+    public boolean isAnyFieldRequested(DataFetchingEnvironment environment, String... fieldPaths) {
+        for (String fieldPath : fieldPaths) {
+            if (environment.getSelectionSet().contains(fieldPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Check if any relationship fields are requested
      */
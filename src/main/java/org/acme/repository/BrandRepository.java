@@ -4,7 +4,9 @@ import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import io.quarkus.panache.common.Page;
 import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.Tuple;
 import org.acme.entity.Brand;
+import org.hibernate.jpa.HibernateHints;
 
 import java.util.List;
 import java.util.Optional;
@@ -23,17 +25,21 @@ public class BrandRepository implements PanacheRepository<Brand> {
     }
 
     /**
-     * Find all active brands
+     * Find all active brands (query cache)
      */
     public List<Brand> findAllActive() {
-        return find("active = true", Sort.by("name")).list();
+        return find("active = true", Sort.by("name"))
+                .withHint(HibernateHints.HINT_CACHEABLE, true)
+                .list();
     }
 
     /**
-     * Find all active brands with pagination
+     * Find all active brands with pagination (query cache)
      */
     public List<Brand> findAllActive(Page page) {
-        return find("active = true", Sort.by("name")).page(page).list();
+        return find("active = true", Sort.by("name"))
+                .withHint(HibernateHints.HINT_CACHEABLE, true)
+                .page(page).list();
     }
 
     /**
@@ -66,6 +72,13 @@ public class BrandRepository implements PanacheRepository<Brand> {
         return count("LOWER(name) = LOWER(?1) AND id != ?2", name, excludeId) > 0;
     }
 
+    /**
+     * All brand names, for the uniqueness filter
+     */
+    public List<String> findAllNames() {
+        return getEntityManager().createQuery("SELECT b.name FROM Brand b", String.class).getResultList();
+    }
+
     /**
      * Count active brands
      */
@@ -80,6 +93,26 @@ public class BrandRepository implements PanacheRepository<Brand> {
         return count("LOWER(name) LIKE LOWER(?1) AND active = true", "%" + namePattern + "%");
     }
 
+    /**
+     * Count active brands and those with at least one active product in one query
+     */
+    public Tuple countStatistics() {
+        return getEntityManager().createQuery(
+                "SELECT COUNT(b) AS totalActive, " +
+                "COALESCE(SUM(CASE WHEN EXISTS (SELECT 1 FROM Product p WHERE p.brand = b AND p.active = true) " +
+                "THEN 1 ELSE 0 END), 0L) AS totalWithProducts " +
+                "FROM Brand b WHERE b.active = true", Tuple.class)
+                .getSingleResult();
+    }
+
+    /**
+     * Find the IDs of all active brands
+     */
+    public List<Long> findActiveIds() {
+        return getEntityManager().createQuery("SELECT b.id FROM Brand b WHERE b.active = true", Long.class)
+                .getResultList();
+    }
+
     /**
      * Find brands with products
      */
@@ -125,6 +158,26 @@ public class BrandRepository implements PanacheRepository<Brand> {
         return update("active = false WHERE id IN ?1", brandIds);
     }
 
+    /**
+     * Ids (as "id") and timestamps (as "at") of the newest active brands by createdAt or updatedAt,
+     * ties by descending id
+     */
+    public List<Tuple> findNewestKeys(String timestampField, int limit) {
+        return getEntityManager().createQuery("SELECT b.id AS id, b." + timestampField + " AS at FROM Brand b "
+                        + "WHERE b.active = true ORDER BY b." + timestampField + " DESC, b.id DESC", Tuple.class)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Load the active brands with the ids in the order of the ids, from the second-level cache where possible
+     */
+    public List<Brand> findActiveByIdsInOrder(List<Long> brandIds) {
+        return getSession().findMultiple(Brand.class, brandIds).stream()
+                .filter(brand -> brand != null && Boolean.TRUE.equals(brand.active))
+                .toList();
+    }
+
     /**
      * Find recently created brands
      */
@@ -4,7 +4,9 @@ import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import io.quarkus.panache.common.Page;
 import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.Tuple;
 import org.acme.entity.Category;
+import org.hibernate.jpa.HibernateHints;
 
 import java.util.List;
 import java.util.Optional;
@@ -30,31 +32,46 @@ public class CategoryRepository implements PanacheRepository<Category> {
     }
 
     /**
-     * Find all active categories
+     * Find all active categories (query cache)
      */
     public List<Category> findAllActive() {
-        return find("active = true", Sort.by("sortOrder", "name")).list();
+        return find("active = true", Sort.by("sortOrder", "name"))
+                .withHint(HibernateHints.HINT_CACHEABLE, true)
+                .list();
     }
 
     /**
-     * Find all active categories with pagination
+     * Find all categories (active or not) with their parent, ordered for building the category tree
+     */
+    public List<Category> findAllForTree() {
+        return find("SELECT c FROM Category c LEFT JOIN FETCH c.parent ORDER BY c.sortOrder, c.name").list();
+    }
+
+    /**
+     * Find all active categories with pagination (query cache)
      */
     public List<Category> findAllActive(Page page) {
-        return find("active = true", Sort.by("sortOrder", "name")).page(page).list();
+        return find("active = true", Sort.by("sortOrder", "name"))
+                .withHint(HibernateHints.HINT_CACHEABLE, true)
+                .page(page).list();
     }
 
     /**
-     * Find root categories (categories without parent)
+     * Find root categories (categories without parent, query cache)
      */
     public List<Category> findRootCategories() {
-        return find("parent IS NULL AND active = true", Sort.by("sortOrder", "name")).list();
+        return find("parent IS NULL AND active = true", Sort.by("sortOrder", "name"))
+                .withHint(HibernateHints.HINT_CACHEABLE, true)
+                .list();
     }
 
     /**
-     * Find root categories with pagination
+     * Find root categories with pagination (query cache)
      */
     public List<Category> findRootCategories(Page page) {
-        return find("parent IS NULL AND active = true", Sort.by("sortOrder", "name")).page(page).list();
+        return find("parent IS NULL AND active = true", Sort.by("sortOrder", "name"))
+                .withHint(HibernateHints.HINT_CACHEABLE, true)
+                .page(page).list();
     }
 
     /**
@@ -115,6 +132,21 @@ public class CategoryRepository implements PanacheRepository<Category> {
         return count("LOWER(name) = LOWER(?1) AND id != ?2", name, excludeId) > 0;
     }
 
+    /**
+     * All category slugs, for the uniqueness filter
+     */
+    public List<String> findAllSlugs() {
+        return getEntityManager().createQuery("SELECT c.slug FROM Category c WHERE c.slug IS NOT NULL", String.class)
+                .getResultList();
+    }
+
+    /**
+     * All category names, for the uniqueness filter
+     */
+    public List<String> findAllNames() {
+        return getEntityManager().createQuery("SELECT c.name FROM Category c", String.class).getResultList();
+    }
+
     /**
      * Count active categories
      */
@@ -136,6 +168,29 @@ public class CategoryRepository implements PanacheRepository<Category> {
         return count("parent = ?1 AND active = true", parent);
     }
 
+    /**
+     * Count active, root and product-holding categories in one query
+     */
+    public Tuple countStatistics() {
+        return getEntityManager().createQuery(
+                "SELECT COUNT(c) AS totalActive, " +
+                "COALESCE(SUM(CASE WHEN c.parent IS NULL THEN 1 ELSE 0 END), 0L) AS totalRoot, " +
+                "COALESCE(SUM(CASE WHEN EXISTS (SELECT 1 FROM Product p WHERE p.category = c AND p.active = true) " +
+                "THEN 1 ELSE 0 END), 0L) AS totalWithProducts " +
+                "FROM Category c WHERE c.active = true", Tuple.class)
+                .getSingleResult();
+    }
+
+    /**
+     * Find the IDs of all active categories and whether each is a root (id, root)
+     */
+    public List<Tuple> findActiveIdsWithRootFlag() {
+        return getEntityManager().createQuery(
+                "SELECT c.id AS id, CASE WHEN c.parent IS NULL THEN true ELSE false END AS root " +
+                "FROM Category c WHERE c.active = true", Tuple.class)
+                .getResultList();
+    }
+
     /**
      * Find categories with products
      */
@@ -0,0 +1,145 @@
+package org.acme.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.entity.InventoryMovement;
+import org.acme.entity.InventoryMovement.Reason;
+import org.acme.entity.Product;
+import org.hibernate.query.NativeQuery;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository for the append-only inventory ledger: movements are inserted, never updated,
+ * and folded into the products' stock snapshots by {@link #compact(List, long)}.
+ * No stock change locks the product: additions are plain inserts, and takings are guarded by one
+ * conditional UPDATE of products.stock_taken, the units taken by the movements after the watermark.
+ */
+@ApplicationScoped
+public class InventoryMovementRepository implements PanacheRepository<InventoryMovement> {
+
+    // Snapshot minus what was taken plus the additions after the watermark must cover the quantity.
+    // Concurrent takings queue on the row the UPDATE writes and re-check it; an addition this statement
+    // does not see yet only makes it stricter
+    private static final String TAKE =
+            "UPDATE products SET stock_taken = stock_taken + :quantity " +
+            "WHERE id = :id AND track_inventory = TRUE AND stock_quantity - stock_taken + " +
+            "COALESCE((SELECT SUM(m.quantity_change) FROM inventory_movements m WHERE m.product_id = products.id " +
+            "AND m.id > products.stock_movement_id AND m.quantity_change > 0), 0) >= :quantity";
+
+    private static final String ADD =
+            "INSERT INTO inventory_movements (product_id, quantity_change, reason, created_at) " +
+            "SELECT id, :quantity, :reason, :now FROM products WHERE id = :id AND track_inventory = TRUE";
+
+    private static final String COMPACT =
+            "UPDATE products SET stock_quantity = stock_quantity + COALESCE((SELECT SUM(m.quantity_change) " +
+            "FROM inventory_movements m WHERE m.product_id = products.id AND m.id > products.stock_movement_id " +
+            "AND m.id <= :upTo), 0), " +
+            "stock_taken = stock_taken + COALESCE((SELECT SUM(m.quantity_change) FROM inventory_movements m " +
+            "WHERE m.product_id = products.id AND m.id > products.stock_movement_id AND m.id <= :upTo " +
+            "AND m.quantity_change < 0), 0), " +
+            "stock_movement_id = GREATEST(stock_movement_id, :upTo) " +
+            "WHERE id IN (:ids)";
+
+    /**
+     * Append an addition to a tracked product's stock, returns false when the product is missing or untracked
+     */
+    public boolean add(Long productId, int quantity, Reason reason) {
+        return getEntityManager().createNativeQuery(ADD)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(InventoryMovement.class)
+                .setParameter("quantity", quantity)
+                .setParameter("reason", reason.name())
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("id", productId)
+                .executeUpdate() == 1;
+    }
+
+    /**
+     * Take quantity from a tracked product's stock and append the movement, returns false when
+     * the product is missing, untracked or has less than quantity left
+     */
+    public boolean take(Long productId, int quantity, Reason reason) {
+        int taken = getEntityManager().createNativeQuery(TAKE)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Product.class)
+                .setParameter("quantity", quantity)
+                .setParameter("id", productId)
+                .executeUpdate();
+        if (taken == 0) {
+            return false;
+        }
+        persist(new InventoryMovement(productId, -quantity, reason));
+        return true;
+    }
+
+    /**
+     * Append one movement per product with a single multi-row INSERT, returns the rows inserted
+     */
+    public int recordAll(Map<Long, Integer> quantityChanges, Reason reason) {
+        StringBuilder rows = new StringBuilder();
+        Map<String, Object> parameters = new HashMap<>();
+        int index = 0;
+        for (Map.Entry<Long, Integer> entry : quantityChanges.entrySet()) {
+            rows.append(index == 0 ? "" : ", ")
+                    .append("(:product").append(index).append(", :change").append(index).append(", :reason, :now)");
+            parameters.put("product" + index, entry.getKey());
+            parameters.put("change" + index, entry.getValue());
+            index++;
+        }
+        parameters.put("reason", reason);
+        parameters.put("now", LocalDateTime.now());
+        var insert = getEntityManager().createQuery(
+                "INSERT INTO InventoryMovement (productId, quantityChange, reason, createdAt) VALUES " + rows);
+        parameters.forEach(insert::setParameter);
+        return insert.executeUpdate();
+    }
+
+    /**
+     * Most recent movements of a product, newest first
+     */
+    public List<InventoryMovement> findByProduct(Long productId, int limit) {
+        return find("productId = ?1", Sort.by("id").descending(), productId).page(0, limit).list();
+    }
+
+    /**
+     * Id of the newest movement recorded before the given time, 0 if there is none
+     */
+    public long findLastMovementBefore(LocalDateTime time) {
+        Long id = getEntityManager().createQuery(
+                "SELECT MAX(m.id) FROM InventoryMovement m WHERE m.createdAt < :time", Long.class)
+                .setParameter("time", time)
+                .getSingleResult();
+        return id != null ? id : 0;
+    }
+
+    /**
+     * Products with movements up to the given id that are not folded into their snapshot yet
+     */
+    public List<Long> findProductsToCompact(long upTo, int limit) {
+        return getEntityManager().createQuery(
+                "SELECT DISTINCT m.productId FROM InventoryMovement m, Product p " +
+                "WHERE p.id = m.productId AND m.id > p.stockMovementId AND m.id <= :upTo", Long.class)
+                .setParameter("upTo", upTo)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Fold the unfolded movements of products up to the given id into their stock snapshots, take the
+     * folded takings off stock_taken and move the watermarks past them. Every movement up to that id
+     * must have committed: one still in flight would end up behind the watermark and never count.
+     */
+    public int compact(List<Long> productIds, long upTo) {
+        return getEntityManager().createNativeQuery(COMPACT)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Product.class)
+                .setParameter("upTo", upTo)
+                .setParameter("ids", productIds)
+                .executeUpdate();
+    }
+}
@@ -4,12 +4,17 @@ import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import io.quarkus.panache.common.Page;
 import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.Tuple;
 import org.acme.entity.Brand;
 import org.acme.entity.Category;
 import org.acme.entity.Product;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -18,6 +23,14 @@ import java.util.Optional;
 @ApplicationScoped
 public class ProductRepository implements PanacheRepository<Product> {
 
+    // Projection behind the columnar filter snapshot (id, name, price, stockQuantity, lowStockThreshold,
+    // featured, trackInventory, active, brandId, categoryId)
+    private static final String COLUMN_ROWS =
+            "SELECT p.id AS id, p.name AS name, p.price AS price, p.stockQuantity AS stockQuantity, " +
+            "p.lowStockThreshold AS lowStockThreshold, p.featured AS featured, p.trackInventory AS trackInventory, " +
+            "p.active AS active, p.brand.id AS brandId, p.category.id AS categoryId FROM Product p ";
+    private static final String COLUMN_TAGS = "SELECT p.id AS id, t AS tag FROM Product p JOIN p.tags t ";
+
     /**
      * Find product by slug
      */
@@ -32,6 +45,30 @@ public class ProductRepository implements PanacheRepository<Product> {
         return find("sku = ?1", sku).firstResultOptional();
     }
 
+    /**
+     * Find a product with its brand and category, for the product detail cache
+     */
+    public Optional<Product> findDetailById(Long id) {
+        return find("SELECT p FROM Product p LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.category WHERE p.id = ?1", id)
+                .firstResultOptional();
+    }
+
+    /**
+     * Id of the product with the slug
+     */
+    public Optional<Long> findIdBySlug(String slug) {
+        return getEntityManager().createQuery("SELECT p.id FROM Product p WHERE p.slug = ?1", Long.class)
+                .setParameter(1, slug).getResultStream().findFirst();
+    }
+
+    /**
+     * Id of the product with the SKU
+     */
+    public Optional<Long> findIdBySku(String sku) {
+        return getEntityManager().createQuery("SELECT p.id FROM Product p WHERE p.sku = ?1", Long.class)
+                .setParameter(1, sku).getResultStream().findFirst();
+    }
+
     /**
      * Find all active products
      */
@@ -134,6 +171,24 @@ public class ProductRepository implements PanacheRepository<Product> {
                    Sort.by("price"), minPrice, maxPrice).page(page).list();
     }
 
+    /**
+     * Find products of a category by price range with pagination
+     */
+    public List<Product> findByCategoryAndPriceRange(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, Page page) {
+        return find("category.id = ?1 AND price >= ?2 AND price <= ?3 AND active = true",
+                   Sort.by("price").and("name"), categoryId, minPrice, maxPrice).page(page).list();
+    }
+
+    /**
+     * Find the cheapest (or most expensive) products, of a category if one is given;
+     * the most expensive come in exactly the reverse order of the cheapest
+     */
+    public List<Product> findByPriceRank(Long categoryId, boolean cheapest, int limit) {
+        Sort sort = cheapest ? Sort.by("price", "name") : Sort.by("price", "name").descending();
+        return (categoryId != null ? find("category.id = ?1 AND active = true", sort, categoryId)
+                : find("active = true", sort)).page(0, limit).list();
+    }
+
     /**
      * Find products with low stock
      */
@@ -186,6 +241,22 @@ public class ProductRepository implements PanacheRepository<Product> {
         return count("sku = ?1 AND id != ?2", sku, excludeId) > 0;
     }
 
+    /**
+     * All product slugs, for the uniqueness filter
+     */
+    public List<String> findAllSlugs() {
+        return getEntityManager().createQuery("SELECT p.slug FROM Product p WHERE p.slug IS NOT NULL", String.class)
+                .getResultList();
+    }
+
+    /**
+     * All product SKUs, for the uniqueness filter
+     */
+    public List<String> findAllSkus() {
+        return getEntityManager().createQuery("SELECT p.sku FROM Product p WHERE p.sku IS NOT NULL", String.class)
+                .getResultList();
+    }
+
     /**
      * Count active products
      */
@@ -228,6 +299,117 @@ public class ProductRepository implements PanacheRepository<Product> {
         return count("trackInventory = true AND stockQuantity = 0 AND active = true");
     }
 
+    /**
+     * Count active, featured, low stock and out of stock products in one pass over the active products
+     */
+    public Tuple countStatistics() {
+        return getEntityManager().createQuery(
+                "SELECT COUNT(p) AS totalActive, " +
+                "COALESCE(SUM(CASE WHEN p.featured = true THEN 1 ELSE 0 END), 0L) AS totalFeatured, " +
+                "COALESCE(SUM(CASE WHEN p.trackInventory = true AND p.stockQuantity <= p.lowStockThreshold " +
+                "THEN 1 ELSE 0 END), 0L) AS totalLowStock, " +
+                "COALESCE(SUM(CASE WHEN p.trackInventory = true AND p.stockQuantity = 0 THEN 1 ELSE 0 END), 0L) " +
+                "AS totalOutOfStock " +
+                "FROM Product p WHERE p.active = true", Tuple.class)
+                .getSingleResult();
+    }
+
+    /**
+     * Count active products per brand (id, products)
+     */
+    public List<Tuple> countActiveByBrand() {
+        return getEntityManager().createQuery(
+                "SELECT p.brand.id AS id, COUNT(p) AS products FROM Product p " +
+                "WHERE p.active = true AND p.brand IS NOT NULL GROUP BY p.brand.id", Tuple.class)
+                .getResultList();
+    }
+
+    /**
+     * Count active products per category (id, products)
+     */
+    public List<Tuple> countActiveByCategory() {
+        return getEntityManager().createQuery(
+                "SELECT p.category.id AS id, COUNT(p) AS products FROM Product p " +
+                "WHERE p.active = true AND p.category IS NOT NULL GROUP BY p.category.id", Tuple.class)
+                .getResultList();
+    }
+
+    /**
+     * Load products by id with a lock, in id order so concurrent lockers cannot deadlock
+     */
+    public List<Product> lockByIds(Collection<Long> productIds, LockModeType lockMode) {
+        return find("id IN ?1", Sort.by("id"), productIds)
+                .withLock(lockMode)
+                .list();
+    }
+
+    /**
+     * Current stock columns of a product (trackInventory, stockQuantity) without loading the entity
+     */
+    public Optional<Tuple> findStockLevel(Long productId) {
+        return getEntityManager().createQuery(
+                "SELECT p.trackInventory AS trackInventory, p.stockQuantity AS stockQuantity " +
+                "FROM Product p WHERE p.id = :id", Tuple.class)
+                .setParameter("id", productId)
+                .getResultStream()
+                .findFirst();
+    }
+
+    /**
+     * Current stock levels of products by id, without loading the entities
+     */
+    public Map<Long, Integer> findStockLevels(Collection<Long> productIds) {
+        Map<Long, Integer> levels = new HashMap<>();
+        for (Tuple row : getEntityManager().createQuery(
+                "SELECT p.id AS id, p.stockQuantity AS stockQuantity FROM Product p WHERE p.id IN :ids", Tuple.class)
+                .setParameter("ids", productIds)
+                .getResultList()) {
+            levels.put(row.get("id", Long.class), row.get("stockQuantity", Integer.class));
+        }
+        return levels;
+    }
+
+    /**
+     * Filter columns of all active products (see {@link #COLUMN_ROWS})
+     */
+    public List<Tuple> findColumnRows() {
+        return getEntityManager().createQuery(COLUMN_ROWS + "WHERE p.active = true", Tuple.class)
+                .getResultList();
+    }
+
+    /**
+     * Filter columns of the given products, active or not; deleted products have no row
+     */
+    public List<Tuple> findColumnRows(Collection<Long> productIds) {
+        return getEntityManager().createQuery(COLUMN_ROWS + "WHERE p.id IN :ids", Tuple.class)
+                .setParameter("ids", productIds)
+                .getResultList();
+    }
+
+    /**
+     * Tags of all active products (id, tag)
+     */
+    public List<Tuple> findColumnTags() {
+        return getEntityManager().createQuery(COLUMN_TAGS + "WHERE p.active = true", Tuple.class)
+                .getResultList();
+    }
+
+    /**
+     * Tags of the given products (id, tag)
+     */
+    public List<Tuple> findColumnTags(Collection<Long> productIds) {
+        return getEntityManager().createQuery(COLUMN_TAGS + "WHERE p.id IN :ids", Tuple.class)
+                .setParameter("ids", productIds)
+                .getResultList();
+    }
+
+    /**
+     * Load products by id, in no particular order
+     */
+    public List<Product> findByIds(Collection<Long> productIds) {
+        return find("id IN ?1", productIds).list();
+    }
+
     /**
      * Soft delete product (set active to false)
      */
@@ -250,17 +432,14 @@ public class ProductRepository implements PanacheRepository<Product> {
     }
 
     /**
-     * Update stock quantity
-     */
-    public void updateStock(Long productId, int quantity) {
-        update("stockQuantity = ?1 WHERE id = ?2", quantity, productId);
-    }
-
-    /**
-     * Bulk update stock quantities
+     * Ids (as "id") and timestamps (as "at") of the newest active products by createdAt or updatedAt,
+     * ties by descending id
      */
-    public int bulkUpdateStock(List<Long> productIds, int quantity) {
-        return update("stockQuantity = ?1 WHERE id IN ?2", quantity, productIds);
+    public List<Tuple> findNewestKeys(String timestampField, int limit) {
+        return getEntityManager().createQuery("SELECT p.id AS id, p." + timestampField + " AS at FROM Product p "
+                        + "WHERE p.active = true ORDER BY p." + timestampField + " DESC, p.id DESC", Tuple.class)
+                .setMaxResults(limit)
+                .getResultList();
     }
 
     /**
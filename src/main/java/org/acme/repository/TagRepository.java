@@ -0,0 +1,161 @@
+package org.acme.repository;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Tuple;
+import org.acme.entity.Product;
+import org.acme.entity.Tag;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+import org.hibernate.collection.spi.PersistentCollection;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Repository for the tag dictionary and the product_tags join table
+ */
+@ApplicationScoped
+public class TagRepository implements PanacheRepository<Tag> {
+
+    // product_tags is read through its (tag_id, product_id) index, one range per tag, from the cursor on
+    private static final String PRODUCTS_WITH_ANY_TAG =
+            "SELECT DISTINCT pt.product_id FROM product_tags pt JOIN products p ON p.id = pt.product_id " +
+            "WHERE pt.tag_id IN (:tagIds) AND pt.product_id > :after AND p.active = TRUE ORDER BY pt.product_id";
+    private static final String PRODUCTS_WITH_ALL_TAGS =
+            "SELECT pt.product_id FROM product_tags pt JOIN products p ON p.id = pt.product_id " +
+            "WHERE pt.tag_id IN (:tagIds) AND pt.product_id > :after AND p.active = TRUE " +
+            "GROUP BY pt.product_id HAVING COUNT(DISTINCT pt.tag_id) = :tagCount ORDER BY pt.product_id";
+    // Grouped along the (tag_id, product_id) index; names are only joined in for the grouped tags
+    private static final String POPULAR_TAGS =
+            "SELECT t.name AS name, c.products AS products FROM (SELECT pt.tag_id, COUNT(*) AS products " +
+            "FROM product_tags pt JOIN products p ON p.id = pt.product_id WHERE p.active = TRUE " +
+            "GROUP BY pt.tag_id) c JOIN tags t ON t.id = c.tag_id ORDER BY c.products DESC, t.name";
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    /**
+     * The names without blanks and duplicates, in order
+     */
+    public static List<String> normalize(Collection<String> names) {
+        if (names == null) {
+            return null;
+        }
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String name : names) {
+            if (name != null && !name.isBlank()) {
+                distinct.add(name);
+            }
+        }
+        return new ArrayList<>(distinct);
+    }
+
+    /**
+     * Add the names missing from the dictionary; blanks are skipped.
+     * Plain JDBC on the session's connection, so it never triggers an auto-flush and is safe to call
+     * from {@link Listener} while a product is being flushed. Safe against a concurrent insert of the
+     * same name: the loser of the race keeps the existing entry.
+     */
+    public void ensureTags(Collection<String> names) {
+        List<String> distinct = normalize(names);
+        if (distinct == null || distinct.isEmpty()) {
+            return;
+        }
+        String insert = dbKind.startsWith("postgres")
+                ? "INSERT INTO tags (name) VALUES (?) ON CONFLICT (name) DO NOTHING"
+                : "MERGE INTO tags (name) KEY (name) VALUES (?)";
+        getEntityManager().unwrap(Session.class).doWork(connection -> {
+            Set<String> missing = new HashSet<>(distinct);
+            String placeholders = String.join(", ", Collections.nCopies(distinct.size(), "?"));
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT name FROM tags WHERE name IN (" + placeholders + ")")) {
+                for (int i = 0; i < distinct.size(); i++) {
+                    select.setString(i + 1, distinct.get(i));
+                }
+                try (ResultSet existing = select.executeQuery()) {
+                    while (existing.next()) {
+                        missing.remove(existing.getString(1));
+                    }
+                }
+            }
+            if (missing.isEmpty()) {
+                return;
+            }
+            try (PreparedStatement statement = connection.prepareStatement(insert)) {
+                for (String name : missing) {
+                    statement.setString(1, name);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    /**
+     * Ids of the named tags; names not in the dictionary have none
+     */
+    public List<Long> findIdsByNames(Collection<String> names) {
+        return getEntityManager().createQuery("SELECT t.id FROM Tag t WHERE t.name IN :names", Long.class)
+                .setParameter("names", names)
+                .getResultList();
+    }
+
+    /**
+     * Ids of the active products carrying any (or all) of the given tags, ordered by id,
+     * starting after the given product id
+     */
+    public List<Long> findProductIds(Collection<Long> tagIds, boolean all, long after, int limit) {
+        var query = getEntityManager().createNativeQuery(all ? PRODUCTS_WITH_ALL_TAGS : PRODUCTS_WITH_ANY_TAG, Long.class)
+                .setParameter("tagIds", tagIds)
+                .setParameter("after", after)
+                .setMaxResults(limit);
+        if (all) {
+            query.setParameter("tagCount", tagIds.size());
+        }
+        @SuppressWarnings("unchecked")
+        List<Long> productIds = query.getResultList();
+        return productIds;
+    }
+
+    /**
+     * Tags carried by the most active products (name, products), highest count first
+     */
+    public List<Tuple> findPopularTags(int limit) {
+        @SuppressWarnings("unchecked")
+        List<Tuple> tags = getEntityManager().createNativeQuery(POPULAR_TAGS, Tuple.class)
+                .setMaxResults(limit)
+                .getResultList();
+        return tags;
+    }
+
+    /**
+     * Entity listener of {@link Product} that puts its tag names into the dictionary before the product
+     * is inserted or updated, since product_tags can only store names the dictionary has. Every entity
+     * write goes through here; only the paths that skip callbacks (stateless inserts, the ingest writer's SQL)
+     * fill the dictionary themselves.
+     */
+    public static class Listener {
+
+        @PrePersist
+        @PreUpdate
+        void writing(Product product) {
+            // A loaded collection that was not touched has nothing new, and an unloaded one must not be loaded mid-flush
+            if (product.tags instanceof PersistentCollection<?> persistent
+                    && (!persistent.wasInitialized() || persistent.getStoredSnapshot() != null && !persistent.isDirty())) {
+                return;
+            }
+            Arc.container().instance(TagRepository.class).get().ensureTags(product.tags);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.acme.rest;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.acme.service.CacheStatisticsService;
+
+import java.util.Map;
+
+/**
+ * REST endpoint exposing second-level and query cache metrics
+ */
+@Path("/api/cache")
+@Produces(MediaType.APPLICATION_JSON)
+public class CacheStatisticsResource {
+
+    @Inject
+    CacheStatisticsService cacheStatisticsService;
+
+    /**
+     * Get hit ratios per cache region
+     */
+    @GET
+    @Path("/stats")
+    public Response getCacheStatistics() {
+        try {
+            return Response.ok(Map.of(
+                "regions", cacheStatisticsService.getCacheStatistics(),
+                "preparedStatements", cacheStatisticsService.getPreparedStatementCount()
+            )).build();
+        } catch (Exception e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                .entity(Map.of(
+                    "error", "Failed to get cache statistics",
+                    "message", e.getMessage()
+                )).build();
+        }
+    }
+}
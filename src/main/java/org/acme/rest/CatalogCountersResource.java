@@ -0,0 +1,53 @@
+package org.acme.rest;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.acme.service.CatalogCounters;
+
+import java.util.Map;
+
+/**
+ * REST endpoint exposing the catalog counters and an admin recount
+ */
+@Path("/api/catalog-counters")
+@Produces(MediaType.APPLICATION_JSON)
+public class CatalogCountersResource {
+
+    @Inject
+    CatalogCounters catalogCounters;
+
+    /**
+     * Get the current counters
+     */
+    @GET
+    public Response getCounters() {
+        return Response.ok(catalogCounters.getTotals()).build();
+    }
+
+    /**
+     * Rebuild all counters from the database, fixing any drift
+     */
+    @POST
+    @Path("/recount")
+    public Response recount() {
+        try {
+            CatalogCounters.Totals before = catalogCounters.getTotals();
+            CatalogCounters.Totals after = catalogCounters.recount();
+            return Response.ok(Map.of(
+                "before", before,
+                "after", after
+            )).build();
+        } catch (Exception e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                .entity(Map.of(
+                    "error", "Failed to recount catalog counters",
+                    "message", e.getMessage()
+                )).build();
+        }
+    }
+}
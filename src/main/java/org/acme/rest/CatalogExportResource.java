@@ -0,0 +1,67 @@
+package org.acme.rest;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.acme.service.CatalogExportService;
+import org.acme.service.CatalogExportService.ExportFormat;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * REST endpoint streaming the whole active catalog for downstream consumers
+ */
+@Path("/api/catalog-export")
+public class CatalogExportResource {
+
+    @Inject
+    CatalogExportService catalogExportService;
+
+    /**
+     * Stream all active products as NDJSON or CSV with chunked transfer,
+     * gzip-compressed on the fly when the client accepts it
+     */
+    @GET
+    @Path("/products")
+    public Response exportProducts(@QueryParam("format") @DefaultValue("ndjson") String formatName,
+                                   @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+        ExportFormat format;
+        try {
+            format = ExportFormat.valueOf(formatName.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(Map.of("error", "Format must be one of: ndjson, csv")).build();
+        }
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+        StreamingOutput body = output -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(output, 64 * 1024);
+                catalogExportService.exportProducts(format, compressed);
+                compressed.finish();
+            } else {
+                catalogExportService.exportProducts(format, output);
+            }
+        };
+
+        String extension = format.name().toLowerCase(Locale.ROOT);
+        Response.ResponseBuilder response = Response.ok(body, format == ExportFormat.CSV
+                    ? CatalogIngestResource.TEXT_CSV : CatalogIngestResource.APPLICATION_NDJSON)
+            .header("Content-Disposition", "attachment; filename=\"products." + extension + "\"")
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.build();
+    }
+}
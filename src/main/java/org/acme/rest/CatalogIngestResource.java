@@ -0,0 +1,152 @@
+package org.acme.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.configuration.MemorySize;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MediaType;
+import org.acme.service.CatalogIngestService;
+import org.acme.service.CatalogIngestService.IngestFormat;
+import org.acme.service.exception.BusinessException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * HTTP endpoint for onboarding supplier product files in bulk.
+ * A Vert.x route rather than a REST resource: supplier files are far larger than the global
+ * quarkus.http.limits.max-body-size, so the route runs before that limit is enforced and applies
+ * catalog.ingest.max-body-size to this path only, while streaming the body into the ingest.
+ */
+@ApplicationScoped
+public class CatalogIngestResource {
+
+    public static final String PATH = "/api/catalog-ingest/products";
+    public static final String TEXT_CSV = "text/csv";
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final Set<String> CONSUMED_TYPES = Set.of(TEXT_CSV, APPLICATION_NDJSON,
+            MediaType.TEXT_PLAIN, MediaType.APPLICATION_OCTET_STREAM);
+
+    // Quarkus rejects bodies over the global limit in a route of order -2
+    private static final int ROUTE_ORDER = -3;
+
+    @Inject
+    CatalogIngestService catalogIngestService;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "catalog.ingest.max-body-size", defaultValue = "2G")
+    MemorySize maxBodySize;
+
+    void registerRoute(@Observes Router router) {
+        router.post(PATH).order(ROUTE_ORDER).handler(this::ingestProducts);
+    }
+
+    /**
+     * Upsert products by SKU from a CSV or NDJSON body; the format follows the Content-Type
+     * unless given explicitly with ?format=csv|ndjson
+     */
+    private void ingestProducts(RoutingContext context) {
+        HttpServerRequest request = context.request();
+        String contentType = request.getHeader(HttpHeaders.CONTENT_TYPE);
+        if (contentType != null && !CONSUMED_TYPES.contains(mediaType(contentType))) {
+            reply(context, 415, Map.of("error", "Unsupported Content-Type: " + contentType));
+            return;
+        }
+        IngestFormat format = resolveFormat(request.getParam("format"), contentType);
+        if (format == null) {
+            reply(context, 400, Map.of("error", "Format must be one of: csv, ndjson"));
+            return;
+        }
+        if (declaredLength(request) > maxBodySize.asLongValue()) {
+            tooLarge(context);
+            return;
+        }
+
+        RequestBodyStream body = new RequestBodyStream(request, maxBodySize.asLongValue());
+        // The ingest blocks on the body and the database, so it runs off the event loop
+        Thread.ofVirtual().name("catalog-ingest").start(() -> {
+            try {
+                reply(context, 200, catalogIngestService.ingest(body, format));
+            } catch (BusinessException e) {
+                if (body.isTooLarge()) {
+                    tooLarge(context);
+                    return;
+                }
+                reply(context, 400, Map.of(
+                    "error", "Catalog ingest failed",
+                    "message", e.getMessage()
+                ));
+            } catch (Exception e) {
+                reply(context, 500, Map.of(
+                    "error", "Catalog ingest failed",
+                    "message", String.valueOf(e.getMessage())
+                ));
+            }
+        });
+    }
+
+    private void tooLarge(RoutingContext context) {
+        // The rest of the body is not read, so the connection cannot be reused
+        context.response().putHeader(HttpHeaders.CONNECTION, "close");
+        reply(context, 413, Map.of("error", "Request body exceeds " + maxBodySize.asLongValue() + " bytes"));
+    }
+
+    private void reply(RoutingContext context, int status, Object entity) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(entity);
+        } catch (JsonProcessingException e) {
+            status = 500;
+            json = "{\"error\":\"Failed to write the response\"}";
+        }
+        context.response()
+            .setStatusCode(status)
+            .putHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON)
+            .end(json);
+    }
+
+    private static long declaredLength(HttpServerRequest request) {
+        String contentLength = request.getHeader(HttpHeaders.CONTENT_LENGTH);
+        if (contentLength == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(contentLength.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String mediaType(String contentType) {
+        int parameters = contentType.indexOf(';');
+        return (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private IngestFormat resolveFormat(String formatName, String contentType) {
+        if (formatName != null) {
+            try {
+                return IngestFormat.valueOf(formatName.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(APPLICATION_NDJSON)) {
+            return IngestFormat.NDJSON;
+        }
+        if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(TEXT_CSV)) {
+            return IngestFormat.CSV;
+        }
+        return null;
+    }
+}
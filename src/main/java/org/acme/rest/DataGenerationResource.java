@@ -5,9 +5,10 @@ import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.acme.service.DataGenerationService;
+import org.acme.service.DataGenerationService.GenerationMode;
 
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 
 /**
  * REST endpoint for generating test data
@@ -17,6 +18,9 @@ import java.util.concurrent.CompletableFuture;
 @Consumes(MediaType.APPLICATION_JSON)
 public class DataGenerationResource {
 
+    private static final int MAX_ORM_PRODUCTS = 100_000;
+    private static final int MAX_PRODUCTS = 1_000_000;
+
     @Inject
     DataGenerationService dataGenerationService;
 
@@ -25,12 +29,18 @@ public class DataGenerationResource {
      */
     @POST
     @Path("/generate-50k")
-    public Response generate50KProducts() {
+    public Response generate50KProducts(@QueryParam("mode") @DefaultValue("bulk") String modeName) {
         try {
+            GenerationMode mode = parseMode(modeName);
+            if (mode == null) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "Mode must be one of: bulk, parallel, orm")).build();
+            }
+
             // Run data generation asynchronously to avoid timeout
-            CompletableFuture.runAsync(() -> {
+            startGeneration(() -> {
                 try {
-                    dataGenerationService.generate50KProducts();
+                    dataGenerationService.generate50KProducts(mode);
                 } catch (Exception e) {
                     System.err.println("Error generating data: " + e.getMessage());
                     e.printStackTrace();
@@ -41,6 +51,7 @@ public class DataGenerationResource {
                 "message", "Data generation started",
                 "status", "in_progress",
                 "description", "Generating 100 brands, 50 categories, and 50,000 products",
+                "mode", mode.name().toLowerCase(Locale.ROOT),
                 "note", "This process will take several minutes. Check the server logs for progress."
             )).build();
 
@@ -61,24 +72,37 @@ public class DataGenerationResource {
     public Response generateCustomData(
             @QueryParam("brands") @DefaultValue("10") int numBrands,
             @QueryParam("categories") @DefaultValue("10") int numCategories,
-            @QueryParam("products") @DefaultValue("1000") int numProducts) {
+            @QueryParam("products") @DefaultValue("1000") int numProducts,
+            @QueryParam("mode") @DefaultValue("bulk") String modeName,
+            @QueryParam("seed") @DefaultValue("42") long seed) {
         
         try {
+            GenerationMode mode = parseMode(modeName);
+            if (mode == null) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "Mode must be one of: bulk, parallel, orm")).build();
+            }
+
             // Validate input
             if (numBrands < 1 || numCategories < 1 || numProducts < 1) {
                 return Response.status(Response.Status.BAD_REQUEST)
                     .entity(Map.of("error", "All counts must be positive numbers")).build();
             }
 
-            if (numProducts > 100000) {
+            if (mode == GenerationMode.ORM && numProducts > MAX_ORM_PRODUCTS) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "Maximum 100,000 products allowed in orm mode")).build();
+            }
+
+            if (numProducts > MAX_PRODUCTS) {
                 return Response.status(Response.Status.BAD_REQUEST)
-                    .entity(Map.of("error", "Maximum 100,000 products allowed")).build();
+                    .entity(Map.of("error", "Maximum 1,000,000 products allowed")).build();
             }
 
             // Run data generation asynchronously
-            CompletableFuture.runAsync(() -> {
+            startGeneration(() -> {
                 try {
-                    dataGenerationService.generateTestData(numBrands, numCategories, numProducts);
+                    dataGenerationService.generateTestData(numBrands, numCategories, numProducts, mode, seed);
                 } catch (Exception e) {
                     System.err.println("Error generating custom data: " + e.getMessage());
                     e.printStackTrace();
@@ -91,6 +115,8 @@ public class DataGenerationResource {
                 "brands", numBrands,
                 "categories", numCategories,
                 "products", numProducts,
+                "mode", mode.name().toLowerCase(Locale.ROOT),
+                "seed", seed,
                 "note", "Check the server logs for progress."
             )).build();
 
@@ -111,13 +137,15 @@ public class DataGenerationResource {
     public Response getDatabaseStats() {
         try {
             // You can inject EntityManager or use repositories to get counts
+            DataGenerationService.GenerationReport lastReport = dataGenerationService.getLastReport();
             return Response.ok(Map.of(
                 "message", "Use GraphQL queries to check current data counts",
                 "queries", Map.of(
                     "brands", "query { brands { id name } }",
                     "categories", "query { categories { id name } }",
                     "products", "query { products { id name } }"
-                )
+                ),
+                "lastGeneration", lastReport != null ? lastReport : Map.of()
             )).build();
         } catch (Exception e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -139,9 +167,24 @@ public class DataGenerationResource {
             "service", "Data Generation Service",
             "endpoints", Map.of(
                 "generate_50k", "POST /api/data-generation/generate-50k",
-                "generate_custom", "POST /api/data-generation/generate-custom?brands=10&categories=10&products=1000",
+                "generate_custom", "POST /api/data-generation/generate-custom?brands=10&categories=10&products=1000&mode=bulk&seed=42",
                 "stats", "GET /api/data-generation/stats"
             )
         )).build();
     }
+
+    /**
+     * Run a generation job on its own virtual thread instead of the shared ForkJoin pool
+     */
+    private void startGeneration(Runnable job) {
+        Thread.ofVirtual().name("data-generation").start(job);
+    }
+
+    private GenerationMode parseMode(String modeName) {
+        try {
+            return GenerationMode.valueOf(modeName.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,119 @@
+package org.acme.rest;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The body of an HTTP request as an InputStream for a blocking reader on another thread.
+ * The request stays paused: a few chunks are fetched up front and one more for every chunk
+ * read, so at most PREFETCH chunks are buffered whatever the size of the body. Reading fails
+ * once more than the limit has arrived.
+ */
+final class RequestBodyStream extends InputStream {
+
+    private static final int PREFETCH = 16;
+    private static final Buffer END = Buffer.buffer();
+
+    private final HttpServerRequest request;
+    private final Context context;
+    private final BlockingQueue<Object> chunks = new LinkedBlockingQueue<>();
+
+    // Event loop only
+    private long received;
+    private volatile boolean tooLarge;
+
+    // Reader only
+    private Buffer current;
+    private int position;
+    private boolean ended;
+    private IOException failure;
+
+    /**
+     * Start streaming the body; must be called on the request's event loop
+     */
+    RequestBodyStream(HttpServerRequest request, long limit) {
+        this.request = request;
+        this.context = Vertx.currentContext();
+        request.pause();
+        request.handler(chunk -> {
+            if (tooLarge) {
+                return;
+            }
+            received += chunk.length();
+            if (received > limit) {
+                tooLarge = true;
+                chunks.add(new IOException("Request body exceeds " + limit + " bytes"));
+                return;
+            }
+            chunks.add(chunk);
+        });
+        request.exceptionHandler(e -> chunks.add(e instanceof IOException io ? io : new IOException(e)));
+        request.endHandler(ignored -> chunks.add(END));
+        request.fetch(PREFETCH);
+    }
+
+    /**
+     * Whether reading stopped because the body exceeded the limit
+     */
+    boolean isTooLarge() {
+        return tooLarge;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] target, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!nextChunk()) {
+            return -1;
+        }
+        int count = Math.min(length, current.length() - position);
+        current.getBytes(position, position + count, target, offset);
+        position += count;
+        return count;
+    }
+
+    private boolean nextChunk() throws IOException {
+        while (current == null || position == current.length()) {
+            if (failure != null) {
+                throw failure;
+            }
+            if (ended) {
+                return false;
+            }
+            Object next;
+            try {
+                next = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading the request body");
+            }
+            if (next == END) {
+                ended = true;
+                return false;
+            }
+            if (next instanceof IOException e) {
+                failure = e;
+                throw e;
+            }
+            current = (Buffer) next;
+            position = 0;
+            context.runOnContext(ignored -> request.fetch(1));
+        }
+        return true;
+    }
+}
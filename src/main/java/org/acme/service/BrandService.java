@@ -2,6 +2,7 @@ package org.acme.service;
 
 import io.quarkus.panache.common.Page;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
@@ -10,6 +11,7 @@ import org.acme.entity.Brand;
 import org.acme.repository.BrandRepository;
 import org.acme.service.exception.BusinessException;
 import org.acme.service.exception.EntityNotFoundException;
+import org.acme.service.invalidation.ChangeEvent;
 
 import java.util.List;
 import java.util.Optional;
@@ -23,6 +25,21 @@ public class BrandService {
     @Inject
     BrandRepository brandRepository;
 
+    @Inject
+    CatalogCounters catalogCounters;
+
+    @Inject
+    UniqueKeyFilter uniqueKeys;
+
+    @Inject
+    EntityLoader entityLoader;
+
+    @Inject
+    RecentWindows recentWindows;
+
+    @Inject
+    Event<ChangeEvent> changes;
+
     /**
      * Create a new brand
      */
@@ -30,6 +47,9 @@ public class BrandService {
     public Brand createBrand(@Valid @NotNull Brand brand) {
         validateBrandForCreation(brand);
         brandRepository.persist(brand);
+        uniqueKeys.add(UniqueKeyFilter.Key.BRAND_NAME, brand.name);
+        catalogCounters.brandChanged(brand.id, false, brand.active);
+        changes.fire(ChangeEvent.of(ChangeEvent.EntityType.BRAND, brand.id));
         return brand;
     }
 
@@ -48,6 +68,8 @@ public class BrandService {
         existingBrand.websiteUrl = brandData.websiteUrl;
         
         brandRepository.persist(existingBrand);
+        uniqueKeys.add(UniqueKeyFilter.Key.BRAND_NAME, existingBrand.name);
+        changes.fire(ChangeEvent.of(ChangeEvent.EntityType.BRAND, brandId, "name", "description", "logoUrl", "websiteUrl"));
         return existingBrand;
     }
 
@@ -55,7 +77,15 @@ public class BrandService {
      * Find brand by ID
      */
     public Brand findBrandById(@NotNull Long brandId) {
-        return brandRepository.findByIdOptional(brandId)
+        return entityLoader.find(Brand.class, brandId)
+                .orElseThrow(() -> new EntityNotFoundException("Brand not found with ID: " + brandId));
+    }
+
+    /**
+     * Brand to set as a product's brand; an uninitialized reference when the request already found it
+     */
+    public Brand getBrandReference(@NotNull Long brandId) {
+        return entityLoader.reference(Brand.class, brandId)
                 .orElseThrow(() -> new EntityNotFoundException("Brand not found with ID: " + brandId));
     }
 
@@ -114,8 +144,11 @@ public class BrandService {
     @Transactional
     public Brand activateBrand(@NotNull Long brandId) {
         Brand brand = findBrandById(brandId);
+        boolean wasActive = brand.active;
         brand.activate();
         brandRepository.persist(brand);
+        catalogCounters.brandChanged(brandId, wasActive, brand.active);
+        changes.fire(ChangeEvent.of(ChangeEvent.EntityType.BRAND, brandId, "active"));
         return brand;
     }
 
@@ -125,8 +158,11 @@ public class BrandService {
     @Transactional
     public Brand deactivateBrand(@NotNull Long brandId) {
         Brand brand = findBrandById(brandId);
+        boolean wasActive = brand.active;
         brand.deactivate();
         brandRepository.persist(brand);
+        catalogCounters.brandChanged(brandId, wasActive, brand.active);
+        changes.fire(ChangeEvent.of(ChangeEvent.EntityType.BRAND, brandId, "active"));
         return brand;
     }
 
@@ -136,8 +172,11 @@ public class BrandService {
     @Transactional
     public void deleteBrand(@NotNull Long brandId) {
         Brand brand = findBrandById(brandId);
+        boolean wasActive = brand.active;
         brand.deactivate();
         brandRepository.persist(brand);
+        catalogCounters.brandChanged(brandId, wasActive, brand.active);
+        changes.fire(ChangeEvent.of(ChangeEvent.EntityType.BRAND, brandId, "active"));
     }
 
     /**
@@ -146,6 +185,9 @@ public class BrandService {
     @Transactional
     public int activateBrands(@NotNull List<Long> brandIds) {
         validateBrandIds(brandIds);
+        catalogCounters.recountAfterCommit();
+        recentWindows.reloadAfterCommit(ChangeEvent.EntityType.BRAND);
+        brandIds.forEach(brandId -> changes.fire(ChangeEvent.of(ChangeEvent.EntityType.BRAND, brandId, "active")));
         return brandRepository.activateBrands(brandIds);
     }
 
@@ -155,6 +197,9 @@ public class BrandService {
     @Transactional
     public int deactivateBrands(@NotNull List<Long> brandIds) {
         validateBrandIds(brandIds);
+        catalogCounters.recountAfterCommit();
+        recentWindows.reloadAfterCommit(ChangeEvent.EntityType.BRAND);
+        brandIds.forEach(brandId -> changes.fire(ChangeEvent.of(ChangeEvent.EntityType.BRAND, brandId, "active")));
         return brandRepository.deactivateBrands(brandIds);
     }
 
@@ -162,36 +207,39 @@ public class BrandService {
      * Get brand statistics
      */
     public BrandStatistics getBrandStatistics() {
-        long totalActive = brandRepository.countActive();
-        long totalWithProducts = brandRepository.findBrandsWithProducts().size();
-        long totalWithoutProducts = brandRepository.findBrandsWithoutProducts().size();
-        
-        return new BrandStatistics(totalActive, totalWithProducts, totalWithoutProducts);
+        CatalogCounters.Totals totals = catalogCounters.getTotals();
+        return new BrandStatistics(totals.activeBrands, totals.brandsWithProducts,
+                totals.activeBrands - totals.brandsWithProducts);
     }
 
     /**
      * Get recently created brands
      */
     public List<Brand> getRecentlyCreatedBrands(int limit) {
-        return brandRepository.findRecentlyCreated(limit);
+        return recentWindows.newest(RecentWindows.Kind.BRANDS_CREATED, limit)
+                .map(brandRepository::findActiveByIdsInOrder)
+                .orElseGet(() -> brandRepository.findRecentlyCreated(limit));
     }
 
     /**
      * Get recently updated brands
      */
     public List<Brand> getRecentlyUpdatedBrands(int limit) {
-        return brandRepository.findRecentlyUpdated(limit);
+        return recentWindows.newest(RecentWindows.Kind.BRANDS_UPDATED, limit)
+                .map(brandRepository::findActiveByIdsInOrder)
+                .orElseGet(() -> brandRepository.findRecentlyUpdated(limit));
     }
 
     // Validation methods
     private void validateBrandForCreation(Brand brand) {
-        if (brandRepository.existsByName(brand.name)) {
+        if (uniqueKeys.mightExist(UniqueKeyFilter.Key.BRAND_NAME, brand.name) && brandRepository.existsByName(brand.name)) {
             throw new BusinessException("Brand with name '" + brand.name + "' already exists");
         }
     }
 
     private void validateBrandForUpdate(Brand brand, Long brandId) {
-        if (brandRepository.existsByNameExcludingId(brand.name, brandId)) {
+        if (uniqueKeys.mightExist(UniqueKeyFilter.Key.BRAND_NAME, brand.name)
+                && brandRepository.existsByNameExcludingId(brand.name, brandId)) {
             throw new BusinessException("Brand with name '" + brand.name + "' already exists");
         }
     }
@@ -0,0 +1,105 @@
+package org.acme.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.acme.entity.Product;
+import org.acme.repository.TagRepository;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * Bulk-ingest engine writing products through a Hibernate StatelessSession:
+ * no persistence context, no dirty checking, JDBC batched inserts for products
+ * and their image/tag rows, ids taken from the pooled sequence allocator
+ */
+@ApplicationScoped
+public class BulkProductLoader {
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    TagRepository tagRepository;
+
+    @ConfigProperty(name = "catalog.bulk-load.jdbc-batch-size", defaultValue = "500")
+    int jdbcBatchSize;
+
+    @ConfigProperty(name = "catalog.bulk-load.transaction-size", defaultValue = "5000")
+    int transactionSize;
+
+    /**
+     * Insert products (with image and tag rows) in one transaction, returns the number of rows written
+     */
+    @Transactional
+    public long insertProducts(List<Product> products) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(jdbcBatchSize);
+            insert(session, products);
+        }
+        return countRows(products);
+    }
+
+    /**
+     * Insert products produced on the fly in one transaction, holding at most one JDBC batch in memory
+     */
+    @Transactional
+    public long insertProducts(int count, IntFunction<Product> productFactory) {
+        long rows = 0;
+        List<Product> batch = new ArrayList<>(jdbcBatchSize);
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(jdbcBatchSize);
+            for (int i = 0; i < count; i++) {
+                batch.add(productFactory.apply(i));
+                if (batch.size() == jdbcBatchSize || i == count - 1) {
+                    insert(session, batch);
+                    rows += countRows(batch);
+                    batch.clear();
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Number of products written per transaction
+     */
+    public int getTransactionSize() {
+        return transactionSize;
+    }
+
+    /**
+     * Rows a product occupies across products, product_images and product_tags
+     */
+    public static long countRows(List<Product> products) {
+        long rows = products.size();
+        for (Product product : products) {
+            rows += product.imageUrls != null ? product.imageUrls.size() : 0;
+            rows += product.tags != null ? product.tags.size() : 0;
+        }
+        return rows;
+    }
+
+    /**
+     * Stateless inserts skip entity callbacks, so the stock snapshot is taken here; the batch's tags
+     * are added to the dictionary first, since the tag rows refer to them by id
+     */
+    private void insert(StatelessSession session, List<Product> products) {
+        Set<String> tags = new LinkedHashSet<>();
+        for (Product product : products) {
+            product.stockSnapshot = product.stockQuantity;
+            if (product.tags != null) {
+                tags.addAll(product.tags);
+            }
+        }
+        tagRepository.ensureTags(tags);
+        session.insertMultiple(products);
+    }
+}
@@ -0,0 +1,80 @@
+package org.acme.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service exposing Hibernate second-level and query cache hit ratios
+ */
+@ApplicationScoped
+public class CacheStatisticsService {
+
+    public static final String QUERY_RESULTS_REGION = "default-query-results-region";
+
+    private static final List<String> ENTITY_REGIONS = List.of(
+        "org.acme.entity.Brand",
+        "org.acme.entity.Category",
+        "org.acme.entity.Category.children"
+    );
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    /**
+     * Get hit/miss counters and hit ratio for every cached region
+     */
+    public Map<String, RegionStatistics> getCacheStatistics() {
+        Statistics statistics = sessionFactory.getStatistics();
+        Map<String, RegionStatistics> regions = new LinkedHashMap<>();
+
+        for (String region : ENTITY_REGIONS) {
+            CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+            regions.put(region, RegionStatistics.of(regionStatistics));
+        }
+        regions.put(QUERY_RESULTS_REGION, RegionStatistics.of(statistics.getQueryRegionStatistics(QUERY_RESULTS_REGION)));
+
+        return regions;
+    }
+
+    /**
+     * Statement count since startup, used to check that cached lookups skip the database
+     */
+    public long getPreparedStatementCount() {
+        return sessionFactory.getStatistics().getPrepareStatementCount();
+    }
+
+    /**
+     * Cache region statistics data class
+     */
+    public static class RegionStatistics {
+        public final long hitCount;
+        public final long missCount;
+        public final long putCount;
+        public final long elementCountInMemory;
+        public final double hitRatio;
+
+        public RegionStatistics(long hitCount, long missCount, long putCount, long elementCountInMemory) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.putCount = putCount;
+            this.elementCountInMemory = elementCountInMemory;
+            long lookups = hitCount + missCount;
+            this.hitRatio = lookups == 0 ? 0.0 : (double) hitCount / lookups;
+        }
+
+        static RegionStatistics of(CacheRegionStatistics statistics) {
+            if (statistics == null) {
+                return new RegionStatistics(0, 0, 0, 0);
+            }
+            return new RegionStatistics(statistics.getHitCount(), statistics.getMissCount(),
+                    statistics.getPutCount(), Math.max(0, statistics.getElementCountInMemory()));
+        }
+    }
+}
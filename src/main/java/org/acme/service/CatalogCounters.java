@@ -0,0 +1,498 @@
+package org.acme.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.Tuple;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.acme.entity.Product;
+import org.acme.repository.BrandRepository;
+import org.acme.repository.CategoryRepository;
+import org.acme.repository.ProductRepository;
+import org.acme.service.invalidation.ChangeEvent;
+import org.acme.service.invalidation.RemoteChanges;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * In-memory catalog counters behind the product, brand and category statistics.
+ * Built from the database at startup, then kept current by the services: each write
+ * records its change in the transaction and the change is applied once it commits.
+ * Reads are O(1); inside a transaction they also see that transaction's own changes.
+ * Bulk statements bypass the services and call {@link #recountAfterCommit()} instead,
+ * which makes the next read rebuild the counters; hard deletes are caught by
+ * {@link CountedTableDeletes}.
+ * Committed product changes and recounts are passed on to the {@link ProductColumnIndex}.
+ * Changes committed by other nodes arrive as {@link RemoteChanges} and mark the counters stale.
+ */
+@ApplicationScoped
+public class CatalogCounters {
+
+    private static final Object PENDING_KEY = new Object();
+    private static final int MAX_RECOUNT_ATTEMPTS = 3;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    @Inject
+    ProductRepository productRepository;
+
+    @Inject
+    BrandRepository brandRepository;
+
+    @Inject
+    CategoryRepository categoryRepository;
+
+    @Inject
+    ProductColumnIndex productColumns;
+
+    private final Object lock = new Object();
+    private CounterState committed = new CounterState(null);
+    // Guarded by lock: bumped whenever a counted transaction starts or finishes completing
+    private long generation;
+    private int completing;
+    private volatile Totals totals = committed.totals();
+    private volatile boolean stale = true;
+
+    void onStart(@Observes StartupEvent event) {
+        recount();
+    }
+
+    /**
+     * Current totals, including the uncommitted changes of the calling transaction
+     */
+    public Totals getTotals() {
+        if (stale) {
+            recount();
+        }
+        PendingChanges pending = currentPending(false);
+        if (pending == null || pending.changes.isEmpty()) {
+            return totals;
+        }
+        synchronized (lock) {
+            CounterState view = new CounterState(committed);
+            pending.changes.forEach(change -> change.accept(view));
+            return view.totals();
+        }
+    }
+
+    /**
+     * Record a product change; before is null for a new product
+     */
+    public void productChanged(ProductState before, ProductState after) {
+        record(state -> {
+            state.removeProduct(before);
+            state.addProduct(after);
+        });
+        PendingChanges pending = currentPending(true);
+        if (pending == null) {
+            productColumns.productsChanged(List.of(after.id));
+        } else {
+            pending.productIds.add(after.id);
+        }
+    }
+
+    /**
+     * Record a brand activation change; wasActive is false for a new brand
+     */
+    public void brandChanged(Long brandId, boolean wasActive, boolean active) {
+        if (wasActive != active) {
+            record(state -> state.setBrandActive(brandId, active));
+        }
+    }
+
+    /**
+     * Record a category activation or parent change; wasActive is false for a new category
+     */
+    public void categoryChanged(Long categoryId, boolean wasActive, boolean wasRoot, boolean active, boolean root) {
+        if (wasActive != active || wasRoot != root) {
+            record(state -> state.setCategory(categoryId, active, root));
+        }
+    }
+
+    /**
+     * Recount when another node changed anything the counters depend on, and pass its product
+     * changes on to the column index
+     */
+    void onRemoteChanges(@Observes RemoteChanges remote) {
+        List<Long> productIds = new ArrayList<>();
+        boolean recount = !remote.of(ChangeEvent.EntityType.BRAND).isEmpty()
+                || !remote.of(ChangeEvent.EntityType.CATEGORY).isEmpty();
+        for (ChangeEvent change : remote.of(ChangeEvent.EntityType.PRODUCT)) {
+            if (change.id == null) {
+                productColumns.invalidate();
+                recount = true;
+                continue;
+            }
+            productIds.add(change.id);
+            recount |= change.touches("active", "featured", "stockQuantity", "lowStockThreshold", "trackInventory",
+                    "brand", "category");
+        }
+        if (!productIds.isEmpty()) {
+            productColumns.productsChanged(productIds);
+        }
+        if (recount) {
+            stale = true;
+        }
+    }
+
+    /**
+     * Rebuild all counters from the database once the current transaction commits
+     */
+    public void recountAfterCommit() {
+        PendingChanges pending = currentPending(true);
+        if (pending == null) {
+            stale = true;
+            productColumns.invalidate();
+        } else {
+            pending.recount = true;
+        }
+    }
+
+    /**
+     * Rebuild all counters from the database now, fixing any drift
+     */
+    public Totals recount() {
+        // Cleared first so a recount requested while this one loads is not lost
+        stale = false;
+        for (int attempt = 1; ; attempt++) {
+            long started;
+            synchronized (lock) {
+                started = completing == 0 ? generation : -1;
+            }
+            CounterState fresh = QuarkusTransaction.requiringNew().call(this::load);
+            synchronized (lock) {
+                // A change committing while the load ran may or may not be part of it, so
+                // neither keeping nor replaying its delta is safe: load again
+                boolean settled = started >= 0 && generation == started;
+                if (settled || attempt == MAX_RECOUNT_ATTEMPTS) {
+                    committed = fresh;
+                    totals = fresh.totals();
+                    if (!settled) {
+                        // Writes kept committing; a later read tries again
+                        stale = true;
+                    }
+                    return totals;
+                }
+            }
+        }
+    }
+
+    private CounterState load() {
+        CounterState state = new CounterState(null);
+
+        Tuple products = productRepository.countStatistics();
+        state.activeProducts = products.get("totalActive", Long.class);
+        state.featuredProducts = products.get("totalFeatured", Long.class);
+        state.lowStockProducts = products.get("totalLowStock", Long.class);
+        state.outOfStockProducts = products.get("totalOutOfStock", Long.class);
+        for (Tuple row : productRepository.countActiveByBrand()) {
+            state.productsByBrand.put(row.get("id", Long.class), row.get("products", Long.class));
+        }
+        for (Tuple row : productRepository.countActiveByCategory()) {
+            state.productsByCategory.put(row.get("id", Long.class), row.get("products", Long.class));
+        }
+
+        for (Long brandId : brandRepository.findActiveIds()) {
+            state.setBrandActive(brandId, true);
+        }
+        for (Tuple row : categoryRepository.findActiveIdsWithRootFlag()) {
+            state.setCategory(row.get("id", Long.class), true, row.get("root", Boolean.class));
+        }
+        return state;
+    }
+
+    private void record(Consumer<CounterState> change) {
+        PendingChanges pending = currentPending(true);
+        if (pending == null) {
+            synchronized (lock) {
+                change.accept(committed);
+                totals = committed.totals();
+                generation++;
+            }
+        } else {
+            pending.changes.add(change);
+        }
+    }
+
+    private PendingChanges currentPending(boolean create) {
+        if (transactionSynchronizationRegistry.getTransactionStatus() == Status.STATUS_NO_TRANSACTION) {
+            return null;
+        }
+        PendingChanges pending = (PendingChanges) transactionSynchronizationRegistry.getResource(PENDING_KEY);
+        if (pending == null && create) {
+            PendingChanges created = new PendingChanges();
+            transactionSynchronizationRegistry.putResource(PENDING_KEY, created);
+            transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                    synchronized (lock) {
+                        created.completing = true;
+                        completing++;
+                        generation++;
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == Status.STATUS_COMMITTED) {
+                        apply(created);
+                    }
+                    synchronized (lock) {
+                        if (created.completing) {
+                            completing--;
+                        }
+                        generation++;
+                    }
+                }
+            });
+            pending = created;
+        }
+        return pending;
+    }
+
+    private void apply(PendingChanges pending) {
+        if (pending.recount) {
+            // Rebuilt lazily by the next read, outside the completing transaction
+            stale = true;
+            productColumns.invalidate();
+            return;
+        }
+        synchronized (lock) {
+            pending.changes.forEach(change -> change.accept(committed));
+            totals = committed.totals();
+        }
+        if (!pending.productIds.isEmpty()) {
+            productColumns.productsChanged(pending.productIds);
+        }
+    }
+
+    private static class PendingChanges {
+        final List<Consumer<CounterState>> changes = new ArrayList<>();
+        final Set<Long> productIds = new HashSet<>();
+        boolean recount;
+        // Between beforeCompletion and afterCompletion; a rollback may skip beforeCompletion
+        boolean completing;
+    }
+
+    /**
+     * Mutable counter state; an overlay state reads through to its parent for keys it has not touched
+     */
+    private static class CounterState {
+        final CounterState parent;
+        long activeProducts;
+        long featuredProducts;
+        long lowStockProducts;
+        long outOfStockProducts;
+        long activeBrands;
+        long brandsWithProducts;
+        long activeCategories;
+        long rootCategories;
+        long categoriesWithProducts;
+        final Map<Long, Long> productsByBrand = new HashMap<>();
+        final Map<Long, Long> productsByCategory = new HashMap<>();
+        final Map<Long, Boolean> brandActive = new HashMap<>();
+        final Map<Long, Boolean> categoryActive = new HashMap<>();
+        final Map<Long, Boolean> categoryRoot = new HashMap<>();
+
+        CounterState(CounterState parent) {
+            this.parent = parent;
+            if (parent != null) {
+                activeProducts = parent.activeProducts;
+                featuredProducts = parent.featuredProducts;
+                lowStockProducts = parent.lowStockProducts;
+                outOfStockProducts = parent.outOfStockProducts;
+                activeBrands = parent.activeBrands;
+                brandsWithProducts = parent.brandsWithProducts;
+                activeCategories = parent.activeCategories;
+                rootCategories = parent.rootCategories;
+                categoriesWithProducts = parent.categoriesWithProducts;
+            }
+        }
+
+        void addProduct(ProductState product) {
+            countProduct(product, 1);
+        }
+
+        void removeProduct(ProductState product) {
+            countProduct(product, -1);
+        }
+
+        private void countProduct(ProductState product, int sign) {
+            if (product == null || !product.active) {
+                return;
+            }
+            activeProducts += sign;
+            featuredProducts += product.featured ? sign : 0;
+            lowStockProducts += product.isLowStock() ? sign : 0;
+            outOfStockProducts += product.isOutOfStock() ? sign : 0;
+
+            if (product.brandId != null) {
+                long before = productsByBrand(product.brandId);
+                productsByBrand.put(product.brandId, before + sign);
+                if (brandActive(product.brandId) && (before > 0) != (before + sign > 0)) {
+                    brandsWithProducts += sign;
+                }
+            }
+            if (product.categoryId != null) {
+                long before = productsByCategory(product.categoryId);
+                productsByCategory.put(product.categoryId, before + sign);
+                if (categoryActive(product.categoryId) && (before > 0) != (before + sign > 0)) {
+                    categoriesWithProducts += sign;
+                }
+            }
+        }
+
+        void setBrandActive(Long brandId, boolean active) {
+            if (brandActive(brandId) == active) {
+                return;
+            }
+            brandActive.put(brandId, active);
+            int sign = active ? 1 : -1;
+            activeBrands += sign;
+            brandsWithProducts += productsByBrand(brandId) > 0 ? sign : 0;
+        }
+
+        void setCategory(Long categoryId, boolean active, boolean root) {
+            // The root flag is tracked only for active categories
+            Boolean current = categoryActive(categoryId) ? categoryRoot(categoryId) : null;
+            Boolean next = active ? root : null;
+            if (current != null) {
+                activeCategories--;
+                rootCategories -= current ? 1 : 0;
+                categoriesWithProducts -= productsByCategory(categoryId) > 0 ? 1 : 0;
+            }
+            if (next != null) {
+                activeCategories++;
+                rootCategories += next ? 1 : 0;
+                categoriesWithProducts += productsByCategory(categoryId) > 0 ? 1 : 0;
+            }
+            categoryActive.put(categoryId, active);
+            categoryRoot.put(categoryId, root);
+        }
+
+        private long productsByBrand(Long brandId) {
+            Long count = productsByBrand.get(brandId);
+            return count != null ? count : parent != null ? parent.productsByBrand(brandId) : 0;
+        }
+
+        private long productsByCategory(Long categoryId) {
+            Long count = productsByCategory.get(categoryId);
+            return count != null ? count : parent != null ? parent.productsByCategory(categoryId) : 0;
+        }
+
+        private boolean brandActive(Long brandId) {
+            Boolean active = brandActive.get(brandId);
+            return active != null ? active : parent != null && parent.brandActive(brandId);
+        }
+
+        private boolean categoryActive(Long categoryId) {
+            Boolean active = categoryActive.get(categoryId);
+            return active != null ? active : parent != null && parent.categoryActive(categoryId);
+        }
+
+        private boolean categoryRoot(Long categoryId) {
+            Boolean root = categoryRoot.get(categoryId);
+            return root != null ? root : parent != null && parent.categoryRoot(categoryId);
+        }
+
+        Totals totals() {
+            return new Totals(activeProducts, featuredProducts, lowStockProducts, outOfStockProducts,
+                    activeBrands, brandsWithProducts, activeCategories, rootCategories, categoriesWithProducts);
+        }
+    }
+
+    /**
+     * The counted fields of one product
+     */
+    public static class ProductState {
+        public final Long id;
+        public final boolean active;
+        public final boolean featured;
+        public final boolean trackInventory;
+        public final int stockQuantity;
+        public final Integer lowStockThreshold;
+        public final Long brandId;
+        public final Long categoryId;
+
+        private ProductState(Product product) {
+            this.id = product.id;
+            this.active = Boolean.TRUE.equals(product.active);
+            this.featured = Boolean.TRUE.equals(product.featured);
+            this.trackInventory = Boolean.TRUE.equals(product.trackInventory);
+            this.stockQuantity = product.stockQuantity != null ? product.stockQuantity : 0;
+            this.lowStockThreshold = product.lowStockThreshold;
+            this.brandId = product.brand != null ? product.brand.id : null;
+            this.categoryId = product.category != null ? product.category.id : null;
+        }
+
+        private ProductState(ProductState state, int stockQuantity) {
+            this.id = state.id;
+            this.active = state.active;
+            this.featured = state.featured;
+            this.trackInventory = state.trackInventory;
+            this.stockQuantity = stockQuantity;
+            this.lowStockThreshold = state.lowStockThreshold;
+            this.brandId = state.brandId;
+            this.categoryId = state.categoryId;
+        }
+
+        public static ProductState of(Product product) {
+            return new ProductState(product);
+        }
+
+        /**
+         * The same product with a different stock level, for stock moves done by UPDATE statements
+         */
+        public ProductState withStockQuantity(int stockQuantity) {
+            return new ProductState(this, stockQuantity);
+        }
+
+        boolean isLowStock() {
+            return trackInventory && lowStockThreshold != null && stockQuantity <= lowStockThreshold;
+        }
+
+        boolean isOutOfStock() {
+            return trackInventory && stockQuantity == 0;
+        }
+    }
+
+    /**
+     * Immutable snapshot of all counters
+     */
+    public static class Totals {
+        public final long activeProducts;
+        public final long featuredProducts;
+        public final long lowStockProducts;
+        public final long outOfStockProducts;
+        public final long activeBrands;
+        public final long brandsWithProducts;
+        public final long activeCategories;
+        public final long rootCategories;
+        public final long categoriesWithProducts;
+
+        public Totals(long activeProducts, long featuredProducts, long lowStockProducts, long outOfStockProducts,
+                      long activeBrands, long brandsWithProducts,
+                      long activeCategories, long rootCategories, long categoriesWithProducts) {
+            this.activeProducts = activeProducts;
+            this.featuredProducts = featuredProducts;
+            this.lowStockProducts = lowStockProducts;
+            this.outOfStockProducts = outOfStockProducts;
+            this.activeBrands = activeBrands;
+            this.brandsWithProducts = brandsWithProducts;
+            this.activeCategories = activeCategories;
+            this.rootCategories = rootCategories;
+            this.categoriesWithProducts = categoriesWithProducts;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package org.acme.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.agroal.api.AgroalDataSource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.service.exception.BusinessException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams all active products with brand/category names and tags to an output stream.
+ * Products and tags are read through two forward-only cursors ordered by product id and
+ * merged row by row, so the heap in use does not depend on the number of products.
+ */
+@ApplicationScoped
+public class CatalogExportService {
+
+    private static final String PRODUCTS_QUERY =
+            "SELECT p.id, p.sku, p.name, p.slug, p.description, p.price, p.compare_at_price, " +
+            "p.stock_quantity + COALESCE((SELECT SUM(m.quantity_change) FROM inventory_movements m " +
+            "WHERE m.product_id = p.id AND m.id > p.stock_movement_id), 0) AS stock_quantity, " +
+            "b.name AS brand_name, c.name AS category_name, p.active, p.featured " +
+            "FROM products p LEFT JOIN brands b ON b.id = p.brand_id LEFT JOIN categories c ON c.id = p.category_id " +
+            "WHERE p.active = TRUE ORDER BY p.id";
+
+    private static final String TAGS_QUERY =
+            "SELECT t.product_id, tg.name FROM product_tags t JOIN tags tg ON tg.id = t.tag_id " +
+            "JOIN products p ON p.id = t.product_id " +
+            "WHERE p.active = TRUE ORDER BY t.product_id";
+
+    private static final String CSV_HEADER =
+            "id,sku,name,slug,description,price,compare_at_price,stock_quantity,brand,category,tags,active,featured";
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "catalog.export.fetch-size", defaultValue = "1000")
+    int fetchSize;
+
+    /**
+     * Write every active product to the stream, returns the number of products written
+     */
+    public long exportProducts(ExportFormat format, OutputStream output) throws IOException {
+        long startTime = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        long count;
+
+        // A read-only transaction of its own: PostgreSQL only honours the fetch size outside auto-commit
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            try (PreparedStatement products = cursor(connection, PRODUCTS_QUERY);
+                 PreparedStatement tags = cursor(connection, TAGS_QUERY);
+                 ResultSet productRows = products.executeQuery();
+                 ResultSet tagRows = tags.executeQuery()) {
+                count = format == ExportFormat.CSV
+                        ? writeCsv(productRows, new TagCursor(tagRows), writer)
+                        : writeNdjson(productRows, new TagCursor(tagRows), writer);
+            } finally {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            throw new BusinessException("Failed to export products: " + e.getMessage(), e);
+        }
+
+        writer.flush();
+        System.out.println("Exported " + count + " products as " + format + " in " +
+                (System.nanoTime() - startTime) / 1_000_000 + " ms");
+        return count;
+    }
+
+    private PreparedStatement cursor(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(fetchSize);
+        return statement;
+    }
+
+    private long writeCsv(ResultSet rows, TagCursor tags, Writer writer) throws SQLException, IOException {
+        long count = 0;
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (rows.next()) {
+            long id = rows.getLong("id");
+            writer.write(Long.toString(id));
+            writer.write(',');
+            writer.write(csv(rows.getString("sku")));
+            writer.write(',');
+            writer.write(csv(rows.getString("name")));
+            writer.write(',');
+            writer.write(csv(rows.getString("slug")));
+            writer.write(',');
+            writer.write(csv(rows.getString("description")));
+            writer.write(',');
+            writer.write(csv(rows.getBigDecimal("price")));
+            writer.write(',');
+            writer.write(csv(rows.getBigDecimal("compare_at_price")));
+            writer.write(',');
+            writer.write(Integer.toString(rows.getInt("stock_quantity")));
+            writer.write(',');
+            writer.write(csv(rows.getString("brand_name")));
+            writer.write(',');
+            writer.write(csv(rows.getString("category_name")));
+            writer.write(',');
+            writer.write(csv(String.join("|", tags.tagsOf(id))));
+            writer.write(',');
+            writer.write(Boolean.toString(rows.getBoolean("active")));
+            writer.write(',');
+            writer.write(Boolean.toString(rows.getBoolean("featured")));
+            writer.write('\n');
+            count++;
+        }
+        return count;
+    }
+
+    private long writeNdjson(ResultSet rows, TagCursor tags, Writer writer) throws SQLException, IOException {
+        long count = 0;
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.setRootValueSeparator(null);
+        while (rows.next()) {
+            long id = rows.getLong("id");
+            json.writeStartObject();
+            json.writeNumberField("id", id);
+            json.writeStringField("sku", rows.getString("sku"));
+            json.writeStringField("name", rows.getString("name"));
+            json.writeStringField("slug", rows.getString("slug"));
+            json.writeStringField("description", rows.getString("description"));
+            json.writeNumberField("price", rows.getBigDecimal("price"));
+            json.writeNumberField("compare_at_price", rows.getBigDecimal("compare_at_price"));
+            json.writeNumberField("stock_quantity", rows.getInt("stock_quantity"));
+            json.writeStringField("brand", rows.getString("brand_name"));
+            json.writeStringField("category", rows.getString("category_name"));
+            json.writeArrayFieldStart("tags");
+            for (String tag : tags.tagsOf(id)) {
+                json.writeString(tag);
+            }
+            json.writeEndArray();
+            json.writeBooleanField("active", rows.getBoolean("active"));
+            json.writeBooleanField("featured", rows.getBoolean("featured"));
+            json.writeEndObject();
+            json.writeRaw('\n');
+            count++;
+        }
+        json.close();
+        return count;
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Walks the tag cursor alongside the product cursor, both ordered by product id
+     */
+    private static class TagCursor {
+        private final ResultSet rows;
+        private boolean hasRow;
+
+        TagCursor(ResultSet rows) throws SQLException {
+            this.rows = rows;
+            this.hasRow = rows.next();
+        }
+
+        List<String> tagsOf(long productId) throws SQLException {
+            List<String> tags = new ArrayList<>();
+            while (hasRow && rows.getLong(1) < productId) {
+                hasRow = rows.next();
+            }
+            while (hasRow && rows.getLong(1) == productId) {
+                tags.add(rows.getString(2));
+                hasRow = rows.next();
+            }
+            return tags;
+        }
+    }
+
+    /**
+     * Enum for export formats
+     */
+    public enum ExportFormat {
+        NDJSON, // One JSON object per line
+        CSV     // Header row, same columns the ingest endpoint accepts, tags separated by '|'
+    }
+}
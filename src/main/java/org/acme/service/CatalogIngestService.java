@@ -0,0 +1,571 @@
+package org.acme.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.acme.repository.BrandRepository;
+import org.acme.service.exception.BusinessException;
+import org.acme.service.invalidation.ChangeEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams a CSV or NDJSON product file through parse → validate → dedupe-by-SKU → bulk-write.
+ * Stages are connected by bounded queues, so memory use depends on the batch size and
+ * queue capacity, never on the size of the file.
+ */
+@ApplicationScoped
+public class CatalogIngestService {
+
+    private static final RawRecord END_OF_RECORDS = new RawRecord(-1, Map.of(), List.of(), null);
+    private static final List<IngestRow> END_OF_BATCHES = new ArrayList<>();
+
+    @Inject
+    CatalogIngestWriter writer;
+
+    @Inject
+    BrandRepository brandRepository;
+
+    @Inject
+    CategoryService categoryService;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    CatalogCounters catalogCounters;
+
+    @Inject
+    StockReservationService stockReservations;
+
+    @Inject
+    Event<ChangeEvent> changes;
+
+    @ConfigProperty(name = "catalog.ingest.batch-size", defaultValue = "1000")
+    int batchSize;
+
+    @ConfigProperty(name = "catalog.ingest.queue-capacity", defaultValue = "10000")
+    int queueCapacity;
+
+    @ConfigProperty(name = "catalog.ingest.max-reported-rejects", defaultValue = "1000")
+    int maxReportedRejects;
+
+    /**
+     * Ingest a product file; products are upserted by SKU, invalid rows are rejected and reported
+     */
+    public IngestReport ingest(InputStream input, IngestFormat format) {
+        Map<String, Long> brandIds = QuarkusTransaction.requiringNew().call(this::loadBrandIds);
+        CategoryTreeSnapshot categories = categoryService.getCategoryTree();
+        IngestProgress progress = new IngestProgress(maxReportedRejects);
+        BlockingQueue<RawRecord> records = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<List<IngestRow>> batches = new ArrayBlockingQueue<>(2);
+        long startTime = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Void> writeStage = executor.submit(() -> {
+                writeBatches(batches, progress);
+                return null;
+            });
+            Future<Void> validateStage = executor.submit(() -> {
+                validateRecords(records, batches, brandIds, categories, progress, writeStage);
+                return null;
+            });
+
+            boolean completed = false;
+            try {
+                parse(input, format, records, progress, validateStage);
+                validateStage.get();
+                writeStage.get();
+                completed = true;
+            } catch (IOException e) {
+                throw new BusinessException("Failed to read " + format.name().toLowerCase(Locale.ROOT) +
+                        " input: " + e.getMessage(), e);
+            } catch (ExecutionException e) {
+                Throwable cause = rootCause(e);
+                throw new BusinessException("Catalog ingest failed: " + cause.getMessage(), cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException("Catalog ingest interrupted", e);
+            } finally {
+                if (!completed) {
+                    validateStage.cancel(true);
+                    writeStage.cancel(true);
+                }
+            }
+        }
+
+        IngestReport report = progress.toReport(format, System.nanoTime() - startTime);
+        if (report.rowsWritten > 0) {
+            // Rows were written with plain SQL, behind the services' backs
+            catalogCounters.recountAfterCommit();
+            stockReservations.invalidateAllAfterCommit();
+            changes.fire(ChangeEvent.all(ChangeEvent.EntityType.PRODUCT));
+        }
+        System.out.println("Catalog ingest finished: " + report);
+        return report;
+    }
+
+    private Map<String, Long> loadBrandIds() {
+        Map<String, Long> brandIds = new HashMap<>();
+        for (Brand brand : brandRepository.listAll()) {
+            brandIds.putIfAbsent(brand.name.toLowerCase(Locale.ROOT), brand.id);
+        }
+        return brandIds;
+    }
+
+    /**
+     * Stage 1 (caller thread): split the input into records of named fields
+     */
+    private void parse(InputStream input, IngestFormat format, BlockingQueue<RawRecord> records,
+                       IngestProgress progress, Future<?> consumer)
+            throws IOException, InterruptedException, ExecutionException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == IngestFormat.CSV) {
+            parseCsv(reader, records, progress, consumer);
+        } else {
+            parseNdjson(reader, records, progress, consumer);
+        }
+        put(records, END_OF_RECORDS, consumer);
+    }
+
+    private void parseCsv(BufferedReader reader, BlockingQueue<RawRecord> records, IngestProgress progress,
+                          Future<?> consumer) throws IOException, InterruptedException, ExecutionException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        List<String> columns = new ArrayList<>(header.size());
+        for (String column : header) {
+            columns.add(column.trim().toLowerCase(Locale.ROOT));
+        }
+
+        List<String> values;
+        while ((values = csv.next()) != null) {
+            if (values.size() == 1 && values.get(0).isBlank()) {
+                continue;
+            }
+            progress.rowsRead.incrementAndGet();
+            long line = csv.getRecordLine();
+            if (values.size() != columns.size()) {
+                put(records, new RawRecord(line, Map.of(), List.of(),
+                        "Expected " + columns.size() + " columns but found " + values.size()), consumer);
+                continue;
+            }
+
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                fields.put(columns.get(i), values.get(i));
+            }
+            put(records, new RawRecord(line, fields, splitTags(fields.get("tags")), null), consumer);
+        }
+    }
+
+    private void parseNdjson(BufferedReader reader, BlockingQueue<RawRecord> records, IngestProgress progress,
+                             Future<?> consumer) throws IOException, InterruptedException, ExecutionException {
+        String text;
+        long line = 0;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            progress.rowsRead.incrementAndGet();
+
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(text);
+            } catch (IOException e) {
+                put(records, new RawRecord(line, Map.of(), List.of(), "Malformed JSON"), consumer);
+                continue;
+            }
+            if (!node.isObject()) {
+                put(records, new RawRecord(line, Map.of(), List.of(), "Expected a JSON object"), consumer);
+                continue;
+            }
+
+            Map<String, String> fields = new HashMap<>();
+            List<String> tags = List.of();
+            var properties = node.properties().iterator();
+            while (properties.hasNext()) {
+                var property = properties.next();
+                String name = property.getKey().toLowerCase(Locale.ROOT);
+                JsonNode value = property.getValue();
+                if (name.equals("tags") && value.isArray()) {
+                    tags = new ArrayList<>(value.size());
+                    for (JsonNode tag : value) {
+                        tags.add(tag.asText());
+                    }
+                } else if (!value.isNull()) {
+                    fields.put(name, value.asText());
+                }
+            }
+            if (tags.isEmpty()) {
+                tags = splitTags(fields.get("tags"));
+            }
+            put(records, new RawRecord(line, fields, tags, null), consumer);
+        }
+    }
+
+    /**
+     * Stage 2: validate records and dedupe them by SKU within a batch, the last occurrence wins;
+     * a SKU repeated across batches is simply upserted again
+     */
+    private void validateRecords(BlockingQueue<RawRecord> records, BlockingQueue<List<IngestRow>> batches,
+                                 Map<String, Long> brandIds, CategoryTreeSnapshot categories,
+                                 IngestProgress progress, Future<?> consumer)
+            throws InterruptedException, ExecutionException {
+        Map<String, IngestRow> batch = new LinkedHashMap<>();
+        while (true) {
+            RawRecord record = records.take();
+            if (record == END_OF_RECORDS) {
+                break;
+            }
+            if (record.error != null) {
+                progress.reject(record.line, record.fields.get("sku"), record.error);
+                continue;
+            }
+
+            IngestRow row;
+            try {
+                row = toRow(record, brandIds, categories);
+            } catch (IllegalArgumentException e) {
+                progress.reject(record.line, record.fields.get("sku"), e.getMessage());
+                continue;
+            }
+
+            IngestRow previous = batch.remove(row.sku);
+            if (previous != null) {
+                progress.reject(previous.line, previous.sku, "Duplicate SKU, superseded by line " + row.line);
+            }
+            batch.put(row.sku, row);
+            if (batch.size() >= batchSize) {
+                put(batches, new ArrayList<>(batch.values()), consumer);
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            put(batches, new ArrayList<>(batch.values()), consumer);
+        }
+        put(batches, END_OF_BATCHES, consumer);
+    }
+
+    /**
+     * Stage 3: write batches; a batch the database refuses is rejected as a whole and the ingest goes on
+     */
+    private void writeBatches(BlockingQueue<List<IngestRow>> batches, IngestProgress progress)
+            throws InterruptedException {
+        while (true) {
+            List<IngestRow> batch = batches.take();
+            if (batch == END_OF_BATCHES) {
+                return;
+            }
+            try {
+                progress.rowsWritten.addAndGet(writer.writeBatch(batch));
+            } catch (RuntimeException e) {
+                String reason = "Batch rejected by the database: " + rootCause(e).getMessage();
+                for (IngestRow row : batch) {
+                    progress.reject(row.line, row.sku, reason);
+                }
+            }
+        }
+    }
+
+    private IngestRow toRow(RawRecord record, Map<String, Long> brandIds, CategoryTreeSnapshot categories) {
+        IngestRow row = new IngestRow();
+        row.line = record.line;
+        row.sku = required(record, "sku", 100);
+        row.name = required(record, "name", 200);
+        if (row.name.length() < 2) {
+            throw new IllegalArgumentException("Product name must be between 2 and 200 characters");
+        }
+        row.description = optional(record, "description", 2000);
+
+        row.price = decimal(record, "price");
+        if (row.price == null) {
+            throw new IllegalArgumentException("Price is required");
+        }
+        if (row.price.signum() <= 0) {
+            throw new IllegalArgumentException("Price must be greater than 0");
+        }
+        checkMoney(row.price, "Price");
+        row.compareAtPrice = decimal(record, "compare_at_price");
+        if (row.compareAtPrice != null) {
+            if (row.compareAtPrice.signum() < 0) {
+                throw new IllegalArgumentException("Compare at price must be greater than or equal to 0");
+            }
+            checkMoney(row.compareAtPrice, "Compare at price");
+        }
+
+        String stock = optional(record, "stock_quantity", 20);
+        try {
+            row.stockQuantity = stock == null ? 0 : Integer.parseInt(stock);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid stock_quantity: " + stock);
+        }
+        if (row.stockQuantity < 0) {
+            throw new IllegalArgumentException("Stock quantity cannot be negative");
+        }
+
+        String brand = optional(record, "brand", 255);
+        if (brand != null) {
+            row.brandId = brandIds.get(brand.toLowerCase(Locale.ROOT));
+            if (row.brandId == null) {
+                throw new IllegalArgumentException("Unknown brand: " + brand);
+            }
+        }
+
+        String category = optional(record, "category", 255);
+        if (category != null) {
+            Optional<Category> match = categories.findBySlug(category).or(() -> categories.findByName(category));
+            row.categoryId = match.map(c -> c.id)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown category: " + category));
+        }
+
+        row.active = bool(record, "active", true);
+        row.featured = bool(record, "featured", false);
+        row.slug = Product.generateSlug(row.name + " " + row.sku);
+        if (row.slug.length() > 100) {
+            row.slug = row.slug.substring(0, 100);
+        }
+
+        row.tags = new ArrayList<>(record.tags.size());
+        for (String tag : record.tags) {
+            if (!tag.isBlank() && !row.tags.contains(tag.trim())) {
+                row.tags.add(tag.trim());
+            }
+        }
+        return row;
+    }
+
+    private static String required(RawRecord record, String field, int maxLength) {
+        String value = optional(record, field, maxLength);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + field);
+        }
+        return value;
+    }
+
+    private static String optional(RawRecord record, String field, int maxLength) {
+        String value = record.fields.get(field);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        value = value.trim();
+        if (value.length() > maxLength) {
+            throw new IllegalArgumentException(field + " cannot exceed " + maxLength + " characters");
+        }
+        return value;
+    }
+
+    private static BigDecimal decimal(RawRecord record, String field) {
+        String value = optional(record, field, 20);
+        try {
+            return value == null ? null : new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+    }
+
+    private static void checkMoney(BigDecimal value, String label) {
+        if (value.scale() > 2 || value.precision() - value.scale() > 10) {
+            throw new IllegalArgumentException(label + " must have at most 10 integer digits and 2 decimal places");
+        }
+    }
+
+    private static boolean bool(RawRecord record, String field, boolean defaultValue) {
+        String value = optional(record, field, 5);
+        if (value == null) {
+            return defaultValue;
+        }
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "true", "1", "yes" -> true;
+            case "false", "0", "no" -> false;
+            default -> throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        };
+    }
+
+    private static List<String> splitTags(String tags) {
+        if (tags == null || tags.isBlank()) {
+            return List.of();
+        }
+        return List.of(tags.split("\\|"));
+    }
+
+    /**
+     * Hand an item to the next stage, giving up if that stage has already stopped
+     */
+    private static <T> void put(BlockingQueue<T> queue, T item, Future<?> consumer)
+            throws InterruptedException, ExecutionException {
+        while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+            if (consumer.isDone()) {
+                consumer.get();
+                throw new IllegalStateException("Ingest stage stopped before the end of the input");
+            }
+        }
+    }
+
+    private static Throwable rootCause(Throwable throwable) {
+        Throwable cause = throwable;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * Enum for accepted ingest formats
+     */
+    public enum IngestFormat {
+        CSV,    // Header row, comma separated, tags separated by '|'
+        NDJSON  // One JSON object per line, tags as an array or a '|' separated string
+    }
+
+    /**
+     * One parsed input row, or the reason it could not be parsed
+     */
+    private static class RawRecord {
+        final long line;
+        final Map<String, String> fields;
+        final List<String> tags;
+        final String error;
+
+        RawRecord(long line, Map<String, String> fields, List<String> tags, String error) {
+            this.line = line;
+            this.fields = fields;
+            this.tags = tags;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Validated product row ready to be written
+     */
+    public static class IngestRow {
+        public long line;
+        public String sku;
+        public String name;
+        public String description;
+        public String slug;
+        public BigDecimal price;
+        public BigDecimal compareAtPrice;
+        public int stockQuantity;
+        public Long brandId;
+        public Long categoryId;
+        public boolean active;
+        public boolean featured;
+        public List<String> tags;
+    }
+
+    /**
+     * A rejected input row and why
+     */
+    public static class Reject {
+        public final long line;
+        public final String sku;
+        public final String reason;
+
+        public Reject(long line, String sku, String reason) {
+            this.line = line;
+            this.sku = sku;
+            this.reason = reason;
+        }
+    }
+
+    /**
+     * Counters shared by the pipeline stages; only the first rejects are kept
+     */
+    private static class IngestProgress {
+        final AtomicLong rowsRead = new AtomicLong();
+        final AtomicLong rowsWritten = new AtomicLong();
+        final AtomicLong rowsRejected = new AtomicLong();
+        final List<Reject> rejects = new ArrayList<>();
+        final int maxReportedRejects;
+
+        IngestProgress(int maxReportedRejects) {
+            this.maxReportedRejects = maxReportedRejects;
+        }
+
+        void reject(long line, String sku, String reason) {
+            rowsRejected.incrementAndGet();
+            synchronized (rejects) {
+                if (rejects.size() < maxReportedRejects) {
+                    rejects.add(new Reject(line, sku, reason));
+                }
+            }
+        }
+
+        IngestReport toReport(IngestFormat format, long elapsedNanos) {
+            synchronized (rejects) {
+                return new IngestReport(format, rowsRead.get(), rowsWritten.get(), rowsRejected.get(),
+                        new ArrayList<>(rejects), elapsedNanos);
+            }
+        }
+    }
+
+    /**
+     * Outcome of one ingest run
+     */
+    public static class IngestReport {
+        public final IngestFormat format;
+        public final long rowsRead;
+        public final long rowsWritten;
+        public final long rowsRejected;
+        public final long elapsedMillis;
+        public final long rowsPerSecond;
+        public final List<Reject> rejects;
+        public final boolean rejectsTruncated;
+
+        public IngestReport(IngestFormat format, long rowsRead, long rowsWritten, long rowsRejected,
+                            List<Reject> rejects, long elapsedNanos) {
+            this.format = format;
+            this.rowsRead = rowsRead;
+            this.rowsWritten = rowsWritten;
+            this.rowsRejected = rowsRejected;
+            this.rejects = rejects;
+            this.rejectsTruncated = rejects.size() < rowsRejected;
+            this.elapsedMillis = elapsedNanos / 1_000_000;
+            this.rowsPerSecond = elapsedNanos > 0 ? rowsRead * 1_000_000_000L / elapsedNanos : rowsRead;
+        }
+
+        @Override
+        public String toString() {
+            return "IngestReport{" +
+                    "format=" + format +
+                    ", rowsRead=" + rowsRead +
+                    ", rowsWritten=" + rowsWritten +
+                    ", rowsRejected=" + rowsRejected +
+                    ", elapsedMillis=" + elapsedMillis +
+                    ", rowsPerSecond=" + rowsPerSecond +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package org.acme.service;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.service.CatalogIngestService.IngestRow;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.postgresql.PGConnection;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Writes ingest batches with the fastest path of the configured database:
+ * each batch is loaded into session-local staging tables (COPY on PostgreSQL,
+ * batched INSERT on H2) and upserted into products by SKU with one set-based statement.
+ * New products take their id straight from the product sequence, one value per row,
+ * which never overlaps the blocks handed out to Hibernate's pooled allocator.
+ * An upserted stock level becomes the product's stock snapshot and supersedes its inventory movements so far.
+ */
+@ApplicationScoped
+public class CatalogIngestWriter {
+
+    private static final String PRODUCT_SEQUENCE = "products_seq";
+
+    private static final String STAGING_COLUMNS =
+            "sku, name, description, slug, price, compare_at_price, stock_quantity, brand_id, category_id, active, featured";
+
+    private static final String POSTGRESQL_UPSERT =
+            "INSERT INTO products (id, sku, name, description, slug, price, compare_at_price, stock_quantity, " +
+            "low_stock_threshold, weight_unit, brand_id, category_id, active, featured, track_inventory, " +
+            "created_at, updated_at, version) " +
+            "SELECT nextval('" + PRODUCT_SEQUENCE + "'), s.sku, s.name, s.description, s.slug, s.price, " +
+            "s.compare_at_price, s.stock_quantity, 5, 'kg', s.brand_id, s.category_id, s.active, s.featured, true, " +
+            "now(), now(), 0 FROM ingest_products s " +
+            "ON CONFLICT (sku) DO UPDATE SET name = EXCLUDED.name, description = EXCLUDED.description, " +
+            "price = EXCLUDED.price, compare_at_price = EXCLUDED.compare_at_price, " +
+            "stock_quantity = EXCLUDED.stock_quantity, " +
+            "stock_movement_id = COALESCE((SELECT MAX(m.id) FROM inventory_movements m WHERE m.product_id = products.id), 0), " +
+            "stock_taken = 0, " +
+            "brand_id = EXCLUDED.brand_id, " +
+            "category_id = EXCLUDED.category_id, active = EXCLUDED.active, featured = EXCLUDED.featured, " +
+            "updated_at = EXCLUDED.updated_at, version = products.version + 1";
+
+    private static final String H2_MERGE =
+            "MERGE INTO products p USING ingest_products s ON p.sku = s.sku " +
+            "WHEN MATCHED THEN UPDATE SET name = s.name, description = s.description, price = s.price, " +
+            "compare_at_price = s.compare_at_price, stock_quantity = s.stock_quantity, " +
+            "stock_movement_id = COALESCE((SELECT MAX(m.id) FROM inventory_movements m WHERE m.product_id = p.id), 0), " +
+            "stock_taken = 0, " +
+            "brand_id = s.brand_id, " +
+            "category_id = s.category_id, active = s.active, featured = s.featured, updated_at = CURRENT_TIMESTAMP, " +
+            "version = p.version + 1 " +
+            "WHEN NOT MATCHED THEN INSERT (id, sku, name, description, slug, price, compare_at_price, " +
+            "stock_quantity, low_stock_threshold, weight_unit, brand_id, category_id, active, featured, " +
+            "track_inventory, created_at, updated_at, version) " +
+            "VALUES (NEXT VALUE FOR " + PRODUCT_SEQUENCE + ", s.sku, s.name, s.description, s.slug, s.price, " +
+            "s.compare_at_price, s.stock_quantity, 5, 'kg', s.brand_id, s.category_id, s.active, s.featured, " +
+            "TRUE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0)";
+
+    // Staged tag names missing from the dictionary; a name added concurrently is left as it is
+    private static final String POSTGRESQL_TAGS =
+            "INSERT INTO tags (name) SELECT DISTINCT tag FROM ingest_tags ON CONFLICT (name) DO NOTHING";
+
+    private static final String H2_TAGS = "MERGE INTO tags (name) KEY (name) SELECT DISTINCT tag FROM ingest_tags";
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    /**
+     * Upsert one batch of distinct SKUs in its own transaction, returns the number of products written
+     */
+    public int writeBatch(List<IngestRow> rows) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            try (Connection connection = dataSource.getConnection()) {
+                if (isPostgreSQL()) {
+                    createStagingTables(connection, "CREATE TEMP TABLE IF NOT EXISTS", "ON COMMIT DELETE ROWS");
+                    copyStaging(connection, rows);
+                    return upsert(connection, POSTGRESQL_UPSERT, POSTGRESQL_TAGS);
+                }
+                createStagingTables(connection, "CREATE LOCAL TEMPORARY TABLE IF NOT EXISTS",
+                        "ON COMMIT DELETE ROWS TRANSACTIONAL");
+                insertStaging(connection, rows);
+                return upsert(connection, H2_MERGE, H2_TAGS);
+            }
+        });
+    }
+
+    public String getDbKind() {
+        return dbKind;
+    }
+
+    private boolean isPostgreSQL() {
+        return dbKind.startsWith("postgres");
+    }
+
+    private void createStagingTables(Connection connection, String create, String options) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(create + " ingest_products (" +
+                    "sku VARCHAR(100) NOT NULL, name VARCHAR(255), description VARCHAR(2000), slug VARCHAR(100), " +
+                    "price NUMERIC(12,2), compare_at_price NUMERIC(12,2), stock_quantity INTEGER, " +
+                    "brand_id BIGINT, category_id BIGINT, active BOOLEAN, featured BOOLEAN) " + options);
+            statement.execute(create + " ingest_tags (sku VARCHAR(100) NOT NULL, tag VARCHAR(255)) " + options);
+        }
+    }
+
+    /**
+     * PostgreSQL: stream the batch into the staging tables through COPY ... FROM STDIN
+     */
+    private void copyStaging(Connection connection, List<IngestRow> rows) throws Exception {
+        StringBuilder products = new StringBuilder(rows.size() * 128);
+        StringBuilder tags = new StringBuilder();
+        for (IngestRow row : rows) {
+            products.append(csv(row.sku)).append(',')
+                    .append(csv(row.name)).append(',')
+                    .append(csv(row.description)).append(',')
+                    .append(csv(row.slug)).append(',')
+                    .append(csv(row.price)).append(',')
+                    .append(csv(row.compareAtPrice)).append(',')
+                    .append(row.stockQuantity).append(',')
+                    .append(csv(row.brandId)).append(',')
+                    .append(csv(row.categoryId)).append(',')
+                    .append(row.active).append(',')
+                    .append(row.featured).append('\n');
+            for (String tag : row.tags) {
+                tags.append(csv(row.sku)).append(',').append(csv(tag)).append('\n');
+            }
+        }
+
+        var copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        copyManager.copyIn("COPY ingest_products (" + STAGING_COLUMNS + ") FROM STDIN WITH (FORMAT csv)",
+                new StringReader(products.toString()));
+        if (!tags.isEmpty()) {
+            copyManager.copyIn("COPY ingest_tags (sku, tag) FROM STDIN WITH (FORMAT csv)",
+                    new StringReader(tags.toString()));
+        }
+    }
+
+    /**
+     * H2: fill the staging tables with JDBC batched inserts
+     */
+    private void insertStaging(Connection connection, List<IngestRow> rows) throws SQLException {
+        try (PreparedStatement products = connection.prepareStatement(
+                "INSERT INTO ingest_products (" + STAGING_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement tags = connection.prepareStatement("INSERT INTO ingest_tags (sku, tag) VALUES (?, ?)")) {
+            for (IngestRow row : rows) {
+                products.setString(1, row.sku);
+                products.setString(2, row.name);
+                products.setString(3, row.description);
+                products.setString(4, row.slug);
+                products.setBigDecimal(5, row.price);
+                products.setBigDecimal(6, row.compareAtPrice);
+                products.setInt(7, row.stockQuantity);
+                setLong(products, 8, row.brandId);
+                setLong(products, 9, row.categoryId);
+                products.setBoolean(10, row.active);
+                products.setBoolean(11, row.featured);
+                products.addBatch();
+                for (String tag : row.tags) {
+                    tags.setString(1, row.sku);
+                    tags.setString(2, tag);
+                    tags.addBatch();
+                }
+            }
+            products.executeBatch();
+            tags.executeBatch();
+        }
+    }
+
+    /**
+     * Upsert the staged products, add the staged tags to the dictionary, then replace the tags of every staged SKU
+     */
+    private int upsert(Connection connection, String upsertSql, String tagsSql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            int written = statement.executeUpdate(upsertSql);
+            statement.executeUpdate(tagsSql);
+            statement.executeUpdate("DELETE FROM product_tags WHERE product_id IN " +
+                    "(SELECT p.id FROM products p JOIN ingest_products s ON s.sku = p.sku)");
+            statement.executeUpdate("INSERT INTO product_tags (product_id, tag_id) " +
+                    "SELECT p.id, tg.id FROM ingest_tags t JOIN products p ON p.sku = t.sku JOIN tags tg ON tg.name = t.tag");
+            return written;
+        }
+    }
+
+    private static void setLong(PreparedStatement statement, int index, Long value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.BIGINT);
+        } else {
+            statement.setLong(index, value);
+        }
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,8 +1,13 @@
 package org.acme.service;
 
-import io.quarkus.panache.common.Page;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
@@ -10,9 +15,14 @@ import org.acme.entity.Category;
 import org.acme.repository.CategoryRepository;
 import org.acme.service.exception.BusinessException;
 import org.acme.service.exception.EntityNotFoundException;
+import org.acme.service.invalidation.ChangeEvent;
+import org.acme.service.invalidation.RemoteChanges;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Service for Category business logic operations
@@ -23,6 +33,26 @@ public class CategoryService {
     @Inject
     CategoryRepository categoryRepository;
 
+    @Inject
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    @Inject
+    CatalogCounters catalogCounters;
+
+    @Inject
+    UniqueKeyFilter uniqueKeys;
+
+    @Inject
+    EntityLoader entityLoader;
+
+    @Inject
+    Event<ChangeEvent> changes;
+
+    // Bumped after every committed category change; a snapshot is current while its version matches
+    private final AtomicLong categoryTreeVersion = new AtomicLong();
+    private final ReentrantLock categoryTreeLock = new ReentrantLock();
+    private volatile CategoryTreeSnapshot categoryTree;
+
     /**
      * Create a new category
      */
@@ -30,6 +60,10 @@ public class CategoryService {
     public Category createCategory(@Valid @NotNull Category category) {
         validateCategoryForCreation(category);
         categoryRepository.persist(category);
+        addUniqueKeys(category);
+        invalidateCategoryTree();
+        changes.fire(ChangeEvent.of(ChangeEvent.EntityType.CATEGORY, category.id));
+        catalogCounters.categoryChanged(category.id, false, false, category.active, category.parent == null);
         return category;
     }
 
@@ -38,10 +72,13 @@ public class CategoryService {
      */
     @Transactional
     public Category createCategory(@Valid @NotNull Category category, @NotNull Long parentId) {
-        Category parent = findCategoryById(parentId);
-        category.parent = parent;
+        category.parent = getCategoryReference(parentId);
         validateCategoryForCreation(category);
         categoryRepository.persist(category);
+        addUniqueKeys(category);
+        invalidateCategoryTree();
+        changes.fire(ChangeEvent.of(ChangeEvent.EntityType.CATEGORY, category.id));
+        catalogCounters.categoryChanged(category.id, false, false, category.active, false);
         return category;
     }
 
@@ -59,8 +96,12 @@ public class CategoryService {
         existingCategory.slug = categoryData.slug;
         existingCategory.imageUrl = categoryData.imageUrl;
         existingCategory.sortOrder = categoryData.sortOrder;
+        existingCategory.updateSlug();
         
         categoryRepository.persist(existingCategory);
+        addUniqueKeys(existingCategory);
+        invalidateCategoryTree();
+        changes.fire(ChangeEvent.of(ChangeEvent.EntityType.CATEGORY, categoryId, "name", "description", "slug", "imageUrl", "sortOrder"));
         return existingCategory;
     }
 
@@ -70,6 +111,7 @@ public class CategoryService {
     @Transactional
     public Category moveCategory(@NotNull Long categoryId, Long newParentId) {
         Category category = findCategoryById(categoryId);
+        boolean wasRoot = category.parent == null;
         
         if (newParentId != null) {
             Category newParent = findCategoryById(newParentId);
@@ -80,6 +122,9 @@ public class CategoryService {
         }
         
         categoryRepository.persist(category);
+        invalidateCategoryTree();
+        changes.fire(ChangeEvent.of(ChangeEvent.EntityType.CATEGORY, categoryId, "parent"));
+        catalogCounters.categoryChanged(categoryId, category.active, wasRoot, category.active, category.parent == null);
         return category;
     }
 
@@ -87,7 +132,35 @@ public class CategoryService {
      * Find category by ID
      */
     public Category findCategoryById(@NotNull Long categoryId) {
-        return categoryRepository.findByIdOptional(categoryId)
+        return entityLoader.find(Category.class, categoryId)
+                .orElseThrow(() -> new EntityNotFoundException("Category not found with ID: " + categoryId));
+    }
+
+    /**
+     * Category to set as a parent or a product's category; an uninitialized reference when the
+     * request already found it
+     */
+    public Category getCategoryReference(@NotNull Long categoryId) {
+        return entityLoader.reference(Category.class, categoryId)
+                .orElseThrow(() -> new EntityNotFoundException("Category not found with ID: " + categoryId));
+    }
+
+    /**
+     * The managed entities of categories read from the snapshot, in the same order, for callers
+     * that navigate their products (which snapshot copies do not hold)
+     */
+    public List<Category> toManaged(@NotNull List<Category> categories) {
+        List<Long> ids = categories.stream().map(category -> category.id).toList();
+        return categoryRepository.getSession().findMultiple(Category.class, ids).stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Get category by ID from the category tree snapshot
+     */
+    public Category getCategory(@NotNull Long categoryId) {
+        return getCategoryTree().findById(categoryId)
                 .orElseThrow(() -> new EntityNotFoundException("Category not found with ID: " + categoryId));
     }
 
@@ -95,79 +168,135 @@ public class CategoryService {
      * Find category by slug
      */
     public Optional<Category> findCategoryBySlug(@NotNull String slug) {
-        return categoryRepository.findBySlug(slug);
+        return getCategoryTree().findBySlug(slug);
     }
 
     /**
      * Find category by name
      */
     public Optional<Category> findCategoryByName(@NotNull String name) {
-        return categoryRepository.findByName(name);
+        return getCategoryTree().findByName(name);
     }
 
     /**
      * Get all active categories
      */
     public List<Category> getAllActiveCategories() {
-        return categoryRepository.findAllActive();
+        return getCategoryTree().getAllActive();
     }
 
     /**
      * Get all active categories with pagination
      */
     public List<Category> getAllActiveCategories(int pageIndex, int pageSize) {
-        return categoryRepository.findAllActive(Page.of(pageIndex, pageSize));
+        return CategoryTreeSnapshot.page(getCategoryTree().getAllActive(), pageIndex, pageSize);
     }
 
     /**
      * Get root categories (categories without parent)
      */
     public List<Category> getRootCategories() {
-        return categoryRepository.findRootCategories();
+        return getCategoryTree().getRoots();
     }
 
     /**
      * Get root categories with pagination
      */
     public List<Category> getRootCategories(int pageIndex, int pageSize) {
-        return categoryRepository.findRootCategories(Page.of(pageIndex, pageSize));
+        return CategoryTreeSnapshot.page(getCategoryTree().getRoots(), pageIndex, pageSize);
     }
 
     /**
      * Get child categories by parent
      */
     public List<Category> getChildCategories(@NotNull Long parentId) {
-        return categoryRepository.findByParentId(parentId);
+        return getCategoryTree().getChildren(parentId);
     }
 
     /**
      * Get category hierarchy (all descendants)
      */
     public List<Category> getCategoryHierarchy(@NotNull Long categoryId) {
-        Category category = findCategoryById(categoryId);
-        return categoryRepository.findDescendants(category);
+        Category category = getCategory(categoryId);
+        return getCategoryTree().getDescendants(category.id);
     }
 
     /**
      * Get category path from root to category
      */
     public List<Category> getCategoryPath(@NotNull Long categoryId) {
-        Category category = findCategoryById(categoryId);
-        return categoryRepository.getCategoryPath(category);
+        Category category = getCategory(categoryId);
+        return getCategoryTree().getPath(category.id);
     }
 
     /**
      * Search categories by name pattern
      */
     public List<Category> searchCategoriesByName(@NotNull String namePattern) {
-        return categoryRepository.findByNameContaining(namePattern);
+        return getCategoryTree().searchByName(namePattern);
     }
 
     /**
      * Search categories by name pattern with pagination
      */
     public List<Category> searchCategoriesByName(@NotNull String namePattern, int pageIndex, int pageSize) {
-        return categoryRepository.findByNameContaining(namePattern, Page.of(pageIndex, pageSize));
+        return CategoryTreeSnapshot.page(getCategoryTree().searchByName(namePattern), pageIndex, pageSize);
+    }
+
+    /**
+     * Get the current category tree snapshot, rebuilding it if a committed change made it stale
+     */
+    public CategoryTreeSnapshot getCategoryTree() {
+        CategoryTreeSnapshot tree = categoryTree;
+        if (tree != null && tree.getVersion() == categoryTreeVersion.get()) {
+            return tree;
+        }
+
+        categoryTreeLock.lock();
+        try {
+            long version = categoryTreeVersion.get();
+            tree = categoryTree;
+            if (tree == null || tree.getVersion() != version) {
+                // Built in its own transaction so it only ever sees committed categories
+                tree = QuarkusTransaction.requiringNew()
+                        .call(() -> CategoryTreeSnapshot.of(version, categoryRepository.findAllForTree()));
+                categoryTree = tree;
+            }
+            return tree;
+        } finally {
+            categoryTreeLock.unlock();
+        }
+    }
+
+    /**
+     * Mark the category tree snapshot stale once the current transaction commits
+     */
+    public void invalidateCategoryTree() {
+        if (transactionSynchronizationRegistry.getTransactionStatus() == Status.STATUS_NO_TRANSACTION) {
+            categoryTreeVersion.incrementAndGet();
+            return;
+        }
+        transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    categoryTreeVersion.incrementAndGet();
+                }
+            }
+        });
+    }
+
+    /**
+     * Drop the category tree snapshot when another node changed a category
+     */
+    void onRemoteChanges(@Observes RemoteChanges remote) {
+        if (!remote.of(ChangeEvent.EntityType.CATEGORY).isEmpty()) {
+            categoryTreeVersion.incrementAndGet();
+        }
     }
 
     /**
@@ -190,8 +319,13 @@ public class CategoryService {
     @Transactional
     public Category activateCategory(@NotNull Long categoryId) {
         Category category = findCategoryById(categoryId);
+        boolean wasActive = category.active;
         category.activate();
         categoryRepository.persist(category);
+        invalidateCategoryTree();
+        changes.fire(ChangeEvent.of(ChangeEvent.EntityType.CATEGORY, categoryId, "active"));
+        catalogCounters.categoryChanged(categoryId, wasActive, category.parent == null,
+                category.active, category.parent == null);
         return category;
     }
 
@@ -201,8 +335,13 @@ public class CategoryService {
     @Transactional
     public Category deactivateCategory(@NotNull Long categoryId) {
         Category category = findCategoryById(categoryId);
+        boolean wasActive = category.active;
         category.deactivate();
         categoryRepository.persist(category);
+        invalidateCategoryTree();
+        changes.fire(ChangeEvent.of(ChangeEvent.EntityType.CATEGORY, categoryId, "active"));
+        catalogCounters.categoryChanged(categoryId, wasActive, category.parent == null,
+                category.active, category.parent == null);
         return category;
     }
 
@@ -214,6 +353,8 @@ public class CategoryService {
         Category category = findCategoryById(categoryId);
         category.sortOrder = sortOrder;
         categoryRepository.persist(category);
+        invalidateCategoryTree();
+        changes.fire(ChangeEvent.of(ChangeEvent.EntityType.CATEGORY, categoryId, "sortOrder"));
         return category;
     }
 
@@ -229,41 +370,52 @@ public class CategoryService {
             throw new BusinessException("Cannot delete category with active child categories");
         }
         
+        boolean wasActive = category.active;
         category.deactivate();
         categoryRepository.persist(category);
+        invalidateCategoryTree();
+        changes.fire(ChangeEvent.of(ChangeEvent.EntityType.CATEGORY, categoryId, "active"));
+        catalogCounters.categoryChanged(categoryId, wasActive, category.parent == null,
+                category.active, category.parent == null);
     }
 
     /**
      * Get category statistics
      */
     public CategoryStatistics getCategoryStatistics() {
-        long totalActive = categoryRepository.countActive();
-        long totalRoot = categoryRepository.countRootCategories();
-        long totalWithProducts = categoryRepository.findCategoriesWithProducts().size();
-        long totalWithoutProducts = categoryRepository.findCategoriesWithoutProducts().size();
-        
-        return new CategoryStatistics(totalActive, totalRoot, totalWithProducts, totalWithoutProducts);
+        CatalogCounters.Totals totals = catalogCounters.getTotals();
+        return new CategoryStatistics(totals.activeCategories, totals.rootCategories,
+                totals.categoriesWithProducts, totals.activeCategories - totals.categoriesWithProducts);
     }
 
     // Validation methods
     private void validateCategoryForCreation(Category category) {
-        if (categoryRepository.existsBySlug(category.slug)) {
+        if (uniqueKeys.mightExist(UniqueKeyFilter.Key.CATEGORY_SLUG, category.slug)
+                && categoryRepository.existsBySlug(category.slug)) {
             throw new BusinessException("Category with slug '" + category.slug + "' already exists");
         }
-        if (categoryRepository.existsByName(category.name)) {
+        if (uniqueKeys.mightExist(UniqueKeyFilter.Key.CATEGORY_NAME, category.name)
+                && categoryRepository.existsByName(category.name)) {
             throw new BusinessException("Category with name '" + category.name + "' already exists");
         }
     }
 
     private void validateCategoryForUpdate(Category category, Long categoryId) {
-        if (categoryRepository.existsBySlugExcludingId(category.slug, categoryId)) {
+        if (uniqueKeys.mightExist(UniqueKeyFilter.Key.CATEGORY_SLUG, category.slug)
+                && categoryRepository.existsBySlugExcludingId(category.slug, categoryId)) {
             throw new BusinessException("Category with slug '" + category.slug + "' already exists");
         }
-        if (categoryRepository.existsByNameExcludingId(category.name, categoryId)) {
+        if (uniqueKeys.mightExist(UniqueKeyFilter.Key.CATEGORY_NAME, category.name)
+                && categoryRepository.existsByNameExcludingId(category.name, categoryId)) {
             throw new BusinessException("Category with name '" + category.name + "' already exists");
         }
     }
 
+    private void addUniqueKeys(Category category) {
+        uniqueKeys.add(UniqueKeyFilter.Key.CATEGORY_SLUG, category.slug);
+        uniqueKeys.add(UniqueKeyFilter.Key.CATEGORY_NAME, category.name);
+    }
+
     private void validateCategoryMove(Category category, Category newParent) {
         // Prevent circular references
         if (isDescendantOf(newParent, category)) {
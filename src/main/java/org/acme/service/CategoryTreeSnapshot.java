@@ -0,0 +1,322 @@
+package org.acme.service;
+
+import org.acme.entity.Category;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Immutable in-memory snapshot of the whole category tree.
+ * Nodes are laid out breadth-first so the children of every node occupy one
+ * contiguous index range, each sibling group ordered by sortOrder, name.
+ * Every call returns fresh detached copies, so callers cannot change the shared
+ * tree: parent is a copy of the ancestor chain, children an unmodifiable list
+ * copying each child when it is read, and products is not loaded.
+ */
+public final class CategoryTreeSnapshot {
+
+    private static final int NO_PARENT = -1;
+
+    private final long version;
+    private final long[] ids;
+    private final int[] parentIndex;
+    private final int[] childStart;
+    private final int[] childEnd;
+    private final boolean[] active;
+    private final int rootCount;
+    private final int[] sortedIndex;
+    private final Category[] nodes;
+    private final Map<Long, Integer> indexById;
+    private final Map<String, Integer> indexBySlug;
+    private final Map<String, Integer> indexByName;
+
+    private CategoryTreeSnapshot(long version, List<Category> layout, int rootCount,
+                                 Map<Long, List<Category>> childrenByParent, List<Category> sorted) {
+        int size = layout.size();
+        this.version = version;
+        this.rootCount = rootCount;
+        this.ids = new long[size];
+        this.parentIndex = new int[size];
+        this.childStart = new int[size];
+        this.childEnd = new int[size];
+        this.active = new boolean[size];
+        this.nodes = new Category[size];
+        this.indexById = new HashMap<>(size * 2);
+        this.indexBySlug = new HashMap<>(size * 2);
+        this.indexByName = new HashMap<>(size * 2);
+
+        for (int i = 0; i < size; i++) {
+            Category source = layout.get(i);
+            ids[i] = source.id;
+            active[i] = Boolean.TRUE.equals(source.active);
+            nodes[i] = copyOf(source);
+            indexById.put(source.id, i);
+            if (source.slug != null) {
+                indexBySlug.putIfAbsent(source.slug, i);
+            }
+            if (source.name != null) {
+                indexByName.putIfAbsent(source.name.toLowerCase(Locale.ROOT), i);
+            }
+        }
+
+        // Children of node i are appended right after the children of node i - 1
+        int next = rootCount;
+        for (int i = 0; i < size; i++) {
+            parentIndex[i] = NO_PARENT;
+            childStart[i] = next;
+            next += childrenByParent.getOrDefault(ids[i], List.of()).size();
+            childEnd[i] = next;
+        }
+
+        for (int i = 0; i < size; i++) {
+            for (int child = childStart[i]; child < childEnd[i]; child++) {
+                parentIndex[child] = i;
+            }
+        }
+
+        this.sortedIndex = sorted.stream()
+                .filter(category -> Boolean.TRUE.equals(category.active))
+                .mapToInt(category -> indexById.get(category.id))
+                .toArray();
+    }
+
+    /**
+     * Build a snapshot from all categories ordered by sortOrder, name with their parent loaded
+     */
+    public static CategoryTreeSnapshot of(long version, List<Category> categories) {
+        Map<Long, List<Category>> childrenByParent = new LinkedHashMap<>();
+        List<Category> layout = new ArrayList<>(categories.size());
+
+        for (Category category : categories) {
+            if (category.parent == null) {
+                layout.add(category);
+            } else {
+                childrenByParent.computeIfAbsent(category.parent.id, id -> new ArrayList<>()).add(category);
+            }
+        }
+
+        int rootCount = layout.size();
+        for (int i = 0; i < layout.size(); i++) {
+            layout.addAll(childrenByParent.getOrDefault(layout.get(i).id, List.of()));
+        }
+
+        // Categories not reachable from a root are dropped, keep only the reachable sorted order
+        List<Category> sorted = new ArrayList<>(layout.size());
+        Set<Long> reachable = new HashSet<>(layout.size() * 2);
+        layout.forEach(category -> reachable.add(category.id));
+        for (Category category : categories) {
+            if (reachable.contains(category.id)) {
+                sorted.add(category);
+            }
+        }
+
+        return new CategoryTreeSnapshot(version, layout, rootCount, childrenByParent, sorted);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Find category by ID (active or not)
+     */
+    public Optional<Category> findById(Long categoryId) {
+        Integer index = indexById.get(categoryId);
+        return index == null ? Optional.empty() : Optional.of(view(index));
+    }
+
+    /**
+     * Find category by slug (active or not)
+     */
+    public Optional<Category> findBySlug(String slug) {
+        Integer index = indexBySlug.get(slug);
+        return index == null ? Optional.empty() : Optional.of(view(index));
+    }
+
+    /**
+     * Find category by name (case-insensitive, active or not)
+     */
+    public Optional<Category> findByName(String name) {
+        Integer index = name == null ? null : indexByName.get(name.toLowerCase(Locale.ROOT));
+        return index == null ? Optional.empty() : Optional.of(view(index));
+    }
+
+    /**
+     * All active categories ordered by sortOrder, name
+     */
+    public List<Category> getAllActive() {
+        List<Category> result = new ArrayList<>(sortedIndex.length);
+        for (int index : sortedIndex) {
+            result.add(view(index));
+        }
+        return result;
+    }
+
+    /**
+     * Active root categories ordered by sortOrder, name
+     */
+    public List<Category> getRoots() {
+        return activeRange(0, rootCount);
+    }
+
+    /**
+     * Active children of a category ordered by sortOrder, name
+     */
+    public List<Category> getChildren(Long parentId) {
+        Integer index = indexById.get(parentId);
+        if (index == null) {
+            return new ArrayList<>();
+        }
+        return activeRange(childStart[index], childEnd[index]);
+    }
+
+    /**
+     * All active descendants of a category reachable through active categories, level by level
+     */
+    public List<Category> getDescendants(Long categoryId) {
+        Integer index = indexById.get(categoryId);
+        List<Category> result = new ArrayList<>();
+        if (index == null) {
+            return result;
+        }
+
+        // Breadth-first queue; the children of an inactive category are not visited
+        int[] queue = new int[ids.length];
+        int tail = 0;
+        for (int child = childStart[index]; child < childEnd[index]; child++) {
+            if (active[child]) {
+                queue[tail++] = child;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int node = queue[head];
+            result.add(view(node));
+            for (int child = childStart[node]; child < childEnd[node]; child++) {
+                if (active[child]) {
+                    queue[tail++] = child;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Path from the root down to the category, empty if the category is unknown
+     */
+    public List<Category> getPath(Long categoryId) {
+        Integer index = indexById.get(categoryId);
+        List<Category> path = new ArrayList<>();
+        for (int i = index == null ? NO_PARENT : index; i != NO_PARENT; i = parentIndex[i]) {
+            path.add(view(i));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Active categories whose name contains the pattern (case-insensitive), ordered by name
+     */
+    public List<Category> searchByName(String namePattern) {
+        String needle = namePattern.toLowerCase(Locale.ROOT);
+        List<Category> result = new ArrayList<>();
+        for (int index : sortedIndex) {
+            if (nodes[index].name != null && nodes[index].name.toLowerCase(Locale.ROOT).contains(needle)) {
+                result.add(view(index));
+            }
+        }
+        result.sort(Comparator.comparing(category -> category.name));
+        return result;
+    }
+
+    /**
+     * Slice one page out of a list the same way Panache pages a query
+     */
+    public static List<Category> page(List<Category> categories, int pageIndex, int pageSize) {
+        int from = (int) Math.min((long) pageIndex * pageSize, categories.size());
+        int to = (int) Math.min((long) from + pageSize, categories.size());
+        return new ArrayList<>(categories.subList(from, to));
+    }
+
+    private List<Category> activeRange(int from, int to) {
+        List<Category> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            if (active[i]) {
+                result.add(view(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A fresh copy of node index wired to copies of its ancestors and, lazily, its children
+     */
+    private Category view(int index) {
+        Category view = copyOf(nodes[index]);
+        view.parent = parentIndex[index] == NO_PARENT ? null : view(parentIndex[index]);
+        view.children = new ChildViews(childStart[index], childEnd[index]);
+        return view;
+    }
+
+    private static Category copyOf(Category source) {
+        Category copy = new Category();
+        copy.id = source.id;
+        copy.name = source.name;
+        copy.description = source.description;
+        copy.slug = source.slug;
+        copy.imageUrl = source.imageUrl;
+        copy.active = source.active;
+        copy.sortOrder = source.sortOrder;
+        copy.createdAt = source.createdAt;
+        copy.updatedAt = source.updatedAt;
+        return copy;
+    }
+
+    /**
+     * Children of a node, all of them like the entity's children collection, copied when read
+     */
+    private final class ChildViews extends AbstractList<Category> implements RandomAccess {
+        private final int from;
+        private final int to;
+
+        ChildViews(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Category get(int position) {
+            Objects.checkIndex(position, to - from);
+            return view(from + position);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CategoryTreeSnapshot{" +
+                "version=" + version +
+                ", size=" + ids.length +
+                ", roots=" + rootCount +
+                '}';
+    }
+}
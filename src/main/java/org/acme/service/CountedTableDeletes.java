@@ -0,0 +1,42 @@
+package org.acme.service;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Watches the SQL of the persistence unit for hard deletes of products, brands and categories.
+ * The services only ever soft-delete, so such a statement (a bulk HQL delete clearing the catalog)
+ * removed rows behind the {@link CatalogCounters}' back, and they recount once it commits.
+ */
+@PersistenceUnitExtension
+@ApplicationScoped
+public class CountedTableDeletes implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Set<String> COUNTED_TABLES = Set.of("products", "brands", "categories");
+
+    @Override
+    public String inspect(String sql) {
+        String statement = sql.stripLeading();
+        if (statement.regionMatches(true, 0, "delete", 0, 6) && COUNTED_TABLES.contains(deletedTable(statement))) {
+            // Looked up when needed: a StatementInspector is Serializable and must not hold the bean
+            Arc.container().instance(CatalogCounters.class).get().recountAfterCommit();
+        }
+        return sql;
+    }
+
+    private static String deletedTable(String statement) {
+        // delete from <table> [alias] [where ...]
+        String[] words = statement.split("\\s+", 4);
+        if (words.length < 3 || !words[1].equalsIgnoreCase("from")) {
+            return "";
+        }
+        return words[2].toLowerCase(Locale.ROOT);
+    }
+}
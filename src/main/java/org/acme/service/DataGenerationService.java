@@ -1,12 +1,16 @@
 package org.acme.service;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 import org.acme.entity.Brand;
 import org.acme.entity.Category;
 import org.acme.entity.Product;
+import org.acme.service.invalidation.ChangeEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -14,6 +18,13 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.random.RandomGenerator;
 
 /**
  * Service for generating large amounts of test data
@@ -24,6 +35,31 @@ public class DataGenerationService {
     @PersistenceContext
     EntityManager entityManager;
 
+    @Inject
+    CategoryService categoryService;
+
+    @Inject
+    BulkProductLoader bulkProductLoader;
+
+    @Inject
+    CatalogCounters catalogCounters;
+
+    @Inject
+    StockReservationService stockReservations;
+
+    @Inject
+    Event<ChangeEvent> changes;
+
+    @ConfigProperty(name = "quarkus.datasource.jdbc.max-size", defaultValue = "20")
+    int datasourceMaxSize;
+
+    @ConfigProperty(name = "catalog.data-generation.reserved-connections", defaultValue = "2")
+    int reservedConnections;
+
+    public static final long DEFAULT_SEED = 42L;
+
+    private volatile GenerationReport lastReport;
+
     private final Random random = new Random();
 
     // Sample data arrays for realistic product generation
@@ -36,6 +72,12 @@ public class DataGenerationService {
         "Rolex", "Omega", "Seiko", "Casio", "Citizen", "Tissot", "TAG Heuer", "Breitling"
     };
 
+    private final String[] tagNames = {
+        "electronics", "technology", "premium", "professional", "portable", "wireless", "smart",
+        "durable", "lightweight", "waterproof", "fast", "efficient", "innovative", "modern",
+        "bestseller", "trending", "popular", "recommended", "featured", "new", "sale", "discount"
+    };
+
     private final String[] categoryNames = {
         "Electronics", "Smartphones", "Laptops", "Tablets", "Headphones", "Cameras", "Gaming",
         "Sports", "Running Shoes", "Basketball Shoes", "Athletic Wear", "Fitness Equipment",
@@ -60,12 +102,27 @@ public class DataGenerationService {
     };
 
     /**
-     * Generate test data with specified quantities
+     * Generate test data with specified quantities through the stateful ORM path
      */
     public void generateTestData(int numBrands, int numCategories, int numProducts) {
+        generateTestData(numBrands, numCategories, numProducts, GenerationMode.ORM);
+    }
+
+    /**
+     * Generate test data with specified quantities using the given product write path
+     */
+    public GenerationReport generateTestData(int numBrands, int numCategories, int numProducts, GenerationMode mode) {
+        return generateTestData(numBrands, numCategories, numProducts, mode, DEFAULT_SEED);
+    }
+
+    /**
+     * Generate test data with specified quantities; the seed drives the PARALLEL mode partitions
+     */
+    public GenerationReport generateTestData(int numBrands, int numCategories, int numProducts,
+                                             GenerationMode mode, long seed) {
         try {
             System.out.println("Starting data generation...");
-            System.out.println("Generating " + numBrands + " brands, " + numCategories + " categories, and " + numProducts + " products");
+            System.out.println("Generating " + numBrands + " brands, " + numCategories + " categories, and " + numProducts + " products (" + mode + ")");
 
             // Clear existing data
             clearExistingData();
@@ -79,9 +136,18 @@ public class DataGenerationService {
             System.out.println("Generated " + categories.size() + " categories");
 
             // Generate products in batches
-            generateProductsInBatches(numProducts, brands, categories);
-
-            System.out.println("Data generation completed!");
+            GenerationReport report = switch (mode) {
+                case PARALLEL -> generateProductsParallel(numProducts, brands, categories, seed);
+                case BULK -> generateProductsBulk(numProducts, brands, categories);
+                case ORM -> generateProductsInBatches(numProducts, brands, categories);
+            };
+            lastReport = report;
+            catalogCounters.recountAfterCommit();
+            stockReservations.invalidateAllAfterCommit();
+            changes.fire(ChangeEvent.all(ChangeEvent.EntityType.PRODUCT));
+
+            System.out.println("Data generation completed! " + report);
+            return report;
         } catch (Exception e) {
             System.err.println("Error during data generation: " + e.getMessage());
             e.printStackTrace();
@@ -96,6 +162,20 @@ public class DataGenerationService {
         generateTestData(100, 50, 50000);
     }
 
+    /**
+     * Generate 50,000 products using the given product write path
+     */
+    public GenerationReport generate50KProducts(GenerationMode mode) {
+        return generateTestData(100, 50, 50000, mode);
+    }
+
+    /**
+     * Report of the most recent product generation run, null if none ran yet
+     */
+    public GenerationReport getLastReport() {
+        return lastReport;
+    }
+
     @Transactional
     public void clearExistingData() {
         try {
@@ -112,6 +192,12 @@ public class DataGenerationService {
             System.out.println("Deleted " + deletedBrands + " brands");
 
             entityManager.flush();
+            categoryService.invalidateCategoryTree();
+            catalogCounters.recountAfterCommit();
+            stockReservations.invalidateAllAfterCommit();
+            for (ChangeEvent.EntityType entity : ChangeEvent.EntityType.values()) {
+                changes.fire(ChangeEvent.all(entity));
+            }
             System.out.println("Data clearing completed successfully");
         } catch (Exception e) {
             System.err.println("Error clearing existing data: " + e.getMessage());
@@ -154,6 +240,7 @@ public class DataGenerationService {
 
             entityManager.flush();
             System.out.println("Successfully generated " + brands.size() + " brands");
+            changes.fire(ChangeEvent.all(ChangeEvent.EntityType.BRAND));
             return brands;
         } catch (Exception e) {
             System.err.println("Error generating brands: " + e.getMessage());
@@ -197,6 +284,8 @@ public class DataGenerationService {
 
             entityManager.flush();
             System.out.println("Successfully generated " + categories.size() + " categories");
+            categoryService.invalidateCategoryTree();
+            changes.fire(ChangeEvent.all(ChangeEvent.EntityType.CATEGORY));
             return categories;
         } catch (Exception e) {
             System.err.println("Error generating categories: " + e.getMessage());
@@ -204,9 +293,12 @@ public class DataGenerationService {
         }
     }
 
-    private void generateProductsInBatches(int totalProducts, List<Brand> brands, List<Category> categories) {
+    private GenerationReport generateProductsInBatches(int totalProducts, List<Brand> brands, List<Category> categories) {
         int batchSize = 500; // Reduced batch size for better transaction management
         int batches = (totalProducts + batchSize - 1) / batchSize;
+        long startTime = System.nanoTime();
+        long products = 0;
+        long rows = 0;
 
         try {
             System.out.println("Starting product generation in " + batches + " batches of " + batchSize + " products each");
@@ -219,7 +311,8 @@ public class DataGenerationService {
                 System.out.println("Generating batch " + (batch + 1) + "/" + batches + " (" + currentBatchSize + " products)");
 
                 try {
-                    generateProductBatch(startIndex, currentBatchSize, brands, categories);
+                    rows += generateProductBatch(startIndex, currentBatchSize, brands, categories);
+                    products += currentBatchSize;
                     System.out.println("Completed batch " + (batch + 1) + "/" + batches);
                 } catch (Exception e) {
                     System.err.println("Error in batch " + (batch + 1) + ": " + e.getMessage());
@@ -237,18 +330,105 @@ public class DataGenerationService {
             }
 
             System.out.println("Product batch generation completed");
+            return new GenerationReport(GenerationMode.ORM, products, rows, System.nanoTime() - startTime);
         } catch (Exception e) {
             System.err.println("Error during batch generation: " + e.getMessage());
             throw new RuntimeException("Failed to generate products in batches", e);
         }
     }
 
+    /**
+     * Generate products through the stateless bulk loader, one transaction per chunk and no pauses
+     */
+    private GenerationReport generateProductsBulk(int totalProducts, List<Brand> brands, List<Category> categories) {
+        int chunkSize = bulkProductLoader.getTransactionSize();
+        long startTime = System.nanoTime();
+        long products = 0;
+        long rows = 0;
+
+        try {
+            System.out.println("Starting bulk product load in chunks of " + chunkSize + " products");
+
+            for (int startIndex = 0; startIndex < totalProducts; startIndex += chunkSize) {
+                int currentChunkSize = Math.min(chunkSize, totalProducts - startIndex);
+                List<Product> chunk = new ArrayList<>(currentChunkSize);
+                for (int i = 0; i < currentChunkSize; i++) {
+                    chunk.add(generateProduct(startIndex + i, brands, categories, random));
+                }
+
+                rows += bulkProductLoader.insertProducts(chunk);
+                products += currentChunkSize;
+                System.out.println("Bulk loaded " + products + "/" + totalProducts + " products");
+            }
+
+            return new GenerationReport(GenerationMode.BULK, products, rows, System.nanoTime() - startTime);
+        } catch (Exception e) {
+            System.err.println("Error during bulk product load: " + e.getMessage());
+            throw new RuntimeException("Failed to bulk load products", e);
+        }
+    }
+
+    /**
+     * Generate products in SKU-range partitions, each one transaction on its own virtual thread
+     * with its own deterministically seeded random; concurrency is capped by the connection pool
+     */
+    private GenerationReport generateProductsParallel(int totalProducts, List<Brand> brands, List<Category> categories,
+                                                      long seed) {
+        int partitionSize = bulkProductLoader.getTransactionSize();
+        int partitions = (totalProducts + partitionSize - 1) / partitionSize;
+        int parallelism = Math.max(1, datasourceMaxSize - reservedConnections);
+        Semaphore connections = new Semaphore(parallelism);
+        long startTime = System.nanoTime();
+
+        System.out.println("Starting parallel product generation: " + partitions + " partitions of " + partitionSize +
+                " products, at most " + parallelism + " at a time");
+
+        List<Future<Long>> results = new ArrayList<>(partitions);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int partition = 0; partition < partitions; partition++) {
+                int startIndex = partition * partitionSize;
+                int size = Math.min(partitionSize, totalProducts - startIndex);
+                results.add(executor.submit(() -> {
+                    connections.acquire();
+                    try {
+                        return generatePartition(startIndex, size, brands, categories, seed);
+                    } finally {
+                        connections.release();
+                    }
+                }));
+            }
+
+            long rows = 0;
+            for (Future<Long> result : results) {
+                rows += result.get();
+            }
+            return new GenerationReport(GenerationMode.PARALLEL, totalProducts, rows, System.nanoTime() - startTime);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Parallel product generation interrupted", e);
+        } catch (ExecutionException e) {
+            System.err.println("Error during parallel product generation: " + e.getCause().getMessage());
+            throw new RuntimeException("Failed to generate products in parallel", e.getCause());
+        }
+    }
+
+    private long generatePartition(int startIndex, int size, List<Brand> brands, List<Category> categories, long seed) {
+        // Seeded from the partition's first SKU so a run is reproducible for a given seed
+        SplittableRandom partitionRandom = new SplittableRandom(seed ^ (startIndex * 0x9E3779B97F4A7C15L));
+        long rows = bulkProductLoader.insertProducts(size,
+                i -> generateProduct(startIndex + i, brands, categories, partitionRandom));
+        System.out.println("Generated partition SKU " + (startIndex + 1) + "-" + (startIndex + size));
+        return rows;
+    }
+
     @Transactional
-    public void generateProductBatch(int startIndex, int batchSize, List<Brand> brands, List<Category> categories) {
+    public long generateProductBatch(int startIndex, int batchSize, List<Brand> brands, List<Category> categories) {
         try {
+            long rows = 0;
             for (int i = 0; i < batchSize; i++) {
                 int productIndex = startIndex + i;
-                Product product = generateProduct(productIndex, brands, categories);
+                Product product = generateProduct(productIndex, brands, categories, random);
+                rows += BulkProductLoader.countRows(List.of(product));
                 entityManager.persist(product);
 
                 // Flush every 50 products to prevent memory issues
@@ -259,23 +439,24 @@ public class DataGenerationService {
 
             // Final flush for the batch
             entityManager.flush();
+            return rows;
         } catch (Exception e) {
             System.err.println("Error generating product batch starting at index " + startIndex + ": " + e.getMessage());
             throw new RuntimeException("Failed to generate product batch", e);
         }
     }
 
-    private Product generateProduct(int index, List<Brand> brands, List<Category> categories) {
+    private Product generateProduct(int index, List<Brand> brands, List<Category> categories, RandomGenerator random) {
         Product product = new Product();
         
         // Generate realistic product name
         String adjective = productAdjectives[random.nextInt(productAdjectives.length)];
         String type = productTypes[random.nextInt(productTypes.length)];
-        String model = generateModelNumber();
+        String model = generateModelNumber(random);
         product.name = adjective + " " + type + " " + model;
 
         // Generate description
-        product.description = generateProductDescription(product.name);
+        product.description = generateProductDescription(product.name, random);
 
         // Generate SKU
         product.sku = generateSKU(index);
@@ -315,7 +496,7 @@ public class DataGenerationService {
         product.imageUrls = imageUrls;
 
         // Generate tags
-        List<String> tags = generateTags(product.name, 3 + random.nextInt(5));
+        List<String> tags = generateTags(product.name, 3 + random.nextInt(5), random);
         product.tags = tags;
 
         // Assign random brand and category
@@ -350,7 +531,7 @@ public class DataGenerationService {
         return prefix + " " + suffix + " " + (index + 1);
     }
 
-    private String generateModelNumber() {
+    private String generateModelNumber(RandomGenerator random) {
         return "M" + (1000 + random.nextInt(9000)) + 
                (char)('A' + random.nextInt(26)) + 
                (char)('A' + random.nextInt(26));
@@ -360,7 +541,7 @@ public class DataGenerationService {
         return "SKU-" + String.format("%08d", index + 1);
     }
 
-    private String generateProductDescription(String productName) {
+    private String generateProductDescription(String productName, RandomGenerator random) {
         String[] features = {
             "cutting-edge technology", "premium materials", "ergonomic design", "long-lasting durability",
             "exceptional performance", "user-friendly interface", "energy efficiency", "advanced features",
@@ -386,16 +567,10 @@ public class DataGenerationService {
         return urls;
     }
 
-    private List<String> generateTags(String productName, int count) {
-        String[] allTags = {
-            "electronics", "technology", "premium", "professional", "portable", "wireless", "smart",
-            "durable", "lightweight", "waterproof", "fast", "efficient", "innovative", "modern",
-            "bestseller", "trending", "popular", "recommended", "featured", "new", "sale", "discount"
-        };
-        
+    private List<String> generateTags(String productName, int count, RandomGenerator random) {
         List<String> tags = new ArrayList<>();
         for (int i = 0; i < count; i++) {
-            String tag = allTags[random.nextInt(allTags.length)];
+            String tag = tagNames[random.nextInt(tagNames.length)];
             if (!tags.contains(tag)) {
                 tags.add(tag);
             }
@@ -404,5 +579,42 @@ public class DataGenerationService {
         return tags;
     }
 
+    /**
+     * Enum for product write paths
+     */
+    public enum GenerationMode {
+        ORM,     // Stateful EntityManager, flush every 50, pause between batches
+        BULK,    // StatelessSession with JDBC batching, no persistence context
+        PARALLEL // BULK split into SKU partitions running concurrently on virtual threads
+    }
 
+    /**
+     * Product generation report data class
+     */
+    public static class GenerationReport {
+        public final GenerationMode mode;
+        public final long products;
+        public final long rows;
+        public final long elapsedMillis;
+        public final long rowsPerSecond;
+
+        public GenerationReport(GenerationMode mode, long products, long rows, long elapsedNanos) {
+            this.mode = mode;
+            this.products = products;
+            this.rows = rows;
+            this.elapsedMillis = elapsedNanos / 1_000_000;
+            this.rowsPerSecond = elapsedNanos > 0 ? rows * 1_000_000_000L / elapsedNanos : rows;
+        }
+
+        @Override
+        public String toString() {
+            return "GenerationReport{" +
+                    "mode=" + mode +
+                    ", products=" + products +
+                    ", rows=" + rows +
+                    ", elapsedMillis=" + elapsedMillis +
+                    ", rowsPerSecond=" + rowsPerSecond +
+                    '}';
+        }
+    }
 }
@@ -0,0 +1,83 @@
+package org.acme.service;
+
+import io.quarkus.arc.Arc;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.acme.service.invalidation.ChangeEvent;
+import org.acme.service.invalidation.RemoteChanges;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import java.util.Optional;
+
+/**
+ * Entity lookups by id for the services. Within one transaction the session already returns one
+ * instance per row, and reads outside a transaction share the request's session; what the loader
+ * adds is memory across the transactions of a request (each mutation or service call runs its
+ * own): a row found once in the request is wired as a foreign key target by reference, without
+ * loading it again.
+ */
+@ApplicationScoped
+public class EntityLoader {
+
+    @Inject
+    Session session;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    RequestEntities requestEntities;
+
+    /**
+     * The entity with the id, from the persistence context, the second-level cache or the database
+     */
+    public <T> Optional<T> find(Class<T> type, Long id) {
+        T entity = session.find(type, id);
+        if (entity != null && requestActive()) {
+            requestEntities.add(type, id);
+        }
+        return Optional.ofNullable(entity);
+    }
+
+    /**
+     * The entity with the id as the target of a foreign key: the cached entity when the
+     * second-level cache holds it, an uninitialized reference when the request already found the
+     * row, otherwise loaded to check that it exists. Deletes are soft, so a row found once stays
+     * a valid target; the foreign key constraint is the final guard.
+     */
+    public <T> Optional<T> reference(Class<T> type, Long id) {
+        if (sessionFactory.getCache().containsEntity(type, id) || !requestActive() || !requestEntities.contains(type, id)) {
+            return find(type, id);
+        }
+        return Optional.of(session.getReference(type, id));
+    }
+
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) ChangeEvent change) {
+        forget(change);
+    }
+
+    void onRemoteChanges(@Observes RemoteChanges remote) {
+        remote.changes.forEach(this::forget);
+    }
+
+    // Bulk changes may delete rows (clearing generated data), so the request forgets the type
+    private void forget(ChangeEvent change) {
+        if (change.id == null && requestActive()) {
+            requestEntities.clear(switch (change.entity) {
+                case BRAND -> Brand.class;
+                case CATEGORY -> Category.class;
+                case PRODUCT -> Product.class;
+            });
+        }
+    }
+
+    private static boolean requestActive() {
+        return Arc.container().requestContext().isActive();
+    }
+}
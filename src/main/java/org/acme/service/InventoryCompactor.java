@@ -0,0 +1,102 @@
+package org.acme.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import org.acme.repository.InventoryMovementRepository;
+import org.acme.repository.ProductRepository;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background compactor of the inventory ledger: folds the movements recorded since the last pass
+ * into the products' stock snapshots, so reading a product's stock only sums a short tail of movements.
+ * The movements themselves are kept as the stock history.
+ * Stock changes insert their movements without locking the product, so a pass only folds movements
+ * older than the compaction horizon: a transaction still in flight may hold a lower id than one
+ * that committed, and moving the watermark past it would lose it.
+ */
+@ApplicationScoped
+public class InventoryCompactor {
+
+    private static final Logger LOG = Logger.getLogger(InventoryCompactor.class);
+
+    @Inject
+    InventoryMovementRepository inventoryMovementRepository;
+
+    @Inject
+    ProductRepository productRepository;
+
+    @ConfigProperty(name = "catalog.inventory.compaction-interval", defaultValue = "5s")
+    Duration compactionInterval;
+
+    @ConfigProperty(name = "catalog.inventory.compaction-batch-size", defaultValue = "500")
+    int batchSize;
+
+    @ConfigProperty(name = "catalog.inventory.compaction-horizon", defaultValue = "10m")
+    Duration compactionHorizon;
+
+    private ScheduledExecutorService scheduler;
+
+    void onStart(@Observes StartupEvent event) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("inventory-compactor").daemon().factory());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                compact();
+            } catch (RuntimeException e) {
+                LOG.error("Inventory compaction failed", e);
+            }
+        }, compactionInterval.toMillis(), compactionInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Fold the pending movements older than the configured horizon; returns the products compacted
+     */
+    public int compact() {
+        return compact(compactionHorizon);
+    }
+
+    /**
+     * Fold the pending movements older than horizon, one transaction per batch of products; returns the
+     * products compacted. A horizon shorter than the transaction timeout is only safe while no stock
+     * change is in flight.
+     */
+    public synchronized int compact(Duration horizon) {
+        long upTo = QuarkusTransaction.requiringNew().call(() ->
+                inventoryMovementRepository.findLastMovementBefore(LocalDateTime.now().minus(horizon)));
+        int compacted = 0;
+        int batch;
+        do {
+            batch = QuarkusTransaction.requiringNew().call(() -> compactBatch(upTo));
+            compacted += batch;
+        } while (batch == batchSize);
+        return compacted;
+    }
+
+    private int compactBatch(long upTo) {
+        List<Long> productIds = inventoryMovementRepository.findProductsToCompact(upTo, batchSize);
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+        // Snapshot, counter and watermark move together; the locks keep takings from checking against half of it
+        productRepository.lockByIds(productIds, LockModeType.PESSIMISTIC_WRITE);
+        inventoryMovementRepository.compact(productIds, upTo);
+        return productIds.size();
+    }
+}
@@ -1,30 +1,31 @@
 package org.acme.service;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.TypedQuery;
 import org.acme.entity.Product;
 
 import java.util.List;
 
 /**
- * Optimized service for Product queries using Entity Graphs for field selection
+ * Optimized service for Product queries using Entity Graphs for field selection.
+ * These listing reads go to the read replica whenever {@link ReadRouting} allows it.
  */
 @ApplicationScoped
 public class OptimizedProductService {
 
-    @PersistenceContext
-    EntityManager entityManager;
+    @Inject
+    ReadRouting readRouting;
 
     /**
      * Get products with basic fields only (optimized for performance)
      */
     public List<Product> getProductsBasic(int pageIndex, int pageSize) {
-        EntityGraph<?> entityGraph = entityManager.getEntityGraph("Product.basic");
+        EntityGraph<?> entityGraph = entityManager().getEntityGraph("Product.basic");
 
-        TypedQuery<Product> query = entityManager.createQuery(
+        TypedQuery<Product> query = entityManager().createQuery(
             "SELECT p FROM Product p WHERE p.active = true ORDER BY p.name",
             Product.class
         );
@@ -40,9 +41,9 @@ public class OptimizedProductService {
      * Get products with brand and category information (selective loading)
      */
     public List<Product> getProductsWithBrandAndCategory(int pageIndex, int pageSize) {
-        EntityGraph<?> entityGraph = entityManager.getEntityGraph("Product.withBrandAndCategory");
+        EntityGraph<?> entityGraph = entityManager().getEntityGraph("Product.withBrandAndCategory");
         
-        TypedQuery<Product> query = entityManager.createQuery(
+        TypedQuery<Product> query = entityManager().createQuery(
             "SELECT p FROM Product p WHERE p.active = true ORDER BY p.name", 
             Product.class
         );
@@ -58,9 +59,9 @@ public class OptimizedProductService {
      * Search products with basic fields only
      */
     public List<Product> searchProductsBasic(String namePattern, int pageIndex, int pageSize) {
-        EntityGraph<?> entityGraph = entityManager.getEntityGraph("Product.basic");
+        EntityGraph<?> entityGraph = entityManager().getEntityGraph("Product.basic");
         
-        TypedQuery<Product> query = entityManager.createQuery(
+        TypedQuery<Product> query = entityManager().createQuery(
             "SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(:pattern) AND p.active = true ORDER BY p.name", 
             Product.class
         );
@@ -77,9 +78,9 @@ public class OptimizedProductService {
      * Search products with brand and category information
      */
     public List<Product> searchProductsWithBrandAndCategory(String namePattern, int pageIndex, int pageSize) {
-        EntityGraph<?> entityGraph = entityManager.getEntityGraph("Product.withBrandAndCategory");
+        EntityGraph<?> entityGraph = entityManager().getEntityGraph("Product.withBrandAndCategory");
 
-        TypedQuery<Product> query = entityManager.createQuery(
+        TypedQuery<Product> query = entityManager().createQuery(
             "SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(:pattern) AND p.active = true ORDER BY p.name",
             Product.class
         );
@@ -96,9 +97,9 @@ public class OptimizedProductService {
      * Get featured products with basic fields only
      */
     public List<Product> getFeaturedProductsBasic(int pageIndex, int pageSize) {
-        EntityGraph<?> entityGraph = entityManager.getEntityGraph("Product.basic");
+        EntityGraph<?> entityGraph = entityManager().getEntityGraph("Product.basic");
 
-        TypedQuery<Product> query = entityManager.createQuery(
+        TypedQuery<Product> query = entityManager().createQuery(
             "SELECT p FROM Product p WHERE p.featured = true AND p.active = true ORDER BY p.name",
             Product.class
         );
@@ -114,9 +115,9 @@ public class OptimizedProductService {
      * Get products by category with basic fields only
      */
     public List<Product> getProductsByCategoryBasic(Long categoryId, int pageIndex, int pageSize) {
-        EntityGraph<?> entityGraph = entityManager.getEntityGraph("Product.basic");
+        EntityGraph<?> entityGraph = entityManager().getEntityGraph("Product.basic");
 
-        TypedQuery<Product> query = entityManager.createQuery(
+        TypedQuery<Product> query = entityManager().createQuery(
             "SELECT p FROM Product p WHERE p.category.id = :categoryId AND p.active = true ORDER BY p.name",
             Product.class
         );
@@ -133,9 +134,9 @@ public class OptimizedProductService {
      * Get products by brand with basic fields only
      */
     public List<Product> getProductsByBrandBasic(Long brandId, int pageIndex, int pageSize) {
-        EntityGraph<?> entityGraph = entityManager.getEntityGraph("Product.basic");
+        EntityGraph<?> entityGraph = entityManager().getEntityGraph("Product.basic");
 
-        TypedQuery<Product> query = entityManager.createQuery(
+        TypedQuery<Product> query = entityManager().createQuery(
             "SELECT p FROM Product p WHERE p.brand.id = :brandId AND p.active = true ORDER BY p.name",
             Product.class
         );
@@ -152,7 +153,7 @@ public class OptimizedProductService {
      * Count total products for pagination
      */
     public long countActiveProducts() {
-        return entityManager.createQuery(
+        return entityManager().createQuery(
             "SELECT COUNT(p) FROM Product p WHERE p.active = true", 
             Long.class
         ).getSingleResult();
@@ -162,7 +163,7 @@ public class OptimizedProductService {
      * Count products matching search pattern
      */
     public long countProductsByNamePattern(String namePattern) {
-        return entityManager.createQuery(
+        return entityManager().createQuery(
             "SELECT COUNT(p) FROM Product p WHERE LOWER(p.name) LIKE LOWER(:pattern) AND p.active = true", 
             Long.class
         )
@@ -174,7 +175,7 @@ public class OptimizedProductService {
      * Count products by category
      */
     public long countProductsByCategory(Long categoryId) {
-        return entityManager.createQuery(
+        return entityManager().createQuery(
             "SELECT COUNT(p) FROM Product p WHERE p.category.id = :categoryId AND p.active = true", 
             Long.class
         )
@@ -186,11 +187,15 @@ public class OptimizedProductService {
      * Count products by brand
      */
     public long countProductsByBrand(Long brandId) {
-        return entityManager.createQuery(
+        return entityManager().createQuery(
             "SELECT COUNT(p) FROM Product p WHERE p.brand.id = :brandId AND p.active = true", 
             Long.class
         )
         .setParameter("brandId", brandId)
         .getSingleResult();
     }
+
+    private EntityManager entityManager() {
+        return readRouting.readSession();
+    }
 }
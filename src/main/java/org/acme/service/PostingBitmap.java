@@ -0,0 +1,444 @@
+package org.acme.service;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed bitmap of snapshot row indexes, Roaring-style: rows are grouped into chunks of 65536
+ * by their high 16 bits, and each chunk is stored as a sorted char array while it holds at most
+ * 4096 rows, as a 1024-word bitmap above that. Set operations work chunk by chunk and return
+ * new bitmaps; a bitmap published in a snapshot is never modified.
+ */
+final class PostingBitmap {
+
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 1024;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private char[] keys;
+    // char[] of sorted low bits (the first cardinality entries are used) or long[BITMAP_WORDS]
+    private Object[] containers;
+    private int[] cardinalities;
+    private int size;
+
+    PostingBitmap() {
+        this(4);
+    }
+
+    private PostingBitmap(int capacity) {
+        keys = new char[Math.max(1, capacity)];
+        containers = new Object[keys.length];
+        cardinalities = new int[keys.length];
+    }
+
+    /**
+     * Bitmap of the rows 0 (inclusive) to rows (exclusive)
+     */
+    static PostingBitmap range(int rows) {
+        PostingBitmap bitmap = new PostingBitmap((rows + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        for (int start = 0; start < rows; start += CHUNK_SIZE) {
+            int count = Math.min(CHUNK_SIZE, rows - start);
+            Object container;
+            if (count > ARRAY_LIMIT) {
+                long[] words = new long[BITMAP_WORDS];
+                Arrays.fill(words, 0, count >>> 6, -1L);
+                if ((count & 63) != 0) {
+                    words[count >>> 6] = (1L << count) - 1;
+                }
+                container = words;
+            } else {
+                char[] values = new char[count];
+                for (int i = 0; i < count; i++) {
+                    values[i] = (char) i;
+                }
+                container = values;
+            }
+            bitmap.append((char) (start >>> 16), container, count);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Bitmap of the given rows, which must be in ascending order
+     */
+    static PostingBitmap ofSorted(int[] rows, int count) {
+        PostingBitmap bitmap = new PostingBitmap();
+        for (int i = 0; i < count; i++) {
+            bitmap.add(rows[i]);
+        }
+        return bitmap;
+    }
+
+    void add(int row) {
+        char low = (char) row;
+        int position = find((char) (row >>> 16));
+        if (position < 0) {
+            position = -position - 1;
+            insert(position, (char) (row >>> 16), new char[4], 0);
+        }
+        int cardinality = cardinalities[position];
+        if (containers[position] instanceof long[] words) {
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) == 0) {
+                words[low >>> 6] |= bit;
+                cardinalities[position]++;
+            }
+            return;
+        }
+
+        char[] values = (char[]) containers[position];
+        // Rows are mostly added in ascending order, which appends without a search
+        int index = cardinality == 0 || values[cardinality - 1] < low
+                ? -cardinality - 1 : Arrays.binarySearch(values, 0, cardinality, low);
+        if (index >= 0) {
+            return;
+        }
+        index = -index - 1;
+        if (cardinality == ARRAY_LIMIT) {
+            long[] words = toWords(values, cardinality);
+            words[low >>> 6] |= 1L << low;
+            containers[position] = words;
+        } else {
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, cardinality * 2));
+                containers[position] = values;
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = low;
+        }
+        cardinalities[position]++;
+    }
+
+    void remove(int row) {
+        char low = (char) row;
+        int position = find((char) (row >>> 16));
+        if (position < 0) {
+            return;
+        }
+        if (containers[position] instanceof long[] words) {
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) == 0) {
+                return;
+            }
+            words[low >>> 6] &= ~bit;
+            if (--cardinalities[position] == ARRAY_LIMIT) {
+                containers[position] = toValues(words, ARRAY_LIMIT);
+            }
+        } else {
+            char[] values = (char[]) containers[position];
+            int cardinality = cardinalities[position];
+            int index = Arrays.binarySearch(values, 0, cardinality, low);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+            cardinalities[position]--;
+        }
+        if (cardinalities[position] == 0) {
+            System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+            System.arraycopy(containers, position + 1, containers, position, size - position - 1);
+            System.arraycopy(cardinalities, position + 1, cardinalities, position, size - position - 1);
+            containers[--size] = null;
+        }
+    }
+
+    boolean contains(int row) {
+        int position = find((char) (row >>> 16));
+        if (position < 0) {
+            return false;
+        }
+        char low = (char) row;
+        if (containers[position] instanceof long[] words) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) containers[position], 0, cardinalities[position], low) >= 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += cardinalities[i];
+        }
+        return cardinality;
+    }
+
+    PostingBitmap copy() {
+        PostingBitmap copy = new PostingBitmap(size);
+        for (int i = 0; i < size; i++) {
+            Object container = containers[i] instanceof long[] words ? words.clone()
+                    : Arrays.copyOf((char[]) containers[i], cardinalities[i]);
+            copy.append(keys[i], container, cardinalities[i]);
+        }
+        return copy;
+    }
+
+    PostingBitmap and(PostingBitmap other) {
+        PostingBitmap result = new PostingBitmap(Math.min(size, other.size));
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.appendResult(keys[i], and(containers[i], cardinalities[i], other.containers[j], other.cardinalities[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    PostingBitmap or(PostingBitmap other) {
+        PostingBitmap result = new PostingBitmap(size + other.size);
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                result.appendResult(keys[i], copyOf(containers[i], cardinalities[i]));
+                i++;
+            } else if (i == size || keys[i] > other.keys[j]) {
+                result.appendResult(other.keys[j], copyOf(other.containers[j], other.cardinalities[j]));
+                j++;
+            } else {
+                result.appendResult(keys[i], or(containers[i], cardinalities[i], other.containers[j], other.cardinalities[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    PostingBitmap andNot(PostingBitmap other) {
+        PostingBitmap result = new PostingBitmap(size);
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.size && other.keys[j] == keys[i]) {
+                result.appendResult(keys[i], andNot(containers[i], cardinalities[i], other.containers[j], other.cardinalities[j]));
+            } else {
+                result.appendResult(keys[i], copyOf(containers[i], cardinalities[i]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Pass the rows in ascending order to the action, skipping the first offset rows and stopping after limit rows
+     */
+    void forEach(int offset, int limit, IntConsumer action) {
+        int skip = offset;
+        int taken = 0;
+        for (int position = 0; position < size && taken < limit; position++) {
+            // Whole chunks are skipped by their cardinality
+            if (skip >= cardinalities[position]) {
+                skip -= cardinalities[position];
+                continue;
+            }
+            int high = keys[position] << 16;
+            if (containers[position] instanceof long[] words) {
+                for (int w = 0; w < BITMAP_WORDS && taken < limit; w++) {
+                    long word = words[w];
+                    while (word != 0 && taken < limit) {
+                        int bit = Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                        if (skip > 0) {
+                            skip--;
+                        } else {
+                            action.accept(high | (w << 6) | bit);
+                            taken++;
+                        }
+                    }
+                }
+            } else {
+                char[] values = (char[]) containers[position];
+                for (int k = skip; k < cardinalities[position] && taken < limit; k++) {
+                    action.accept(high | values[k]);
+                    taken++;
+                }
+                skip = 0;
+            }
+        }
+    }
+
+    void forEach(IntConsumer action) {
+        forEach(0, Integer.MAX_VALUE, action);
+    }
+
+    private int find(char key) {
+        if (size > 0 && keys[size - 1] == key) {
+            return size - 1;
+        }
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insert(int position, char key, Object container, int cardinality) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+            cardinalities = Arrays.copyOf(cardinalities, size * 2);
+        }
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        System.arraycopy(containers, position, containers, position + 1, size - position);
+        System.arraycopy(cardinalities, position, cardinalities, position + 1, size - position);
+        keys[position] = key;
+        containers[position] = container;
+        cardinalities[position] = cardinality;
+        size++;
+    }
+
+    private void append(char key, Object container, int cardinality) {
+        insert(size, key, container, cardinality);
+    }
+
+    /**
+     * Append an operation result: an exact-length char[] or a long[] bitmap, shrunk to an array when small
+     */
+    private void appendResult(char key, Object container) {
+        if (container instanceof long[] words) {
+            int cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            if (cardinality > ARRAY_LIMIT) {
+                append(key, words, cardinality);
+            } else if (cardinality > 0) {
+                append(key, toValues(words, cardinality), cardinality);
+            }
+        } else if (((char[]) container).length > 0) {
+            append(key, container, ((char[]) container).length);
+        }
+    }
+
+    private static Object and(Object a, int aCardinality, Object b, int bCardinality) {
+        if (a instanceof long[] aWords && b instanceof long[] bWords) {
+            long[] words = new long[BITMAP_WORDS];
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] = aWords[w] & bWords[w];
+            }
+            return words;
+        }
+        if (a instanceof long[]) {
+            return and(b, bCardinality, a, aCardinality);
+        }
+        char[] aValues = (char[]) a;
+        char[] result = new char[Math.min(aCardinality, bCardinality)];
+        int count = 0;
+        if (b instanceof long[] bWords) {
+            for (int i = 0; i < aCardinality; i++) {
+                if ((bWords[aValues[i] >>> 6] & (1L << aValues[i])) != 0) {
+                    result[count++] = aValues[i];
+                }
+            }
+        } else {
+            char[] bValues = (char[]) b;
+            int i = 0;
+            int j = 0;
+            while (i < aCardinality && j < bCardinality) {
+                if (aValues[i] < bValues[j]) {
+                    i++;
+                } else if (aValues[i] > bValues[j]) {
+                    j++;
+                } else {
+                    result[count++] = aValues[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static Object or(Object a, int aCardinality, Object b, int bCardinality) {
+        if (a instanceof char[] aValues && b instanceof char[] bValues) {
+            char[] result = new char[aCardinality + bCardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < aCardinality || j < bCardinality) {
+                if (j == bCardinality || (i < aCardinality && aValues[i] < bValues[j])) {
+                    result[count++] = aValues[i++];
+                } else if (i == aCardinality || aValues[i] > bValues[j]) {
+                    result[count++] = bValues[j++];
+                } else {
+                    result[count++] = aValues[i++];
+                    j++;
+                }
+            }
+            return count > ARRAY_LIMIT ? toWords(result, count) : Arrays.copyOf(result, count);
+        }
+        long[] words = toWords(a, aCardinality);
+        long[] bWords = b instanceof long[] existing ? existing : toWords((char[]) b, bCardinality);
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            words[w] |= bWords[w];
+        }
+        return words;
+    }
+
+    private static Object andNot(Object a, int aCardinality, Object b, int bCardinality) {
+        if (a instanceof char[] aValues) {
+            char[] result = new char[aCardinality];
+            int count = 0;
+            for (int i = 0; i < aCardinality; i++) {
+                boolean excluded = b instanceof long[] bWords
+                        ? (bWords[aValues[i] >>> 6] & (1L << aValues[i])) != 0
+                        : Arrays.binarySearch((char[]) b, 0, bCardinality, aValues[i]) >= 0;
+                if (!excluded) {
+                    result[count++] = aValues[i];
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+        long[] words = ((long[]) a).clone();
+        if (b instanceof long[] bWords) {
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] &= ~bWords[w];
+            }
+        } else {
+            char[] bValues = (char[]) b;
+            for (int i = 0; i < bCardinality; i++) {
+                words[bValues[i] >>> 6] &= ~(1L << bValues[i]);
+            }
+        }
+        return words;
+    }
+
+    private static Object copyOf(Object container, int cardinality) {
+        return container instanceof long[] words ? words.clone() : Arrays.copyOf((char[]) container, cardinality);
+    }
+
+    private static long[] toWords(Object container, int cardinality) {
+        if (container instanceof long[] words) {
+            return words.clone();
+        }
+        return toWords((char[]) container, cardinality);
+    }
+
+    private static long[] toWords(char[] values, int cardinality) {
+        long[] words = new long[BITMAP_WORDS];
+        for (int i = 0; i < cardinality; i++) {
+            words[values[i] >>> 6] |= 1L << values[i];
+        }
+        return words;
+    }
+
+    private static char[] toValues(long[] words, int cardinality) {
+        char[] values = new char[cardinality];
+        int count = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                values[count++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,128 @@
+package org.acme.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.Tuple;
+import org.acme.repository.ProductRepository;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the current {@link ProductColumnSnapshot}. {@link CatalogCounters} forwards the ids of committed
+ * product changes here; the next read loads just those rows and patches them in. Bulk changes
+ * invalidate the snapshot, and the next read rebuilds it from all active products.
+ */
+@ApplicationScoped
+public class ProductColumnIndex {
+
+    @Inject
+    ProductRepository productRepository;
+
+    @ConfigProperty(name = "catalog.product-columns.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "catalog.product-columns.load-batch-size", defaultValue = "1000")
+    int loadBatchSize;
+
+    // Bumped by every invalidation; a snapshot is complete while its version matches
+    private final AtomicLong version = new AtomicLong();
+    private final Set<Long> changedIds = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile ProductColumnSnapshot snapshot;
+
+    /**
+     * Whether the listing filters are served from the snapshot
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Note committed changes of products; called after commit
+     */
+    public void productsChanged(Collection<Long> productIds) {
+        changedIds.addAll(productIds);
+    }
+
+    /**
+     * Mark the whole snapshot stale; called after commit
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Current snapshot of the committed active products, refreshed first if changes are pending
+     */
+    public ProductColumnSnapshot getSnapshot() {
+        ProductColumnSnapshot current = snapshot;
+        if (current != null && current.getVersion() == version.get() && changedIds.isEmpty()) {
+            return current;
+        }
+
+        refreshLock.lock();
+        try {
+            long currentVersion = version.get();
+            current = snapshot;
+            if (current == null || current.getVersion() != currentVersion) {
+                // Every change noted so far committed before this load starts, so the load covers it
+                changedIds.clear();
+                current = QuarkusTransaction.requiringNew().call(() -> ProductColumnSnapshot.of(currentVersion,
+                        toRows(productRepository.findColumnRows(), productRepository.findColumnTags())));
+            } else if (!changedIds.isEmpty()) {
+                List<Long> changed = drainChangedIds();
+                List<ProductColumnSnapshot.Row> rows = QuarkusTransaction.requiringNew().call(() -> loadRows(changed));
+                current = current.withChanges(changed, rows);
+            }
+            snapshot = current;
+            return current;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private List<Long> drainChangedIds() {
+        List<Long> drained = new ArrayList<>();
+        for (Iterator<Long> iterator = changedIds.iterator(); iterator.hasNext(); ) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+
+    private List<ProductColumnSnapshot.Row> loadRows(List<Long> productIds) {
+        List<ProductColumnSnapshot.Row> rows = new ArrayList<>(productIds.size());
+        for (int from = 0; from < productIds.size(); from += loadBatchSize) {
+            List<Long> batch = productIds.subList(from, Math.min(from + loadBatchSize, productIds.size()));
+            rows.addAll(toRows(productRepository.findColumnRows(batch), productRepository.findColumnTags(batch)));
+        }
+        return rows;
+    }
+
+    private static List<ProductColumnSnapshot.Row> toRows(List<Tuple> columns, List<Tuple> tags) {
+        Map<Long, Set<String>> tagsById = new HashMap<>();
+        for (Tuple tag : tags) {
+            if (tag.get("tag", String.class) != null) {
+                tagsById.computeIfAbsent(tag.get("id", Long.class), id -> new LinkedHashSet<>()).add(tag.get("tag", String.class));
+            }
+        }
+        List<ProductColumnSnapshot.Row> rows = new ArrayList<>(columns.size());
+        for (Tuple column : columns) {
+            Set<String> productTags = tagsById.get(column.get("id", Long.class));
+            rows.add(ProductColumnSnapshot.Row.of(column, productTags != null ? List.copyOf(productTags) : List.of()));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,705 @@
+package org.acme.service;
+
+import jakarta.persistence.Tuple;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Immutable columnar snapshot of the active products, for the listing filters
+ * (featured, price range, low/out of/in stock). Row i of every column is the i-th active product
+ * in name order, so filters are primitive loops or bitset scans that yield name-ordered ids;
+ * price permutations, one over all rows and one per category, serve price ranges and the cheapest
+ * or most expensive products by binary search plus a slice. Filters return product ids only,
+ * the caller loads the entities of the page it returns.
+ * Brand, category and tag postings ({@link PostingBitmap}) answer {@link ProductFilter}s
+ * as bitmap algebra.
+ */
+public final class ProductColumnSnapshot {
+
+    private static final int NO_THRESHOLD = Integer.MIN_VALUE;
+    private static final long NO_REFERENCE = 0L;
+    private static final int[] NO_ROWS = new int[0];
+
+    private final long version;
+    private final long[] ids;
+    private final String[] names;
+    private final long[] priceCents;
+    private final int[] stock;
+    private final int[] lowStockThreshold;
+    private final long[] brandIds;
+    private final long[] categoryIds;
+    private final BitSet featured;
+    private final BitSet trackInventory;
+    private final String[][] tags;
+    // Row indexes ordered by (price, index); ties keep name order, the order of the rows
+    private final int[] byPrice;
+    private final Map<Long, int[]> categoryByPrice;
+    private final Map<Long, Integer> indexById;
+    private final Map<Long, PostingBitmap> brandPostings;
+    private final Map<Long, PostingBitmap> categoryPostings;
+    private final Map<String, PostingBitmap> tagPostings;
+    // Derived from the columns on first use
+    private volatile PostingBitmap featuredPosting;
+    private volatile PostingBitmap inStockPosting;
+    private volatile PostingBitmap allRows;
+
+    private ProductColumnSnapshot(long version, List<Row> rows) {
+        int size = rows.size();
+        this.version = version;
+        this.ids = new long[size];
+        this.names = new String[size];
+        this.priceCents = new long[size];
+        this.stock = new int[size];
+        this.lowStockThreshold = new int[size];
+        this.brandIds = new long[size];
+        this.categoryIds = new long[size];
+        this.featured = new BitSet(size);
+        this.trackInventory = new BitSet(size);
+        this.tags = new String[size][];
+        this.indexById = new HashMap<>(size * 2);
+        this.brandPostings = new HashMap<>();
+        this.categoryPostings = new HashMap<>();
+        this.tagPostings = new HashMap<>();
+
+        for (int i = 0; i < size; i++) {
+            Row row = rows.get(i);
+            ids[i] = row.id;
+            names[i] = row.name;
+            priceCents[i] = row.priceCents;
+            setMutable(i, row);
+            indexById.put(row.id, i);
+            // Rows are added in ascending order, so every posting is built by appends
+            if (row.brandId != null) {
+                brandPostings.computeIfAbsent(row.brandId, id -> new PostingBitmap()).add(i);
+            }
+            if (row.categoryId != null) {
+                categoryPostings.computeIfAbsent(row.categoryId, id -> new PostingBitmap()).add(i);
+            }
+            for (String tag : tags[i]) {
+                tagPostings.computeIfAbsent(tag, key -> new PostingBitmap()).add(i);
+            }
+        }
+
+        this.byPrice = sortedIndexes(size, (a, b) -> Long.compare(priceCents[a], priceCents[b]));
+        this.categoryByPrice = new HashMap<>();
+        Map<Long, int[]> filled = new HashMap<>();
+        for (int index : byPrice) {
+            if (categoryIds[index] != NO_REFERENCE) {
+                int[] order = categoryByPrice.computeIfAbsent(categoryIds[index],
+                        id -> new int[categoryPostings.get(id).cardinality()]);
+                order[filled.computeIfAbsent(categoryIds[index], id -> new int[1])[0]++] = index;
+            }
+        }
+    }
+
+    private ProductColumnSnapshot(ProductColumnSnapshot source, long version) {
+        this.version = version;
+        this.ids = source.ids;
+        this.names = source.names;
+        this.indexById = source.indexById;
+        this.priceCents = source.priceCents.clone();
+        this.byPrice = source.byPrice.clone();
+        // Category orders are replaced, never modified, when a change touches them, see movePrice
+        this.categoryByPrice = new HashMap<>(source.categoryByPrice);
+        this.stock = source.stock.clone();
+        this.lowStockThreshold = source.lowStockThreshold.clone();
+        this.brandIds = source.brandIds.clone();
+        this.categoryIds = source.categoryIds.clone();
+        this.featured = (BitSet) source.featured.clone();
+        this.trackInventory = (BitSet) source.trackInventory.clone();
+        this.tags = source.tags.clone();
+        // Postings are shared until a change touches them, see movePosting
+        this.brandPostings = new HashMap<>(source.brandPostings);
+        this.categoryPostings = new HashMap<>(source.categoryPostings);
+        this.tagPostings = new HashMap<>(source.tagPostings);
+    }
+
+    /**
+     * Build a snapshot from the rows of the active products, in any order
+     */
+    public static ProductColumnSnapshot of(long version, List<Row> rows) {
+        List<Row> sorted = new ArrayList<>(rows);
+        sorted.sort(Row.BY_NAME);
+        return new ProductColumnSnapshot(version, sorted);
+    }
+
+    /**
+     * Snapshot with the current rows of changed products; changed products without a row were deleted.
+     * Changes that keep every product's name are patched into copies of the columns, a new price
+     * moving the row within the price orders; anything else re-sorts the rows.
+     */
+    public ProductColumnSnapshot withChanges(Collection<Long> changedIds, List<Row> changedRows) {
+        boolean patchable = changedRows.size() == changedIds.size();
+        for (Row row : changedRows) {
+            Integer index = indexById.get(row.id);
+            patchable &= row.active && index != null && names[index].equals(row.name);
+        }
+
+        if (patchable) {
+            ProductColumnSnapshot patched = new ProductColumnSnapshot(this, version);
+            Set<PostingBitmap> copied = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Row row : changedRows) {
+                int index = indexById.get(row.id);
+                if (patched.priceCents[index] != row.priceCents
+                        || !Objects.equals(reference(patched.categoryIds[index]), row.categoryId)) {
+                    patched.movePrice(index, row.priceCents, row.categoryId);
+                }
+                movePosting(patched.brandPostings, reference(brandIds[index]), row.brandId, index, copied);
+                movePosting(patched.categoryPostings, reference(categoryIds[index]), row.categoryId, index, copied);
+                List<String> before = Arrays.asList(tags[index]);
+                for (String tag : before) {
+                    if (!row.tags.contains(tag)) {
+                        movePosting(patched.tagPostings, tag, null, index, copied);
+                    }
+                }
+                for (String tag : row.tags) {
+                    if (!before.contains(tag)) {
+                        movePosting(patched.tagPostings, null, tag, index, copied);
+                    }
+                }
+                patched.setMutable(index, row);
+            }
+            return patched;
+        }
+
+        Set<Long> changed = new HashSet<>(changedIds);
+        List<Row> rows = new ArrayList<>(ids.length + changedRows.size());
+        for (int i = 0; i < ids.length; i++) {
+            if (!changed.contains(ids[i])) {
+                rows.add(row(i));
+            }
+        }
+        for (Row row : changedRows) {
+            if (row.active) {
+                rows.add(row);
+            }
+        }
+        return of(version, rows);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Ids of featured products ordered by name, skipping the first offset matches
+     */
+    public List<Long> findFeatured(int offset, int limit) {
+        List<Long> result = new ArrayList<>(Math.min(limit, featured.cardinality()));
+        int skipped = 0;
+        for (int i = featured.nextSetBit(0); i >= 0 && result.size() < limit; i = featured.nextSetBit(i + 1)) {
+            if (skipped++ >= offset) {
+                result.add(ids[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ids of products priced within [minPrice, maxPrice] ordered by price, skipping the first offset matches
+     */
+    public List<Long> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, int offset, int limit) {
+        return findByPriceRange(null, minPrice, maxPrice, offset, limit);
+    }
+
+    /**
+     * Ids of products of a category (all products for null) priced within [minPrice, maxPrice]
+     * ordered by price, skipping the first offset matches
+     */
+    public List<Long> findByPriceRange(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, int offset, int limit) {
+        int[] order = priceOrder(categoryId);
+        long max = toCents(maxPrice, RoundingMode.FLOOR);
+        List<Long> result = new ArrayList<>();
+        long start = (long) firstAtOrAbove(order, toCents(minPrice, RoundingMode.CEILING)) + offset;
+        for (long position = start; position < order.length && result.size() < limit; position++) {
+            int index = order[(int) position];
+            if (priceCents[index] > max) {
+                break;
+            }
+            result.add(ids[index]);
+        }
+        return result;
+    }
+
+    /**
+     * Ids of the cheapest products of a category (all products for null), cheapest first
+     */
+    public List<Long> findCheapest(Long categoryId, int limit) {
+        int[] order = priceOrder(categoryId);
+        List<Long> result = new ArrayList<>(Math.min(Math.max(limit, 0), order.length));
+        for (int position = 0; position < order.length && result.size() < limit; position++) {
+            result.add(ids[order[position]]);
+        }
+        return result;
+    }
+
+    /**
+     * Ids of the most expensive products of a category (all products for null), most expensive first
+     */
+    public List<Long> findMostExpensive(Long categoryId, int limit) {
+        int[] order = priceOrder(categoryId);
+        List<Long> result = new ArrayList<>(Math.min(Math.max(limit, 0), order.length));
+        for (int position = order.length - 1; position >= 0 && result.size() < limit; position--) {
+            result.add(ids[order[position]]);
+        }
+        return result;
+    }
+
+    private int[] priceOrder(Long categoryId) {
+        return categoryId == null ? byPrice : categoryByPrice.getOrDefault(categoryId, NO_ROWS);
+    }
+
+    /**
+     * First position in a price order whose price is at least minCents
+     */
+    private int firstAtOrAbove(int[] order, long minCents) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (priceCents[order[middle]] < minCents) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Position of (cents, index) among the first length entries of a price order,
+     * or where it would be inserted
+     */
+    private int pricePosition(int[] order, int length, long cents, int index) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            long middleCents = priceCents[order[middle]];
+            if (middleCents < cents || (middleCents == cents && order[middle] < index)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Ids of tracked products at or below their low stock threshold, ordered by stock level, then name
+     */
+    public List<Long> findLowStock() {
+        int[] matches = new int[trackInventory.cardinality()];
+        int count = 0;
+        for (int i = trackInventory.nextSetBit(0); i >= 0; i = trackInventory.nextSetBit(i + 1)) {
+            if (lowStockThreshold[i] != NO_THRESHOLD && stock[i] <= lowStockThreshold[i]) {
+                matches[count++] = i;
+            }
+        }
+        // Indexes are in name order; sorting packed (stock, index) keys keeps that order within a stock level
+        long[] keys = new long[count];
+        for (int k = 0; k < count; k++) {
+            keys[k] = ((long) stock[matches[k]] << 32) | matches[k];
+        }
+        Arrays.sort(keys);
+        List<Long> result = new ArrayList<>(count);
+        for (long key : keys) {
+            result.add(ids[(int) key]);
+        }
+        return result;
+    }
+
+    /**
+     * Ids of tracked products with no stock, ordered by name
+     */
+    public List<Long> findOutOfStock() {
+        List<Long> result = new ArrayList<>();
+        for (int i = trackInventory.nextSetBit(0); i >= 0; i = trackInventory.nextSetBit(i + 1)) {
+            if (stock[i] == 0) {
+                result.add(ids[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ids of untracked products and tracked products with stock, ordered by name
+     */
+    public List<Long> findInStock() {
+        List<Long> result = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (stock[i] > 0 || !trackInventory.get(i)) {
+                result.add(ids[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Number of products matching the filter
+     */
+    public int countMatching(ProductFilter filter) {
+        return match(filter).cardinality();
+    }
+
+    /**
+     * Ids of the products matching the filter ordered by name, skipping the first offset matches
+     */
+    public List<Long> findMatching(ProductFilter filter, int offset, int limit) {
+        List<Long> result = new ArrayList<>();
+        match(filter).forEach(offset, limit, index -> result.add(ids[index]));
+        return result;
+    }
+
+    /**
+     * Facet counts of the products matching the filter, in one pass over the matching rows.
+     * Price bucket k holds prices from bound k - 1 (0 for the first) up to bound k, exclusive.
+     */
+    ProductFacetService.ProductFacets countFacets(ProductFilter filter, long[] priceBoundsCents) {
+        Map<Long, int[]> brandCounts = new HashMap<>();
+        Map<Long, int[]> categoryCounts = new HashMap<>();
+        Map<String, int[]> tagCounts = new HashMap<>();
+        long[] bucketCounts = new long[priceBoundsCents.length + 1];
+        int[] total = new int[1];
+
+        match(filter).forEach(index -> {
+            total[0]++;
+            if (brandIds[index] != NO_REFERENCE) {
+                brandCounts.computeIfAbsent(brandIds[index], id -> new int[1])[0]++;
+            }
+            if (categoryIds[index] != NO_REFERENCE) {
+                categoryCounts.computeIfAbsent(categoryIds[index], id -> new int[1])[0]++;
+            }
+            for (String tag : tags[index]) {
+                tagCounts.computeIfAbsent(tag, key -> new int[1])[0]++;
+            }
+            int bucket = Arrays.binarySearch(priceBoundsCents, priceCents[index]);
+            bucketCounts[bucket >= 0 ? bucket + 1 : -bucket - 1]++;
+        });
+
+        List<ProductFacetService.PriceBucketCount> buckets = new ArrayList<>(bucketCounts.length);
+        for (int bucket = 0; bucket < bucketCounts.length; bucket++) {
+            buckets.add(new ProductFacetService.PriceBucketCount(
+                    BigDecimal.valueOf(bucket == 0 ? 0 : priceBoundsCents[bucket - 1], 2),
+                    bucket < priceBoundsCents.length ? BigDecimal.valueOf(priceBoundsCents[bucket], 2) : null,
+                    bucketCounts[bucket]));
+        }
+        return new ProductFacetService.ProductFacets(total[0],
+                byCount(brandCounts, ProductFacetService.FacetCount::new),
+                byCount(categoryCounts, ProductFacetService.FacetCount::new),
+                byCount(tagCounts, ProductFacetService.TagCount::new),
+                buckets);
+    }
+
+    /**
+     * Tags with the most products, highest count first; read off the posting sizes, no row is visited
+     */
+    public List<ProductFacetService.TagCount> countTags(int limit) {
+        Map<String, int[]> tagCounts = new HashMap<>();
+        tagPostings.forEach((tag, posting) -> {
+            int count = posting.cardinality();
+            if (count > 0) {
+                tagCounts.put(tag, new int[]{count});
+            }
+        });
+        List<ProductFacetService.TagCount> counts = byCount(tagCounts, ProductFacetService.TagCount::new);
+        return counts.subList(0, Math.min(Math.max(limit, 0), counts.size()));
+    }
+
+    private static <K extends Comparable<K>, T> List<T> byCount(Map<K, int[]> counts, BiFunction<K, Long, T> factory) {
+        return counts.entrySet().stream()
+                .sorted(Comparator.<Map.Entry<K, int[]>>comparingInt(entry -> -entry.getValue()[0])
+                        .thenComparing(Map.Entry::getKey))
+                .map(entry -> factory.apply(entry.getKey(), (long) entry.getValue()[0]))
+                .toList();
+    }
+
+    /**
+     * Rows matching the filter: the conditions of the filter and its allOf filters intersected,
+     * the anyOf filters united
+     */
+    PostingBitmap match(ProductFilter filter) {
+        PostingBitmap result = null;
+        if (!filter.brandIds.isEmpty()) {
+            result = intersect(result, union(brandPostings, filter.brandIds));
+        }
+        if (!filter.categoryIds.isEmpty()) {
+            result = intersect(result, union(categoryPostings, filter.categoryIds));
+        }
+        if (!filter.tags.isEmpty()) {
+            result = intersect(result, union(tagPostings, filter.tags));
+        }
+        if (filter.featured != null) {
+            result = filter.featured ? intersect(result, featuredPosting())
+                    : (result != null ? result : allRows()).andNot(featuredPosting());
+        }
+        if (filter.inStock != null) {
+            result = filter.inStock ? intersect(result, inStockPosting())
+                    : (result != null ? result : allRows()).andNot(inStockPosting());
+        }
+        if (filter.minPrice != null || filter.maxPrice != null) {
+            result = intersect(result, priceRange(filter.minPrice, filter.maxPrice));
+        }
+        for (ProductFilter nested : filter.allOf) {
+            result = intersect(result, match(nested));
+        }
+        if (!filter.anyOf.isEmpty()) {
+            PostingBitmap any = new PostingBitmap();
+            for (ProductFilter nested : filter.anyOf) {
+                any = any.or(match(nested));
+            }
+            result = intersect(result, any);
+        }
+        // Results are never modified, so a single posting is returned as is
+        return result != null ? result : allRows();
+    }
+
+    private static PostingBitmap intersect(PostingBitmap result, PostingBitmap rows) {
+        return result != null ? result.and(rows) : rows;
+    }
+
+    private static <K> PostingBitmap union(Map<K, PostingBitmap> postings, Set<K> keys) {
+        PostingBitmap result = null;
+        for (K key : keys) {
+            PostingBitmap posting = postings.get(key);
+            if (posting != null) {
+                result = result != null ? result.or(posting) : posting;
+            }
+        }
+        return result != null ? result : new PostingBitmap();
+    }
+
+    private PostingBitmap priceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        int from = minPrice != null ? firstAtOrAbove(byPrice, toCents(minPrice, RoundingMode.CEILING)) : 0;
+        long max = maxPrice != null ? toCents(maxPrice, RoundingMode.FLOOR) : Long.MAX_VALUE;
+        int[] rows = new int[byPrice.length - from];
+        int count = 0;
+        for (int position = from; position < byPrice.length && priceCents[byPrice[position]] <= max; position++) {
+            rows[count++] = byPrice[position];
+        }
+        Arrays.sort(rows, 0, count);
+        return PostingBitmap.ofSorted(rows, count);
+    }
+
+    private PostingBitmap allRows() {
+        PostingBitmap rows = allRows;
+        if (rows == null) {
+            rows = PostingBitmap.range(ids.length);
+            allRows = rows;
+        }
+        return rows;
+    }
+
+    private PostingBitmap featuredPosting() {
+        PostingBitmap posting = featuredPosting;
+        if (posting == null) {
+            posting = new PostingBitmap();
+            for (int i = featured.nextSetBit(0); i >= 0; i = featured.nextSetBit(i + 1)) {
+                posting.add(i);
+            }
+            featuredPosting = posting;
+        }
+        return posting;
+    }
+
+    private PostingBitmap inStockPosting() {
+        PostingBitmap posting = inStockPosting;
+        if (posting == null) {
+            posting = new PostingBitmap();
+            for (int i = 0; i < ids.length; i++) {
+                if (stock[i] > 0 || !trackInventory.get(i)) {
+                    posting.add(i);
+                }
+            }
+            inStockPosting = posting;
+        }
+        return posting;
+    }
+
+    /**
+     * Move a row from one posting to another, copying each shared posting once before its first change
+     */
+    private static <K> void movePosting(Map<K, PostingBitmap> postings, K from, K to, int index,
+                                        Set<PostingBitmap> copied) {
+        if (Objects.equals(from, to)) {
+            return;
+        }
+        if (from != null) {
+            PostingBitmap posting = writablePosting(postings, from, copied);
+            posting.remove(index);
+            if (posting.isEmpty()) {
+                postings.remove(from);
+            }
+        }
+        if (to != null) {
+            writablePosting(postings, to, copied).add(index);
+        }
+    }
+
+    private static <K> PostingBitmap writablePosting(Map<K, PostingBitmap> postings, K key, Set<PostingBitmap> copied) {
+        PostingBitmap posting = postings.get(key);
+        if (posting != null && copied.contains(posting)) {
+            return posting;
+        }
+        posting = posting != null ? posting.copy() : new PostingBitmap();
+        copied.add(posting);
+        postings.put(key, posting);
+        return posting;
+    }
+
+    /**
+     * Give a row a new price and category within the price orders: found and reinserted by binary search,
+     * the global order shifted in place (this snapshot's own copy), the category orders replaced
+     */
+    private void movePrice(int index, long cents, Long categoryId) {
+        Long previousCategory = reference(categoryIds[index]);
+        int from = pricePosition(byPrice, byPrice.length, priceCents[index], index);
+        System.arraycopy(byPrice, from + 1, byPrice, from, byPrice.length - 1 - from);
+        if (previousCategory != null) {
+            int[] order = categoryByPrice.get(previousCategory);
+            int at = pricePosition(order, order.length, priceCents[index], index);
+            int[] removed = new int[order.length - 1];
+            System.arraycopy(order, 0, removed, 0, at);
+            System.arraycopy(order, at + 1, removed, at, removed.length - at);
+            if (removed.length == 0) {
+                categoryByPrice.remove(previousCategory);
+            } else {
+                categoryByPrice.put(previousCategory, removed);
+            }
+        }
+
+        priceCents[index] = cents;
+        int to = pricePosition(byPrice, byPrice.length - 1, cents, index);
+        System.arraycopy(byPrice, to, byPrice, to + 1, byPrice.length - 1 - to);
+        byPrice[to] = index;
+        if (categoryId != null) {
+            int[] order = categoryByPrice.getOrDefault(categoryId, NO_ROWS);
+            int at = pricePosition(order, order.length, cents, index);
+            int[] added = new int[order.length + 1];
+            System.arraycopy(order, 0, added, 0, at);
+            added[at] = index;
+            System.arraycopy(order, at, added, at + 1, order.length - at);
+            categoryByPrice.put(categoryId, added);
+        }
+    }
+
+    private static Long reference(long id) {
+        return id != NO_REFERENCE ? id : null;
+    }
+
+    private void setMutable(int index, Row row) {
+        stock[index] = row.stockQuantity;
+        lowStockThreshold[index] = row.lowStockThreshold != null ? row.lowStockThreshold : NO_THRESHOLD;
+        brandIds[index] = row.brandId != null ? row.brandId : NO_REFERENCE;
+        categoryIds[index] = row.categoryId != null ? row.categoryId : NO_REFERENCE;
+        featured.set(index, row.featured);
+        trackInventory.set(index, row.trackInventory);
+        tags[index] = row.tags.toArray(String[]::new);
+    }
+
+    private Row row(int index) {
+        return new Row(ids[index], names[index], priceCents[index], stock[index],
+                lowStockThreshold[index] != NO_THRESHOLD ? lowStockThreshold[index] : null,
+                featured.get(index), trackInventory.get(index), true,
+                reference(brandIds[index]), reference(categoryIds[index]), List.of(tags[index]));
+    }
+
+    private static int[] sortedIndexes(int size, Comparator<Integer> order) {
+        Integer[] indexes = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = i;
+        }
+        Arrays.sort(indexes, order);
+        int[] sorted = new int[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = indexes[i];
+        }
+        return sorted;
+    }
+
+    static long toCents(BigDecimal price, RoundingMode rounding) {
+        return price.movePointRight(2).setScale(0, rounding).longValueExact();
+    }
+
+    @Override
+    public String toString() {
+        return "ProductColumnSnapshot{" +
+                "version=" + version +
+                ", size=" + ids.length +
+                ", featured=" + featured.cardinality() +
+                '}';
+    }
+
+    /**
+     * The filter columns of one product
+     */
+    public static class Row {
+        static final Comparator<Row> BY_NAME = Comparator.comparing((Row row) -> row.name)
+                .thenComparingLong(row -> row.id);
+
+        public final long id;
+        public final String name;
+        public final long priceCents;
+        public final int stockQuantity;
+        public final Integer lowStockThreshold;
+        public final boolean featured;
+        public final boolean trackInventory;
+        public final boolean active;
+        public final Long brandId;
+        public final Long categoryId;
+        public final List<String> tags;
+
+        public Row(long id, String name, long priceCents, int stockQuantity, Integer lowStockThreshold,
+                   boolean featured, boolean trackInventory, boolean active, Long brandId, Long categoryId,
+                   List<String> tags) {
+            this.id = id;
+            this.name = name;
+            this.priceCents = priceCents;
+            this.stockQuantity = stockQuantity;
+            this.lowStockThreshold = lowStockThreshold;
+            this.featured = featured;
+            this.trackInventory = trackInventory;
+            this.active = active;
+            this.brandId = brandId;
+            this.categoryId = categoryId;
+            this.tags = tags;
+        }
+
+        /**
+         * Row from a {@code ProductRepository.findColumnRows} tuple and the product's distinct tags
+         */
+        public static Row of(Tuple tuple, List<String> tags) {
+            Integer stockQuantity = tuple.get("stockQuantity", Integer.class);
+            return new Row(tuple.get("id", Long.class),
+                    tuple.get("name", String.class),
+                    toCents(tuple.get("price", BigDecimal.class), RoundingMode.HALF_UP),
+                    stockQuantity != null ? stockQuantity : 0,
+                    tuple.get("lowStockThreshold", Integer.class),
+                    Boolean.TRUE.equals(tuple.get("featured", Boolean.class)),
+                    Boolean.TRUE.equals(tuple.get("trackInventory", Boolean.class)),
+                    Boolean.TRUE.equals(tuple.get("active", Boolean.class)),
+                    tuple.get("brandId", Long.class),
+                    tuple.get("categoryId", Long.class),
+                    tags);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package org.acme.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.acme.repository.ProductRepository;
+import org.acme.service.exception.EntityNotFoundException;
+import org.acme.service.invalidation.ChangeEvent;
+import org.acme.service.invalidation.RemoteChanges;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Hibernate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of product detail snapshots for the product, productBySlug and productBySku
+ * queries. Entries are keyed by product id and evicted by W-TinyLFU; the slug and SKU indexes
+ * map to the id and are checked against the snapshot, so a stale index entry only costs a lookup.
+ * An entry older than refresh-after is still served while it is reloaded in the background
+ * (stale-while-revalidate); committed product, brand and category changes of this node and of
+ * other nodes evict the entries they touch.
+ */
+@ApplicationScoped
+public class ProductDetailCache {
+
+    @Inject
+    ProductRepository productRepository;
+
+    @Inject
+    UniqueKeyFilter uniqueKeys;
+
+    @ConfigProperty(name = "catalog.product-detail-cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "catalog.product-detail-cache.maximum-size", defaultValue = "10000")
+    long maximumSize;
+
+    @ConfigProperty(name = "catalog.product-detail-cache.refresh-after", defaultValue = "30s")
+    Duration refreshAfter;
+
+    @ConfigProperty(name = "catalog.product-detail-cache.expire-after", defaultValue = "10m")
+    Duration expireAfter;
+
+    private final Map<String, Long> idsBySlug = new ConcurrentHashMap<>();
+    private final Map<String, Long> idsBySku = new ConcurrentHashMap<>();
+    private LoadingCache<Long, ProductDetail> details;
+
+    @PostConstruct
+    void init() {
+        details = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter)
+                .recordStats()
+                .removalListener((Long id, ProductDetail detail, RemovalCause cause) -> {
+                    // A replaced entry keeps its index entries, the new snapshot re-put them
+                    if (detail != null && cause != RemovalCause.REPLACED) {
+                        unindex(detail);
+                    }
+                })
+                .build(this::load);
+    }
+
+    /**
+     * Whether product detail queries are served from the cache
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Detached copy of the product's cached snapshot
+     */
+    public Product getProduct(Long productId) {
+        ProductDetail detail = details.get(productId);
+        if (detail == null) {
+            throw new EntityNotFoundException("Product not found with ID: " + productId);
+        }
+        return detail.toProduct();
+    }
+
+    /**
+     * Product with the slug from the cache; a slug no product was ever written with is answered
+     * from the uniqueness filter without a query
+     */
+    public Optional<Product> findProductBySlug(String slug) {
+        return find(slug, idsBySlug, UniqueKeyFilter.Key.PRODUCT_SLUG);
+    }
+
+    /**
+     * Product with the SKU from the cache, like {@link #findProductBySlug}
+     */
+    public Optional<Product> findProductBySku(String sku) {
+        return find(sku, idsBySku, UniqueKeyFilter.Key.PRODUCT_SKU);
+    }
+
+    /**
+     * Number of cached products and the hit ratio so far
+     */
+    public DetailCacheStatistics getStatistics() {
+        CacheStats stats = details.stats();
+        return new DetailCacheStatistics(details.estimatedSize(), stats.hitCount(), stats.missCount(), stats.hitRate());
+    }
+
+    /**
+     * Drop every entry, e.g. after bulk statements
+     */
+    public void invalidateAll() {
+        details.invalidateAll();
+    }
+
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) ChangeEvent change) {
+        evict(change);
+    }
+
+    void onRemoteChanges(@Observes RemoteChanges remote) {
+        remote.changes.forEach(this::evict);
+    }
+
+    private void evict(ChangeEvent change) {
+        if (change.id == null) {
+            // Brands and categories are copied into the snapshots, so any bulk change drops them all
+            invalidateAll();
+            return;
+        }
+        switch (change.entity) {
+            case PRODUCT -> details.invalidate(change.id);
+            case BRAND -> details.asMap().values().removeIf(detail -> detail.brand != null
+                    && change.id.equals(detail.brand.id));
+            case CATEGORY -> details.asMap().values().removeIf(detail -> detail.category != null
+                    && change.id.equals(detail.category.id));
+        }
+    }
+
+    private Optional<Product> find(String value, Map<String, Long> index, UniqueKeyFilter.Key key) {
+        Long productId = index.get(value);
+        if (productId == null) {
+            if (!uniqueKeys.mightExist(key, value)) {
+                return Optional.empty();
+            }
+            productId = QuarkusTransaction.requiringNew().call(() -> key == UniqueKeyFilter.Key.PRODUCT_SLUG
+                    ? productRepository.findIdBySlug(value) : productRepository.findIdBySku(value)).orElse(null);
+            if (productId == null) {
+                return Optional.empty();
+            }
+        }
+        ProductDetail detail = details.get(productId);
+        String current = detail == null ? null
+                : key == UniqueKeyFilter.Key.PRODUCT_SLUG ? detail.product.slug : detail.product.sku;
+        if (!value.equals(current)) {
+            // The product was deleted or its slug/SKU changed since the index entry was made
+            index.remove(value, productId);
+            return key == UniqueKeyFilter.Key.PRODUCT_SLUG ? productRepository.findBySlug(value) : productRepository.findBySku(value);
+        }
+        return Optional.of(detail.toProduct());
+    }
+
+    private ProductDetail load(Long productId) {
+        ProductDetail detail = QuarkusTransaction.requiringNew().call(() -> productRepository.findDetailById(productId)
+                .map(product -> {
+                    Hibernate.initialize(product.imageUrls);
+                    Hibernate.initialize(product.tags);
+                    return new ProductDetail(product);
+                })
+                .orElse(null));
+        if (detail != null) {
+            if (detail.product.slug != null) {
+                idsBySlug.put(detail.product.slug, productId);
+            }
+            if (detail.product.sku != null) {
+                idsBySku.put(detail.product.sku, productId);
+            }
+        }
+        return detail;
+    }
+
+    private void unindex(ProductDetail detail) {
+        if (detail.product.slug != null) {
+            idsBySlug.remove(detail.product.slug, detail.product.id);
+        }
+        if (detail.product.sku != null) {
+            idsBySku.remove(detail.product.sku, detail.product.id);
+        }
+    }
+
+    /**
+     * Immutable snapshot of a product with its images, tags, brand and category; the copies it
+     * holds are never handed out, every read gets fresh detached ones
+     */
+    static final class ProductDetail {
+        private final Product product;
+        private final Brand brand;
+        private final Category category;
+
+        ProductDetail(Product source) {
+            this.product = copy(source);
+            this.product.imageUrls = source.imageUrls != null ? List.copyOf(source.imageUrls) : List.of();
+            this.product.tags = source.tags != null ? List.copyOf(source.tags) : List.of();
+            this.brand = source.brand != null ? copy(source.brand) : null;
+            this.category = source.category != null ? copy(source.category) : null;
+        }
+
+        Product toProduct() {
+            Product copy = copy(product);
+            copy.imageUrls = product.imageUrls;
+            copy.tags = product.tags;
+            copy.brand = brand != null ? copy(brand) : null;
+            copy.category = category != null ? copy(category) : null;
+            return copy;
+        }
+
+        private static Product copy(Product source) {
+            Product copy = new Product();
+            copy.id = source.id;
+            copy.name = source.name;
+            copy.description = source.description;
+            copy.sku = source.sku;
+            copy.slug = source.slug;
+            copy.price = source.price;
+            copy.compareAtPrice = source.compareAtPrice;
+            copy.stockQuantity = source.stockQuantity;
+            copy.stockSnapshot = source.stockSnapshot;
+            copy.stockMovementId = source.stockMovementId;
+            copy.stockTaken = source.stockTaken;
+            copy.lowStockThreshold = source.lowStockThreshold;
+            copy.weight = source.weight;
+            copy.weightUnit = source.weightUnit;
+            copy.active = source.active;
+            copy.featured = source.featured;
+            copy.trackInventory = source.trackInventory;
+            copy.createdAt = source.createdAt;
+            copy.updatedAt = source.updatedAt;
+            copy.version = source.version;
+            return copy;
+        }
+
+        private static Brand copy(Brand source) {
+            Brand copy = new Brand();
+            copy.id = source.id;
+            copy.name = source.name;
+            copy.description = source.description;
+            copy.logoUrl = source.logoUrl;
+            copy.websiteUrl = source.websiteUrl;
+            copy.active = source.active;
+            copy.createdAt = source.createdAt;
+            copy.updatedAt = source.updatedAt;
+            return copy;
+        }
+
+        private static Category copy(Category source) {
+            Category copy = new Category();
+            copy.id = source.id;
+            copy.name = source.name;
+            copy.description = source.description;
+            copy.slug = source.slug;
+            copy.imageUrl = source.imageUrl;
+            copy.active = source.active;
+            copy.sortOrder = source.sortOrder;
+            copy.createdAt = source.createdAt;
+            copy.updatedAt = source.updatedAt;
+            return copy;
+        }
+    }
+
+    /**
+     * Size and hit statistics of the cache
+     */
+    public static class DetailCacheStatistics {
+        public final long size;
+        public final long hitCount;
+        public final long missCount;
+        public final double hitRatio;
+
+        public DetailCacheStatistics(long size, long hitCount, long missCount, double hitRatio) {
+            this.size = size;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.hitRatio = hitRatio;
+        }
+    }
+}
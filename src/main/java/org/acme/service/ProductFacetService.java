@@ -0,0 +1,134 @@
+package org.acme.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Facet counts (per brand, category, tag and price bucket) for the products matching a filter,
+ * computed in one pass over the matching rows of the {@link ProductColumnSnapshot}.
+ * Results are cached per normalized filter for as long as the snapshot they were counted on is current.
+ */
+@ApplicationScoped
+public class ProductFacetService {
+
+    @Inject
+    ProductColumnIndex productColumns;
+
+    // Upper bounds of the price buckets; the last bucket has no upper bound
+    @ConfigProperty(name = "catalog.facets.price-buckets", defaultValue = "10,25,50,100,250,500")
+    List<BigDecimal> priceBuckets;
+
+    @ConfigProperty(name = "catalog.facets.cache-size", defaultValue = "1000")
+    int cacheSize;
+
+    private long[] priceBoundsCents;
+    private final Map<ProductFilter, CachedFacets> cache = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        priceBoundsCents = priceBuckets.stream()
+                .mapToLong(bound -> ProductColumnSnapshot.toCents(bound, RoundingMode.CEILING))
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+    /**
+     * Facet counts of the active products matching the filter
+     */
+    public ProductFacets getFacets(ProductFilter filter) {
+        ProductColumnSnapshot snapshot = productColumns.getSnapshot();
+        CachedFacets cached = cache.get(filter);
+        if (cached != null && cached.snapshot == snapshot) {
+            return cached.facets;
+        }
+
+        ProductFacets facets = snapshot.countFacets(filter, priceBoundsCents);
+        if (cache.size() >= cacheSize) {
+            // Entries of replaced snapshots are dead anyway; start over rather than track recency
+            cache.clear();
+        }
+        cache.put(filter, new CachedFacets(snapshot, facets));
+        return facets;
+    }
+
+    private static class CachedFacets {
+        final ProductColumnSnapshot snapshot;
+        final ProductFacets facets;
+
+        CachedFacets(ProductColumnSnapshot snapshot, ProductFacets facets) {
+            this.snapshot = snapshot;
+            this.facets = facets;
+        }
+    }
+
+    /**
+     * Facet counts data class; brands, categories and tags are ordered by count, highest first,
+     * price buckets by price
+     */
+    public static class ProductFacets {
+        public final long total;
+        public final List<FacetCount> brands;
+        public final List<FacetCount> categories;
+        public final List<TagCount> tags;
+        public final List<PriceBucketCount> priceBuckets;
+
+        public ProductFacets(long total, List<FacetCount> brands, List<FacetCount> categories,
+                             List<TagCount> tags, List<PriceBucketCount> priceBuckets) {
+            this.total = total;
+            this.brands = brands;
+            this.categories = categories;
+            this.tags = tags;
+            this.priceBuckets = priceBuckets;
+        }
+    }
+
+    /**
+     * Matching products per brand or category id
+     */
+    public static class FacetCount {
+        public final Long id;
+        public final long count;
+
+        public FacetCount(Long id, long count) {
+            this.id = id;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Matching products per tag
+     */
+    public static class TagCount {
+        public final String tag;
+        public final long count;
+
+        public TagCount(String tag, long count) {
+            this.tag = tag;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Matching products priced from minPrice (inclusive) to maxPrice (exclusive, null for no bound)
+     */
+    public static class PriceBucketCount {
+        public final BigDecimal minPrice;
+        public final BigDecimal maxPrice;
+        public final long count;
+
+        public PriceBucketCount(BigDecimal minPrice, BigDecimal maxPrice, long count) {
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+            this.count = count;
+        }
+    }
+}
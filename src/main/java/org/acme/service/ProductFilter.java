@@ -0,0 +1,83 @@
+package org.acme.service;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Product filter evaluated against the {@link ProductColumnSnapshot}. Every condition that is set
+ * must hold; a set of ids or tags matches products having any of them. allOf and anyOf nest further
+ * filters, so arbitrary AND/OR combinations can be expressed. Filters are normalized on construction
+ * (sorted values, empty conditions dropped) and compare by value.
+ */
+public final class ProductFilter {
+
+    public static final ProductFilter ALL = new ProductFilter(null, null, null, null, null, null, null, null, null);
+
+    public final Set<Long> brandIds;
+    public final Set<Long> categoryIds;
+    public final Set<String> tags;
+    public final Boolean featured;
+    public final Boolean inStock;
+    public final BigDecimal minPrice;
+    public final BigDecimal maxPrice;
+    public final List<ProductFilter> allOf;
+    public final List<ProductFilter> anyOf;
+
+    public ProductFilter(Collection<Long> brandIds, Collection<Long> categoryIds, Collection<String> tags,
+                         Boolean featured, Boolean inStock, BigDecimal minPrice, BigDecimal maxPrice,
+                         List<ProductFilter> allOf, List<ProductFilter> anyOf) {
+        this.brandIds = sorted(brandIds);
+        this.categoryIds = sorted(categoryIds);
+        this.tags = sorted(tags);
+        this.featured = featured;
+        this.inStock = inStock;
+        this.minPrice = minPrice != null ? minPrice.stripTrailingZeros() : null;
+        this.maxPrice = maxPrice != null ? maxPrice.stripTrailingZeros() : null;
+        this.allOf = allOf != null ? List.copyOf(allOf) : List.of();
+        this.anyOf = anyOf != null ? List.copyOf(anyOf) : List.of();
+    }
+
+    private static <T extends Comparable<T>> Set<T> sorted(Collection<T> values) {
+        if (values == null) {
+            return Set.of();
+        }
+        TreeSet<T> sorted = new TreeSet<>();
+        values.stream().filter(Objects::nonNull).forEach(sorted::add);
+        return sorted.isEmpty() ? Set.of() : Collections.unmodifiableSet(sorted);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ProductFilter that)) return false;
+        return brandIds.equals(that.brandIds) && categoryIds.equals(that.categoryIds) && tags.equals(that.tags)
+                && Objects.equals(featured, that.featured) && Objects.equals(inStock, that.inStock)
+                && Objects.equals(minPrice, that.minPrice) && Objects.equals(maxPrice, that.maxPrice)
+                && allOf.equals(that.allOf) && anyOf.equals(that.anyOf);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(brandIds, categoryIds, tags, featured, inStock, minPrice, maxPrice, allOf, anyOf);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductFilter{" +
+                "brandIds=" + brandIds +
+                ", categoryIds=" + categoryIds +
+                ", tags=" + tags +
+                ", featured=" + featured +
+                ", inStock=" + inStock +
+                ", minPrice=" + minPrice +
+                ", maxPrice=" + maxPrice +
+                ", allOf=" + allOf +
+                ", anyOf=" + anyOf +
+                '}';
+    }
+}
@@ -2,20 +2,35 @@ package org.acme.service;
 
 import io.quarkus.panache.common.Page;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.Tuple;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import org.acme.entity.Brand;
 import org.acme.entity.Category;
+import org.acme.entity.InventoryMovement;
 import org.acme.entity.Product;
+import org.acme.repository.InventoryMovementRepository;
 import org.acme.repository.ProductRepository;
+import org.acme.repository.TagRepository;
+import org.acme.service.CatalogCounters.ProductState;
 import org.acme.service.exception.BusinessException;
 import org.acme.service.exception.EntityNotFoundException;
+import org.acme.service.invalidation.ChangeEvent;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * Service for Product business logic operations
@@ -23,6 +38,8 @@ import java.util.Optional;
 @ApplicationScoped
 public class ProductService {
 
+    private static final int HYDRATE_BATCH_SIZE = 1000;
+
     @Inject
     ProductRepository productRepository;
 
@@ -32,6 +49,36 @@ public class ProductService {
     @Inject
     BrandService brandService;
 
+    @Inject
+    CatalogCounters catalogCounters;
+
+    @Inject
+    StockReservationService stockReservations;
+
+    @Inject
+    StockDeltaBuffer stockDeltaBuffer;
+
+    @Inject
+    InventoryMovementRepository inventoryMovementRepository;
+
+    @Inject
+    ProductColumnIndex productColumns;
+
+    @Inject
+    TagRepository tagRepository;
+
+    @Inject
+    UniqueKeyFilter uniqueKeys;
+
+    @Inject
+    EntityLoader entityLoader;
+
+    @Inject
+    RecentWindows recentWindows;
+
+    @Inject
+    Event<ChangeEvent> changes;
+
     /**
      * Create a new product
      */
@@ -39,17 +86,28 @@ public class ProductService {
     public Product createProduct(@Valid @NotNull Product product) {
         validateProductForCreation(product);
         setProductRelations(product);
+        product.tags = TagRepository.normalize(product.tags);
         productRepository.persist(product);
+        addUniqueKeys(product);
+        catalogCounters.productChanged(null, ProductState.of(product));
+        changes.fire(ChangeEvent.of(ChangeEvent.EntityType.PRODUCT, product.id));
         return product;
     }
 
     /**
-     * Update an existing product
+     * Update an existing product; the version check makes a concurrent update fail
+     * with OptimisticLockException instead of being overwritten
      */
     @Transactional
     public Product updateProduct(@NotNull Long productId, @Valid @NotNull Product productData) {
         Product existingProduct = findProductById(productId);
-        validateProductForUpdate(productData, productId);
+        if (productData.version != null && !productData.version.equals(existingProduct.version)) {
+            throw new OptimisticLockException("Product " + productId + " was modified concurrently: update is based on version "
+                    + productData.version + ", current version is " + existingProduct.version);
+        }
+        validateProductForUpdate(productData, existingProduct);
+        List<String> tags = TagRepository.normalize(productData.tags);
+        ProductState before = ProductState.of(existingProduct);
         
         // Update fields
         existingProduct.name = productData.name;
@@ -63,17 +121,26 @@ public class ProductService {
         existingProduct.lowStockThreshold = productData.lowStockThreshold;
         existingProduct.trackInventory = productData.trackInventory;
         existingProduct.imageUrls = productData.imageUrls;
-        existingProduct.tags = productData.tags;
+        existingProduct.tags = tags;
         
-        // Update relations
-        if (productData.category != null) {
-            existingProduct.category = categoryService.findCategoryById(productData.category.id);
+        List<String> changedFields = new ArrayList<>(List.of("name", "description", "sku", "slug", "price",
+                "compareAtPrice", "weight", "weightUnit", "lowStockThreshold", "trackInventory", "imageUrls", "tags"));
+        
+        // Update relations; an unchanged one is kept without looking it up
+        if (productData.category != null && !sameId(existingProduct.category, productData.category.id)) {
+            existingProduct.category = categoryService.getCategoryReference(productData.category.id);
+            changedFields.add("category");
         }
-        if (productData.brand != null) {
-            existingProduct.brand = brandService.findBrandById(productData.brand.id);
+        if (productData.brand != null && !sameId(existingProduct.brand, productData.brand.id)) {
+            existingProduct.brand = brandService.getBrandReference(productData.brand.id);
+            changedFields.add("brand");
         }
         
-        productRepository.persist(existingProduct);
+        productRepository.persistAndFlush(existingProduct);
+        addUniqueKeys(existingProduct);
+        catalogCounters.productChanged(before, ProductState.of(existingProduct));
+        stockReservations.stockChanged(productId);
+        changes.fire(new ChangeEvent(ChangeEvent.EntityType.PRODUCT, productId, changedFields));
         return existingProduct;
     }
 
@@ -81,7 +148,7 @@ public class ProductService {
      * Find product by ID
      */
     public Product findProductById(@NotNull Long productId) {
-        return productRepository.findByIdOptional(productId)
+        return entityLoader.find(Product.class, productId)
                 .orElseThrow(() -> new EntityNotFoundException("Product not found with ID: " + productId));
     }
 
@@ -117,6 +184,9 @@ public class ProductService {
      * Get featured products
      */
     public List<Product> getFeaturedProducts() {
+        if (productColumns.isEnabled()) {
+            return findInOrder(productColumns.getSnapshot().findFeatured(0, Integer.MAX_VALUE));
+        }
         return productRepository.findFeatured();
     }
 
@@ -124,9 +194,30 @@ public class ProductService {
      * Get featured products with pagination
      */
     public List<Product> getFeaturedProducts(int pageIndex, int pageSize) {
+        if (productColumns.isEnabled()) {
+            return findInOrder(productColumns.getSnapshot().findFeatured(offset(pageIndex, pageSize), pageSize));
+        }
         return productRepository.findFeatured(Page.of(pageIndex, pageSize));
     }
 
+    /**
+     * Get the most recently created active products, newest first
+     */
+    public List<Product> getRecentlyCreatedProducts(int limit) {
+        return recentWindows.newest(RecentWindows.Kind.PRODUCTS_CREATED, limit)
+                .map(this::findInOrder)
+                .orElseGet(() -> productRepository.findRecentlyCreated(limit));
+    }
+
+    /**
+     * Get the most recently updated active products, newest first
+     */
+    public List<Product> getRecentlyUpdatedProducts(int limit) {
+        return recentWindows.newest(RecentWindows.Kind.PRODUCTS_UPDATED, limit)
+                .map(this::findInOrder)
+                .orElseGet(() -> productRepository.findRecentlyUpdated(limit));
+    }
+
     /**
      * Get products by category
      */
@@ -175,6 +266,9 @@ public class ProductService {
      * Get products by price range
      */
     public List<Product> getProductsByPriceRange(@NotNull BigDecimal minPrice, @NotNull BigDecimal maxPrice) {
+        if (productColumns.isEnabled()) {
+            return findInOrder(productColumns.getSnapshot().findByPriceRange(minPrice, maxPrice, 0, Integer.MAX_VALUE));
+        }
         return productRepository.findByPriceRange(minPrice, maxPrice);
     }
 
@@ -183,13 +277,94 @@ public class ProductService {
      */
     public List<Product> getProductsByPriceRange(@NotNull BigDecimal minPrice, @NotNull BigDecimal maxPrice, 
                                                 int pageIndex, int pageSize) {
+        if (productColumns.isEnabled()) {
+            return findInOrder(productColumns.getSnapshot()
+                    .findByPriceRange(minPrice, maxPrice, offset(pageIndex, pageSize), pageSize));
+        }
         return productRepository.findByPriceRange(minPrice, maxPrice, Page.of(pageIndex, pageSize));
     }
 
+    /**
+     * Get products of a category by price range with pagination; a null category means all products
+     */
+    public List<Product> getProductsByPriceRange(Long categoryId, @NotNull BigDecimal minPrice,
+                                                @NotNull BigDecimal maxPrice, int pageIndex, int pageSize) {
+        if (categoryId == null) {
+            return getProductsByPriceRange(minPrice, maxPrice, pageIndex, pageSize);
+        }
+        if (productColumns.isEnabled()) {
+            return findInOrder(productColumns.getSnapshot()
+                    .findByPriceRange(categoryId, minPrice, maxPrice, offset(pageIndex, pageSize), pageSize));
+        }
+        return productRepository.findByCategoryAndPriceRange(categoryId, minPrice, maxPrice, Page.of(pageIndex, pageSize));
+    }
+
+    /**
+     * Get the cheapest products of a category (all products for a null category), cheapest first
+     */
+    public List<Product> getCheapestProducts(Long categoryId, int limit) {
+        if (productColumns.isEnabled()) {
+            return findInOrder(productColumns.getSnapshot().findCheapest(categoryId, limit));
+        }
+        return productRepository.findByPriceRank(categoryId, true, limit);
+    }
+
+    /**
+     * Get the most expensive products of a category (all products for a null category), most expensive first
+     */
+    public List<Product> getMostExpensiveProducts(Long categoryId, int limit) {
+        if (productColumns.isEnabled()) {
+            return findInOrder(productColumns.getSnapshot().findMostExpensive(categoryId, limit));
+        }
+        return productRepository.findByPriceRank(categoryId, false, limit);
+    }
+
+    /**
+     * Get active products matching a brand/category/tag/flag filter, ordered by name, with pagination.
+     * Always evaluated against the column snapshot's postings, whatever catalog.product-columns.enabled says.
+     */
+    public List<Product> filterProducts(@NotNull ProductFilter filter, int pageIndex, int pageSize) {
+        return findInOrder(productColumns.getSnapshot().findMatching(filter, offset(pageIndex, pageSize), pageSize));
+    }
+
+    /**
+     * Get active products carrying any or all of the given tags, ordered by id, starting after the
+     * given product id (keyset pagination, pass the last id of the previous page)
+     */
+    public List<Product> getProductsByTags(@NotNull List<String> tags, @NotNull TagMatchMode mode, int first, Long after) {
+        Set<String> names = new HashSet<>(tags);
+        List<Long> tagIds = names.isEmpty() ? List.of() : tagRepository.findIdsByNames(names);
+        // A tag missing from the dictionary matches no product
+        if (tagIds.isEmpty() || (mode == TagMatchMode.ALL && tagIds.size() < names.size())) {
+            return List.of();
+        }
+        return findInOrder(tagRepository.findProductIds(tagIds, mode == TagMatchMode.ALL,
+                after != null ? after : 0L, Math.max(first, 0)));
+    }
+
+    /**
+     * Tags carried by the most active products, highest count first
+     */
+    public List<ProductFacetService.TagCount> getPopularTags(int limit) {
+        if (productColumns.isEnabled()) {
+            return productColumns.getSnapshot().countTags(limit);
+        }
+        if (limit <= 0) {
+            return List.of();
+        }
+        return tagRepository.findPopularTags(limit).stream()
+                .map(row -> new ProductFacetService.TagCount(row.get("name", String.class),
+                        ((Number) row.get("products")).longValue()))
+                .toList();
+    }
+
     /**
      * Get low stock products
      */
     public List<Product> getLowStockProducts() {
+        if (productColumns.isEnabled()) {
+            return findInOrder(productColumns.getSnapshot().findLowStock());
+        }
         return productRepository.findLowStock();
     }
 
@@ -197,6 +372,9 @@ public class ProductService {
      * Get out of stock products
      */
     public List<Product> getOutOfStockProducts() {
+        if (productColumns.isEnabled()) {
+            return findInOrder(productColumns.getSnapshot().findOutOfStock());
+        }
         return productRepository.findOutOfStock();
     }
 
@@ -204,6 +382,9 @@ public class ProductService {
      * Get in stock products
      */
     public List<Product> getInStockProducts() {
+        if (productColumns.isEnabled()) {
+            return findInOrder(productColumns.getSnapshot().findInStock());
+        }
         return productRepository.findInStock();
     }
 
@@ -213,8 +394,11 @@ public class ProductService {
     @Transactional
     public Product activateProduct(@NotNull Long productId) {
         Product product = findProductById(productId);
+        ProductState before = ProductState.of(product);
         product.activate();
         productRepository.persist(product);
+        catalogCounters.productChanged(before, ProductState.of(product));
+        changes.fire(ChangeEvent.of(ChangeEvent.EntityType.PRODUCT, productId, "active"));
         return product;
     }
 
@@ -224,8 +408,11 @@ public class ProductService {
     @Transactional
     public Product deactivateProduct(@NotNull Long productId) {
         Product product = findProductById(productId);
+        ProductState before = ProductState.of(product);
         product.deactivate();
         productRepository.persist(product);
+        catalogCounters.productChanged(before, ProductState.of(product));
+        changes.fire(ChangeEvent.of(ChangeEvent.EntityType.PRODUCT, productId, "active"));
         return product;
     }
 
@@ -235,54 +422,156 @@ public class ProductService {
     @Transactional
     public Product setFeaturedStatus(@NotNull Long productId, boolean featured) {
         Product product = findProductById(productId);
+        ProductState before = ProductState.of(product);
         product.setFeatured(featured);
         productRepository.persist(product);
+        catalogCounters.productChanged(before, ProductState.of(product));
+        changes.fire(ChangeEvent.of(ChangeEvent.EntityType.PRODUCT, productId, "featured"));
         return product;
     }
 
     /**
-     * Update stock quantity
+     * Set the stock quantity by recording the difference to the current level as an adjustment.
+     * Nothing is locked: a decrease is taken with the same conditional UPDATE as a sale and retried
+     * when the level moved in between, and an addition another transaction has not committed yet
+     * stays on top of the level set here.
      */
     @Transactional
     public Product updateStock(@NotNull Long productId, int quantity) {
-        Product product = findProductById(productId);
-        if (!product.trackInventory) {
-            throw new BusinessException("Cannot update stock for product that doesn't track inventory");
+        while (true) {
+            Tuple stock = findStockLevel(productId);
+            if (!stock.get("trackInventory", Boolean.class)) {
+                throw new BusinessException("Cannot update stock for product that doesn't track inventory");
+            }
+            int change = Math.max(0, quantity) - stock.get("stockQuantity", Integer.class);
+            if (change == 0) {
+                return findProductById(productId);
+            }
+            if (change > 0
+                    ? inventoryMovementRepository.add(productId, change, InventoryMovement.Reason.ADJUSTMENT)
+                    : inventoryMovementRepository.take(productId, -change, InventoryMovement.Reason.ADJUSTMENT)) {
+                return stockMoved(productId, change);
+            }
+            // The level moved between the read and the change, try again
         }
-        product.updateStock(quantity);
-        productRepository.persist(product);
-        return product;
     }
 
     /**
-     * Add stock
+     * Add stock by appending a movement, so concurrent additions and checkouts never wait for each other.
+     * In write-behind mode the addition is journaled and buffered instead once the transaction commits,
+     * and the returned product shows the stock before the next flush.
      */
     @Transactional
     public Product addStock(@NotNull Long productId, int quantity) {
-        Product product = findProductById(productId);
-        if (!product.trackInventory) {
+        if (quantity > 0 && stockDeltaBuffer.isEnabled()) {
+            Product product = findProductById(productId);
+            if (!product.trackInventory) {
+                throw new BusinessException("Cannot add stock for product that doesn't track inventory");
+            }
+            stockDeltaBuffer.add(productId, quantity);
+            return product;
+        }
+        if (quantity > 0 && inventoryMovementRepository.add(productId, quantity, InventoryMovement.Reason.RESTOCK)) {
+            return stockMoved(productId, quantity);
+        }
+        Tuple stock = findStockLevel(productId);
+        if (!stock.get("trackInventory", Boolean.class)) {
             throw new BusinessException("Cannot add stock for product that doesn't track inventory");
         }
-        product.addStock(quantity);
-        productRepository.persist(product);
-        return product;
+        return findProductById(productId);
     }
 
     /**
-     * Reduce stock
+     * Reduce stock with one conditional UPDATE that only succeeds while enough stock is left,
+     * so concurrent checkouts can neither lose updates nor oversell
      */
     @Transactional
     public Product reduceStock(@NotNull Long productId, int quantity) {
-        Product product = findProductById(productId);
-        if (!product.trackInventory) {
-            throw new BusinessException("Cannot reduce stock for product that doesn't track inventory");
+        while (true) {
+            if (quantity > 0 && inventoryMovementRepository.take(productId, quantity, InventoryMovement.Reason.SALE)) {
+                return stockMoved(productId, -quantity);
+            }
+            Tuple stock = findStockLevel(productId);
+            int available = stock.get("stockQuantity", Integer.class);
+            if (!stock.get("trackInventory", Boolean.class)) {
+                throw new BusinessException("Cannot reduce stock for product that doesn't track inventory");
+            }
+            if (available < quantity) {
+                throw new BusinessException("Insufficient stock. Available: " + available + ", Requested: " + quantity);
+            }
+            if (quantity <= 0) {
+                return findProductById(productId);
+            }
+            // Stock was added between the UPDATE and the check, try again
         }
-        if (product.stockQuantity < quantity) {
-            throw new BusinessException("Insufficient stock. Available: " + product.stockQuantity + ", Requested: " + quantity);
+    }
+
+    /**
+     * Take confirmed reservations from the product stock with the same conditional UPDATE as a sale,
+     * product by product in id order so concurrent commits cannot deadlock. A product's reservations
+     * are taken together when its stock covers them all, otherwise one by one in order, since other
+     * nodes and direct sales draw on the same stock; returns the reservations that could not be taken
+     * (product gone, no longer tracked, or short of stock).
+     */
+    @Transactional
+    public List<StockReservationService.Reservation> commitReservedStock(
+            @NotNull List<StockReservationService.Reservation> reservations) {
+        Map<Long, List<StockReservationService.Reservation>> byProduct = new TreeMap<>();
+        reservations.forEach(reservation ->
+                byProduct.computeIfAbsent(reservation.productId, id -> new ArrayList<>()).add(reservation));
+
+        List<StockReservationService.Reservation> rejected = new ArrayList<>();
+        byProduct.forEach((productId, productReservations) -> {
+            int quantity = productReservations.stream().mapToInt(reservation -> reservation.quantity).sum();
+            if (!inventoryMovementRepository.take(productId, quantity, InventoryMovement.Reason.RESERVATION)) {
+                quantity = 0;
+                for (StockReservationService.Reservation reservation : productReservations) {
+                    if (inventoryMovementRepository.take(productId, reservation.quantity, InventoryMovement.Reason.RESERVATION)) {
+                        quantity += reservation.quantity;
+                    } else {
+                        rejected.add(reservation);
+                    }
+                }
+            }
+            if (quantity > 0) {
+                stockMoved(productId, -quantity);
+            }
+        });
+        return rejected;
+    }
+
+    /**
+     * Add buffered stock deltas of tracked products with one multi-row movement INSERT, then read
+     * the levels they were added to for the counters
+     */
+    @Transactional
+    public void applyStockDeltas(@NotNull Map<Long, Integer> deltas) {
+        Map<Long, Product> tracked = new HashMap<>();
+        Map<Long, Integer> trackedDeltas = new HashMap<>();
+        for (Product product : productRepository.findByIds(deltas.keySet())) {
+            if (product.trackInventory) {
+                tracked.put(product.id, product);
+                trackedDeltas.put(product.id, deltas.get(product.id));
+            }
         }
-        product.reduceStock(quantity);
-        productRepository.persist(product);
-        return product;
+        if (tracked.isEmpty()) {
+            return;
+        }
+        inventoryMovementRepository.recordAll(trackedDeltas, InventoryMovement.Reason.RESTOCK);
+        productRepository.findStockLevels(tracked.keySet()).forEach((productId, level) -> {
+            ProductState state = ProductState.of(tracked.get(productId));
+            catalogCounters.productChanged(state.withStockQuantity(level - trackedDeltas.get(productId)),
+                    state.withStockQuantity(level));
+            stockReservations.stockChanged(productId);
+            changes.fire(ChangeEvent.of(ChangeEvent.EntityType.PRODUCT, productId, "stockQuantity"));
+        });
+    }
+
+    /**
+     * Stock movements of a product, newest first
+     */
+    public List<InventoryMovement> getInventoryMovements(@NotNull Long productId, int limit) {
+        return inventoryMovementRepository.findByProduct(productId, limit);
     }
 
     /**
@@ -291,51 +580,121 @@ public class ProductService {
     @Transactional
     public void deleteProduct(@NotNull Long productId) {
         Product product = findProductById(productId);
+        ProductState before = ProductState.of(product);
         product.deactivate();
         productRepository.persist(product);
+        catalogCounters.productChanged(before, ProductState.of(product));
+        changes.fire(ChangeEvent.of(ChangeEvent.EntityType.PRODUCT, productId, "active"));
     }
 
     /**
      * Get product statistics
      */
     public ProductStatistics getProductStatistics() {
-        long totalActive = productRepository.countActive();
-        long totalFeatured = productRepository.countFeatured();
-        long totalLowStock = productRepository.countLowStock();
-        long totalOutOfStock = productRepository.countOutOfStock();
-        
-        return new ProductStatistics(totalActive, totalFeatured, totalLowStock, totalOutOfStock);
+        CatalogCounters.Totals totals = catalogCounters.getTotals();
+        return new ProductStatistics(totals.activeProducts, totals.featuredProducts,
+                totals.lowStockProducts, totals.outOfStockProducts);
     }
 
     // Helper methods
+    private Tuple findStockLevel(Long productId) {
+        return productRepository.findStockLevel(productId)
+                .orElseThrow(() -> new EntityNotFoundException("Product not found with ID: " + productId));
+    }
+
+    /**
+     * Load a product after a stock change (refreshed, in case this transaction already held it)
+     * and record the move with the counters
+     */
+    private Product stockMoved(Long productId, int delta) {
+        Product product = findProductById(productId);
+        productRepository.getEntityManager().refresh(product);
+        ProductState after = ProductState.of(product);
+        catalogCounters.productChanged(after.withStockQuantity(after.stockQuantity - delta), after);
+        stockReservations.stockChanged(productId);
+        changes.fire(ChangeEvent.of(ChangeEvent.EntityType.PRODUCT, productId, "stockQuantity"));
+        return product;
+    }
+
+    /**
+     * Load the products of a filter result, keeping the order of the ids.
+     * A product deleted since the snapshot was taken is left out.
+     */
+    private List<Product> findInOrder(List<Long> productIds) {
+        Map<Long, Product> products = new HashMap<>(productIds.size() * 2);
+        for (int from = 0; from < productIds.size(); from += HYDRATE_BATCH_SIZE) {
+            productRepository.findByIds(productIds.subList(from, Math.min(from + HYDRATE_BATCH_SIZE, productIds.size())))
+                    .forEach(product -> products.put(product.id, product));
+        }
+        List<Product> result = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            Product product = products.get(productId);
+            if (product != null) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    private static int offset(int pageIndex, int pageSize) {
+        return (int) Math.min((long) pageIndex * pageSize, Integer.MAX_VALUE);
+    }
+
     private void setProductRelations(Product product) {
         if (product.category != null && product.category.id != null) {
-            product.category = categoryService.findCategoryById(product.category.id);
+            product.category = categoryService.getCategoryReference(product.category.id);
         }
         if (product.brand != null && product.brand.id != null) {
-            product.brand = brandService.findBrandById(product.brand.id);
+            product.brand = brandService.getBrandReference(product.brand.id);
         }
     }
 
+    // Reads the id of a lazy association without initializing it
+    private static boolean sameId(Category category, Long categoryId) {
+        return category != null && category.id != null && category.id.equals(categoryId);
+    }
+
+    private static boolean sameId(Brand brand, Long brandId) {
+        return brand != null && brand.id != null && brand.id.equals(brandId);
+    }
+
     // Validation methods
     private void validateProductForCreation(Product product) {
-        if (product.slug != null && productRepository.existsBySlug(product.slug)) {
+        if (uniqueKeys.mightExist(UniqueKeyFilter.Key.PRODUCT_SLUG, product.slug) && productRepository.existsBySlug(product.slug)) {
             throw new BusinessException("Product with slug '" + product.slug + "' already exists");
         }
-        if (product.sku != null && productRepository.existsBySku(product.sku)) {
+        if (uniqueKeys.mightExist(UniqueKeyFilter.Key.PRODUCT_SKU, product.sku) && productRepository.existsBySku(product.sku)) {
             throw new BusinessException("Product with SKU '" + product.sku + "' already exists");
         }
     }
 
-    private void validateProductForUpdate(Product product, Long productId) {
-        if (product.slug != null && productRepository.existsBySlugExcludingId(product.slug, productId)) {
+    // A slug or SKU the product already holds is unique by the constraint, so only changed ones are checked
+    private void validateProductForUpdate(Product product, Product existingProduct) {
+        if (!Objects.equals(product.slug, existingProduct.slug)
+                && uniqueKeys.mightExist(UniqueKeyFilter.Key.PRODUCT_SLUG, product.slug)
+                && productRepository.existsBySlugExcludingId(product.slug, existingProduct.id)) {
             throw new BusinessException("Product with slug '" + product.slug + "' already exists");
         }
-        if (product.sku != null && productRepository.existsBySkuExcludingId(product.sku, productId)) {
+        if (!Objects.equals(product.sku, existingProduct.sku)
+                && uniqueKeys.mightExist(UniqueKeyFilter.Key.PRODUCT_SKU, product.sku)
+                && productRepository.existsBySkuExcludingId(product.sku, existingProduct.id)) {
             throw new BusinessException("Product with SKU '" + product.sku + "' already exists");
         }
     }
 
+    private void addUniqueKeys(Product product) {
+        uniqueKeys.add(UniqueKeyFilter.Key.PRODUCT_SLUG, product.slug);
+        uniqueKeys.add(UniqueKeyFilter.Key.PRODUCT_SKU, product.sku);
+    }
+
+    /**
+     * How the tags of a productsByTags query combine
+     */
+    public enum TagMatchMode {
+        ANY,    // Products carrying at least one of the tags
+        ALL     // Products carrying every one of the tags
+    }
+
     /**
      * Product statistics data class
      */
@@ -0,0 +1,146 @@
+package org.acme.service;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.vertx.http.runtime.CurrentVertxRequest;
+import io.vertx.core.http.Cookie;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.acme.service.invalidation.ChangeEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+import org.jboss.logging.Logger;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Routes catalog reads between the primary datasource and the read replica.
+ * Reads of a request that are not part of a transaction and ask for {@link #readSession()}
+ * go to the replica; reads inside a transaction stay on the primary. Only the listings of
+ * {@link OptimizedProductService} (and their collection fetching) ask for it; the other query
+ * resolvers use the services' primary sessions. A request that commits a catalog change marks
+ * its client with a cookie, and the client's reads stay on the primary for the sticky window
+ * so it always sees its own writes even when the replica lags.
+ */
+@ApplicationScoped
+public class ReadRouting {
+
+    private static final Logger LOG = Logger.getLogger(ReadRouting.class);
+
+    public static final String PRIMARY_UNTIL_COOKIE = "catalog-read-primary-until";
+
+    private static final String PRIMARY_UNTIL_KEY = "catalog.read-primary-until";
+
+    @Inject
+    Session session;
+
+    @Inject
+    ReplicaSession replicaSession;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    @Inject
+    CurrentVertxRequest currentVertxRequest;
+
+    @ConfigProperty(name = "catalog.read-routing.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "catalog.read-routing.sticky-window", defaultValue = "5s")
+    Duration stickyWindow;
+
+    /**
+     * Session for a read-only query: the replica session when the read may go to the replica,
+     * the primary session otherwise or when the replica cannot be reached
+     */
+    public Session readSession() {
+        if (!routesToReplica()) {
+            return session;
+        }
+        try {
+            return replicaSession.get();
+        } catch (SQLException e) {
+            LOG.warnf("Read replica unavailable, reading from primary: %s", e.getMessage());
+            return session;
+        }
+    }
+
+    /**
+     * Whether a read issued now may be served by the replica
+     */
+    public boolean routesToReplica() {
+        if (!enabled || !Arc.container().requestContext().isActive()) {
+            return false;
+        }
+        if (transactionSynchronizationRegistry.getTransactionStatus() != Status.STATUS_NO_TRANSACTION) {
+            return false;
+        }
+        return System.currentTimeMillis() >= primaryUntil(currentVertxRequest.getCurrent());
+    }
+
+    /**
+     * Make the client of the current HTTP request stick to the primary once its write committed.
+     * Only the services' writes fire change events, so the read-only transactions that rebuild
+     * snapshots and counters do not pin the client; safe methods (GraphQL GET) never do.
+     */
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) ChangeEvent change) {
+        if (!enabled || !Arc.container().requestContext().isActive()) {
+            return;
+        }
+        RoutingContext routingContext = currentVertxRequest.getCurrent();
+        if (routingContext == null) {
+            return;
+        }
+        HttpMethod method = routingContext.request().method();
+        if (method != HttpMethod.GET && method != HttpMethod.HEAD) {
+            stickToPrimary(routingContext);
+        }
+    }
+
+    /**
+     * Make all reads of the request go to the primary, e.g. when the response is tagged with the
+     * catalog version of this node, which a lagging replica may not have reached yet
+     */
+    public void readFromPrimary(RoutingContext routingContext) {
+        routingContext.put(PRIMARY_UNTIL_KEY, Long.MAX_VALUE);
+    }
+
+    private void stickToPrimary(RoutingContext routingContext) {
+        long until = System.currentTimeMillis() + stickyWindow.toMillis();
+        routingContext.put(PRIMARY_UNTIL_KEY, until);
+        if (!routingContext.response().headWritten()) {
+            routingContext.response().addCookie(Cookie.cookie(PRIMARY_UNTIL_COOKIE, Long.toString(until))
+                    .setPath("/")
+                    .setHttpOnly(true)
+                    .setMaxAge(Math.max(1, stickyWindow.toSeconds())));
+        }
+    }
+
+    /**
+     * Epoch millis until which the client of the request reads from the primary, 0 if it does not
+     */
+    private long primaryUntil(RoutingContext routingContext) {
+        if (routingContext == null) {
+            return 0;
+        }
+        Long committed = routingContext.get(PRIMARY_UNTIL_KEY);
+        if (committed != null) {
+            return committed;
+        }
+        Cookie cookie = routingContext.request().getCookie(PRIMARY_UNTIL_COOKIE);
+        if (cookie == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(cookie.getValue());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package org.acme.service;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.Tuple;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.acme.entity.Brand;
+import org.acme.entity.Product;
+import org.acme.repository.BrandRepository;
+import org.acme.repository.ProductRepository;
+import org.acme.service.invalidation.ChangeEvent;
+import org.acme.service.invalidation.RemoteChanges;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Newest-first windows of the active brands and products by creation and by last update, for the
+ * recentlyCreated/recentlyUpdated listings. Each window holds the (timestamp, id) pairs of the
+ * newest size rows, so a listing up to that size reads its ids in O(limit) instead of sorting the
+ * table. Seeded at startup and kept current by the entity listener, which applies the rows the
+ * ORM writes once their transaction commits; bulk statements and changes of other nodes make a
+ * window reload on its next read.
+ */
+@ApplicationScoped
+public class RecentWindows {
+
+    /**
+     * A window: the entity type and the timestamp it is ordered by
+     */
+    public enum Kind {
+        BRANDS_CREATED(ChangeEvent.EntityType.BRAND, "createdAt"),
+        BRANDS_UPDATED(ChangeEvent.EntityType.BRAND, "updatedAt"),
+        PRODUCTS_CREATED(ChangeEvent.EntityType.PRODUCT, "createdAt"),
+        PRODUCTS_UPDATED(ChangeEvent.EntityType.PRODUCT, "updatedAt");
+
+        final ChangeEvent.EntityType entity;
+        final String timestampField;
+
+        Kind(ChangeEvent.EntityType entity, String timestampField) {
+            this.entity = entity;
+            this.timestampField = timestampField;
+        }
+    }
+
+    // Product stock moves by movement INSERTs and native stock_taken UPDATEs, which leave updatedAt alone
+    private static final Set<String> STOCK_FIELDS = Set.of("stockQuantity");
+
+    @Inject
+    BrandRepository brandRepository;
+
+    @Inject
+    ProductRepository productRepository;
+
+    @Inject
+    Session session;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    @ConfigProperty(name = "catalog.recent-windows.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "catalog.recent-windows.size", defaultValue = "100")
+    int size;
+
+    private final Map<Kind, Window> windows = new EnumMap<>(Kind.class);
+
+    public RecentWindows() {
+        for (Kind kind : Kind.values()) {
+            windows.put(kind, new Window());
+        }
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (enabled) {
+            for (Kind kind : Kind.values()) {
+                load(kind);
+            }
+        }
+    }
+
+    /**
+     * Ids of the newest limit active rows of the window, newest first; empty when the window
+     * cannot answer (disabled, or more rows asked for than it holds) and the caller should query
+     */
+    public Optional<List<Long>> newest(Kind kind, int limit) {
+        if (!enabled || limit > size) {
+            return Optional.empty();
+        }
+        Window window = windows.get(kind);
+        List<Long> ids = window.newest(limit);
+        if (ids == null) {
+            ids = load(kind) ? window.newest(limit) : null;
+        }
+        return Optional.ofNullable(ids);
+    }
+
+    /**
+     * Reload the windows of an entity type once the current transaction commits, after bulk statements
+     */
+    public void reloadAfterCommit(ChangeEvent.EntityType entity) {
+        if (transactionSynchronizationRegistry.getTransactionStatus() == Status.STATUS_NO_TRANSACTION) {
+            invalidate(entity);
+            return;
+        }
+        transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    invalidate(entity);
+                }
+            }
+        });
+    }
+
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) ChangeEvent change) {
+        if (change.id == null) {
+            invalidate(change.entity);
+        }
+    }
+
+    void onRemoteChanges(@Observes RemoteChanges remote) {
+        for (ChangeEvent change : remote.changes) {
+            if (change.id == null || change.changedFields.isEmpty() || !STOCK_FIELDS.containsAll(change.changedFields)) {
+                invalidate(change.entity);
+            }
+        }
+    }
+
+    /**
+     * Note a row the ORM inserted or updated; applied after the transaction commits
+     */
+    void written(Object entity) {
+        if (!enabled) {
+            return;
+        }
+        Written written;
+        if (entity instanceof Brand brand) {
+            written = new Written(ChangeEvent.EntityType.BRAND, brand.id, brand.createdAt, brand.updatedAt,
+                    Boolean.TRUE.equals(brand.active));
+        } else if (entity instanceof Product product) {
+            written = new Written(ChangeEvent.EntityType.PRODUCT, product.id, product.createdAt, product.updatedAt,
+                    Boolean.TRUE.equals(product.active));
+        } else {
+            return;
+        }
+        try {
+            // Runs after the session's transaction, also when the write is flushed by the commit itself
+            session.unwrap(SharedSessionContractImplementor.class).registerProcess((success, ignored) -> {
+                if (success) {
+                    apply(written);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Written through another session, e.g. a stateless bulk load
+            invalidate(written.entity);
+        }
+    }
+
+    private void apply(Written written) {
+        for (Kind kind : Kind.values()) {
+            if (kind.entity == written.entity) {
+                LocalDateTime timestamp = kind == Kind.BRANDS_CREATED || kind == Kind.PRODUCTS_CREATED
+                        ? written.createdAt : written.updatedAt;
+                windows.get(kind).put(written.id, timestamp, written.active, size);
+            }
+        }
+    }
+
+    private void invalidate(ChangeEvent.EntityType entity) {
+        for (Kind kind : Kind.values()) {
+            if (kind.entity == entity) {
+                windows.get(kind).invalidate();
+            }
+        }
+    }
+
+    /**
+     * Reload the window; false if it was written or invalidated while loading
+     */
+    private boolean load(Kind kind) {
+        Window window = windows.get(kind);
+        synchronized (window.loadLock) {
+            if (!window.isStale()) {
+                // Reloaded by the read this one waited for
+                return true;
+            }
+            long generation = window.generation();
+            List<Tuple> rows = QuarkusTransaction.requiringNew().call(() -> kind.entity == ChangeEvent.EntityType.BRAND
+                    ? brandRepository.findNewestKeys(kind.timestampField, size)
+                    : productRepository.findNewestKeys(kind.timestampField, size));
+            List<Entry> entries = new ArrayList<>(rows.size());
+            for (Tuple row : rows) {
+                entries.add(new Entry(row.get("at", LocalDateTime.class), row.get("id", Long.class)));
+            }
+            return window.install(entries, rows.size() < size, generation);
+        }
+    }
+
+    private record Written(ChangeEvent.EntityType entity, Long id, LocalDateTime createdAt,
+                           LocalDateTime updatedAt, boolean active) {
+    }
+
+    private record Entry(LocalDateTime timestamp, long id) {
+        // Newest first, ties by descending id like the queries
+        static final Comparator<Entry> NEWEST_FIRST = Comparator.comparing(Entry::timestamp, Comparator.reverseOrder())
+                .thenComparing(Entry::id, Comparator.reverseOrder());
+    }
+
+    /**
+     * The newest rows by one timestamp: always a prefix of the active rows in that order, so rows
+     * older than the last one held are only added when the window holds every active row
+     */
+    private static class Window {
+        final Object loadLock = new Object();
+        // Guarded by the window
+        private final TreeSet<Entry> entries = new TreeSet<>(Entry.NEWEST_FIRST);
+        private final Map<Long, Entry> entriesById = new HashMap<>();
+        private boolean complete;
+        private boolean stale = true;
+        private long generation;
+
+        synchronized List<Long> newest(int limit) {
+            if (stale || (!complete && entries.size() < limit)) {
+                return null;
+            }
+            List<Long> ids = new ArrayList<>(Math.min(limit, entries.size()));
+            for (Entry entry : entries) {
+                if (ids.size() == limit) {
+                    break;
+                }
+                ids.add(entry.id);
+            }
+            return ids;
+        }
+
+        synchronized void put(Long id, LocalDateTime timestamp, boolean active, int size) {
+            generation++;
+            if (stale) {
+                return;
+            }
+            Entry previous = entriesById.remove(id);
+            if (previous != null) {
+                entries.remove(previous);
+            }
+            if (!active || timestamp == null) {
+                return;
+            }
+            Entry entry = new Entry(timestamp, id);
+            if (complete || (!entries.isEmpty() && Entry.NEWEST_FIRST.compare(entry, entries.last()) < 0)) {
+                entries.add(entry);
+                entriesById.put(id, entry);
+                if (entries.size() > size) {
+                    entriesById.remove(entries.pollLast().id);
+                    complete = false;
+                }
+            }
+        }
+
+        synchronized void invalidate() {
+            generation++;
+            stale = true;
+            entries.clear();
+            entriesById.clear();
+        }
+
+        synchronized boolean isStale() {
+            return stale;
+        }
+
+        synchronized long generation() {
+            return generation;
+        }
+
+        synchronized boolean install(List<Entry> loaded, boolean complete, long loadedAt) {
+            if (generation != loadedAt) {
+                // Changed while loading, so the rows may miss the change; reloaded on the next read
+                return false;
+            }
+            entries.clear();
+            entriesById.clear();
+            for (Entry entry : loaded) {
+                entries.add(entry);
+                entriesById.put(entry.id, entry);
+            }
+            this.complete = complete;
+            this.stale = false;
+            return true;
+        }
+    }
+
+    /**
+     * Entity listener of Brand and Product feeding the windows
+     */
+    public static class Listener {
+
+        @PostPersist
+        @PostUpdate
+        void written(Object entity) {
+            Arc.container().instance(RecentWindows.class).get().written(entity);
+        }
+    }
+}
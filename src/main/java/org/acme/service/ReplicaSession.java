@@ -0,0 +1,68 @@
+package org.acme.service;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.agroal.DataSource;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.jboss.logging.Logger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Read-only Hibernate session of the current request on a read replica connection.
+ * Opened on first use and kept until the request ends, so lazy associations of the
+ * entities it returns can still be loaded while the GraphQL response is built.
+ * It reads the second-level cache but never writes to it: the cache is shared with the
+ * primary sessions, which must not be served rows of a lagging replica.
+ */
+@RequestScoped
+public class ReplicaSession {
+
+    private static final Logger LOG = Logger.getLogger(ReplicaSession.class);
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    @DataSource("replica")
+    AgroalDataSource replicaDataSource;
+
+    private Connection connection;
+    private Session session;
+
+    /**
+     * The replica session of this request, opened on first call
+     */
+    public Session get() throws SQLException {
+        if (session == null) {
+            connection = replicaDataSource.getConnection();
+            session = sessionFactory.withOptions()
+                    .connection(connection)
+                    .flushMode(FlushMode.MANUAL)
+                    .openSession();
+            session.setDefaultReadOnly(true);
+            session.setCacheMode(CacheMode.GET);
+        }
+        return session;
+    }
+
+    @PreDestroy
+    void close() {
+        try {
+            if (session != null) {
+                session.close();
+            }
+            if (connection != null) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            LOG.warnf(e, "Failed to release read replica connection");
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.acme.service;
+
+import jakarta.enterprise.context.RequestScoped;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ids of the entities the current request has found, per entity type (see {@link EntityLoader})
+ */
+@RequestScoped
+class RequestEntities {
+
+    // Resolvers of one request may run on different threads, one at a time
+    private final Map<Class<?>, Set<Long>> ids = new HashMap<>();
+
+    synchronized void add(Class<?> type, Long id) {
+        ids.computeIfAbsent(type, ignored -> new HashSet<>()).add(id);
+    }
+
+    synchronized boolean contains(Class<?> type, Long id) {
+        Set<Long> found = ids.get(type);
+        return found != null && found.contains(id);
+    }
+
+    synchronized void clear(Class<?> type) {
+        ids.remove(type);
+    }
+}
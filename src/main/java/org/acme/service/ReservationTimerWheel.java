@@ -0,0 +1,58 @@
+package org.acme.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashed timer wheel for reservation expiry. Scheduling is O(1) and each tick only visits one slot;
+ * an entry due more than one revolution ahead stays in its slot until the pass that reaches its deadline.
+ * Entries are never cancelled: the caller ignores ids that were confirmed or released in the meantime.
+ */
+class ReservationTimerWheel {
+
+    private final List<List<Entry>> slots;
+    private final long tickMillis;
+    private long currentTick;
+
+    ReservationTimerWheel(int slotCount, long tickMillis) {
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.tickMillis = tickMillis;
+    }
+
+    /**
+     * Schedule an id to come out of {@link #advance()} once delayMillis have passed (rounded up to a tick)
+     */
+    synchronized void schedule(String id, long delayMillis) {
+        long deadline = currentTick + Math.max(1, (delayMillis + tickMillis - 1) / tickMillis);
+        slots.get((int) (deadline % slots.size())).add(new Entry(id, deadline));
+    }
+
+    /**
+     * Move the wheel one tick forward and return the ids that are due
+     */
+    synchronized List<String> advance() {
+        currentTick++;
+        int index = (int) (currentTick % slots.size());
+        List<String> due = new ArrayList<>();
+        List<Entry> later = new ArrayList<>();
+        for (Entry entry : slots.get(index)) {
+            if (entry.deadline <= currentTick) {
+                due.add(entry.id);
+            } else {
+                later.add(entry);
+            }
+        }
+        slots.set(index, later);
+        return due;
+    }
+
+    long getTickMillis() {
+        return tickMillis;
+    }
+
+    private record Entry(String id, long deadline) {
+    }
+}
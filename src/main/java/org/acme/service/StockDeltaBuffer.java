@@ -0,0 +1,239 @@
+package org.acme.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.acme.entity.StockJournalCheckpoint;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Opt-in write-behind for stock additions. Each addition is appended to a local journal
+ * and summed per product in memory; every flush interval, or once enough additions are waiting,
+ * the sums are written as one multi-row inventory movement INSERT per chunk of products. Hot SKUs
+ * receiving thousands of additions then cost one ledger row per flush instead of one per call.
+ * The journal segment a flush covers is recorded in the same transaction, so after a crash
+ * the journal is replayed without applying any delta twice.
+ * An addition made inside a transaction is only journaled once that transaction commits.
+ */
+@ApplicationScoped
+public class StockDeltaBuffer {
+
+    private static final Logger LOG = Logger.getLogger(StockDeltaBuffer.class);
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    @ConfigProperty(name = "catalog.stock-write-behind.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "catalog.stock-write-behind.flush-interval", defaultValue = "500ms")
+    Duration flushInterval;
+
+    @ConfigProperty(name = "catalog.stock-write-behind.max-pending", defaultValue = "1000")
+    int maxPending;
+
+    @ConfigProperty(name = "catalog.stock-write-behind.chunk-size", defaultValue = "500")
+    int chunkSize;
+
+    @ConfigProperty(name = "catalog.stock-write-behind.journal-dir", defaultValue = "stock-journal")
+    String journalDirectory;
+
+    @ConfigProperty(name = "catalog.stock-write-behind.journal-fsync", defaultValue = "true")
+    boolean journalFsync;
+
+    @ConfigProperty(name = "catalog.stock-write-behind.node-id", defaultValue = "local")
+    String nodeId;
+
+    private final Map<Long, Integer> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingAdditions = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    // Additions hold the read lock across journal append and map merge; a flush takes the write lock
+    // to rotate the journal and drain the map, so every drained delta is in a closed segment
+    private final ReentrantReadWriteLock rotation = new ReentrantReadWriteLock();
+    private StockDeltaJournal journal;
+    private ScheduledExecutorService scheduler;
+    private volatile FlushStatistics lastFlush;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+        journal = new StockDeltaJournal(Path.of(journalDirectory), journalFsync);
+        Map<Long, Integer> unapplied = journal.open(QuarkusTransaction.requiringNew().call(() -> checkpoint().appliedSegment));
+        if (!unapplied.isEmpty()) {
+            LOG.infof("Replaying stock journal: %d products with unapplied deltas", unapplied.size());
+            pending.putAll(unapplied);
+            pendingAdditions.addAndGet(unapplied.size());
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("stock-write-behind").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::flush, 0, flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (!enabled) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        journal.close();
+    }
+
+    /**
+     * Whether stock additions go through this buffer
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Journal and buffer a stock addition once the current transaction commits (at once without one);
+     * it is durable from then on and reaches the product with the next flush
+     */
+    public void add(Long productId, int quantity) {
+        if (transactionSynchronizationRegistry.getTransactionStatus() == Status.STATUS_NO_TRANSACTION) {
+            append(productId, quantity);
+            return;
+        }
+        transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != Status.STATUS_COMMITTED) {
+                    return;
+                }
+                try {
+                    append(productId, quantity);
+                } catch (RuntimeException e) {
+                    LOG.errorf(e, "Lost committed stock addition of %d to product %d", quantity, productId);
+                }
+            }
+        });
+    }
+
+    private void append(Long productId, int quantity) {
+        rotation.readLock().lock();
+        try {
+            journal.append(productId, quantity);
+            pending.merge(productId, quantity, Integer::sum);
+        } finally {
+            rotation.readLock().unlock();
+        }
+        if (pendingAdditions.incrementAndGet() >= maxPending && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flush);
+        }
+    }
+
+    /**
+     * Write the buffered deltas now; flushes are serialized
+     */
+    public synchronized FlushStatistics flush() {
+        flushRequested.set(false);
+        long startTime = System.nanoTime();
+        long segment;
+        int additions;
+        Map<Long, Integer> deltas = new HashMap<>();
+        rotation.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return lastFlush;
+            }
+            // Runs under scheduleWithFixedDelay, where an escaping exception would cancel every later flush
+            try {
+                segment = journal.rotate();
+            } catch (RuntimeException e) {
+                LOG.errorf(e, "Stock write-behind flush failed to rotate the journal, keeping %d deltas", pending.size());
+                return lastFlush;
+            }
+            additions = pendingAdditions.getAndSet(0);
+            for (Long productId : new ArrayList<>(pending.keySet())) {
+                deltas.put(productId, pending.remove(productId));
+            }
+        } finally {
+            rotation.writeLock().unlock();
+        }
+
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                List<Long> productIds = new ArrayList<>(deltas.keySet());
+                for (int from = 0; from < productIds.size(); from += chunkSize) {
+                    Map<Long, Integer> chunk = new HashMap<>();
+                    productIds.subList(from, Math.min(from + chunkSize, productIds.size()))
+                            .forEach(productId -> chunk.put(productId, deltas.get(productId)));
+                    productService.applyStockDeltas(chunk);
+                }
+                StockJournalCheckpoint checkpoint = checkpoint();
+                checkpoint.appliedSegment = segment;
+                checkpoint.appliedAt = LocalDateTime.now();
+            });
+        } catch (RuntimeException e) {
+            // The deltas stay in their journal segment; the next flush checkpoints a later segment and covers it
+            LOG.errorf(e, "Stock write-behind flush failed, keeping %d deltas", deltas.size());
+            deltas.forEach((productId, delta) -> pending.merge(productId, delta, Integer::sum));
+            pendingAdditions.addAndGet(additions);
+            return lastFlush;
+        }
+        journal.deleteThrough(segment);
+
+        lastFlush = new FlushStatistics(additions, deltas.size(), (System.nanoTime() - startTime) / 1_000_000);
+        return lastFlush;
+    }
+
+    private StockJournalCheckpoint checkpoint() {
+        StockJournalCheckpoint checkpoint = StockJournalCheckpoint.findById(nodeId);
+        if (checkpoint == null) {
+            checkpoint = new StockJournalCheckpoint(nodeId);
+            checkpoint.appliedAt = LocalDateTime.now();
+            checkpoint.persist();
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Flush statistics data class
+     */
+    public static class FlushStatistics {
+        public final int additions;
+        public final int productsWritten;
+        public final long durationMs;
+
+        public FlushStatistics(int additions, int productsWritten, long durationMs) {
+            this.additions = additions;
+            this.productsWritten = productsWritten;
+            this.durationMs = durationMs;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.acme.service;
+
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Local append-only journal of buffered stock deltas, one "productId delta" line per call.
+ * The journal is split into numbered segments: a flush rotates to a new segment and,
+ * once the deltas of the old ones are committed, deletes them.
+ */
+class StockDeltaJournal implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(StockDeltaJournal.class);
+
+    private static final String PREFIX = "stock-deltas-";
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private final boolean fsync;
+    private FileChannel channel;
+    private long segment;
+
+    StockDeltaJournal(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Sum up the deltas of the segments after appliedSegment and start a new segment after them.
+     * Segments up to appliedSegment are already in the database and are deleted.
+     */
+    synchronized Map<Long, Integer> open(long appliedSegment) {
+        try {
+            Files.createDirectories(directory);
+            Map<Long, Integer> unapplied = new TreeMap<>();
+            long lastSegment = appliedSegment;
+            for (long existing : segments()) {
+                lastSegment = Math.max(lastSegment, existing);
+                if (existing <= appliedSegment) {
+                    Files.deleteIfExists(segmentPath(existing));
+                } else {
+                    read(segmentPath(existing), unapplied);
+                }
+            }
+            startSegment(lastSegment + 1);
+            return unapplied;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open stock journal in " + directory, e);
+        }
+    }
+
+    /**
+     * Append a delta; with fsync on it is on disk when this returns
+     */
+    synchronized void append(Long productId, int delta) {
+        ByteBuffer line = ByteBuffer.wrap((productId + " " + delta + "\n").getBytes(StandardCharsets.US_ASCII));
+        try {
+            while (line.hasRemaining()) {
+                channel.write(line);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to stock journal segment " + segment, e);
+        }
+    }
+
+    /**
+     * Close the current segment and start the next one, returns the closed segment
+     */
+    synchronized long rotate() {
+        long closed = segment;
+        try {
+            channel.close();
+            startSegment(closed + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot rotate stock journal segment " + closed, e);
+        }
+        return closed;
+    }
+
+    /**
+     * Delete the closed segments up to and including the given one
+     */
+    synchronized void deleteThrough(long appliedSegment) {
+        try {
+            for (long existing : segments()) {
+                if (existing <= appliedSegment && existing != segment) {
+                    Files.deleteIfExists(segmentPath(existing));
+                }
+            }
+        } catch (IOException e) {
+            LOG.warnf("Cannot delete applied stock journal segments: %s", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            LOG.warnf("Cannot close stock journal segment %d: %s", segment, e.getMessage());
+        }
+    }
+
+    private void startSegment(long next) throws IOException {
+        segment = next;
+        channel = FileChannel.open(segmentPath(next),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Long> segments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .forEach(name -> segments.add(Long.parseLong(
+                            name.substring(PREFIX.length(), name.length() - SUFFIX.length()))));
+        }
+        return segments;
+    }
+
+    private void read(Path path, Map<Long, Integer> deltas) throws IOException {
+        String content = Files.readString(path, StandardCharsets.US_ASCII);
+        // A torn last line from a crash mid-write has no newline and was never acknowledged
+        for (String line : content.substring(0, content.lastIndexOf('\n') + 1).split("\n")) {
+            if (!line.isEmpty()) {
+                String[] fields = line.split(" ");
+                deltas.merge(Long.parseLong(fields[0]), Integer.parseInt(fields[1]), Integer::sum);
+            }
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(PREFIX + String.format("%019d", segment) + SUFFIX);
+    }
+}
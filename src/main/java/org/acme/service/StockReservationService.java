@@ -0,0 +1,509 @@
+package org.acme.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.Tuple;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.acme.repository.ProductRepository;
+import org.acme.service.exception.BusinessException;
+import org.acme.service.exception.EntityNotFoundException;
+import org.acme.service.invalidation.ChangeEvent;
+import org.acme.service.invalidation.RemoteChanges;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Holds stock for checkouts in an in-memory reservation ledger, striped by product id.
+ * Each product's ledger caches its stock level from the database and tracks what is reserved
+ * and what is confirmed but not yet written, so availability checks and reservations are served
+ * from memory. Unconfirmed reservations expire through a timer wheel.
+ * A confirmation is only acknowledged once its quantity is written to the database stock;
+ * confirmations arriving together are written in one transaction (group commit), retried a bounded
+ * number of times, and fail with a BusinessException if the write or the stock falls short.
+ * The ledger is per node: nodes sharing a database can each reserve the same units, so the
+ * conditional stock UPDATE at confirmation is what prevents overselling across nodes.
+ */
+@ApplicationScoped
+public class StockReservationService {
+
+    private static final Logger LOG = Logger.getLogger(StockReservationService.class);
+
+    @Inject
+    ProductRepository productRepository;
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    @ConfigProperty(name = "catalog.reservations.ttl", defaultValue = "10m")
+    Duration reservationTtl;
+
+    @ConfigProperty(name = "catalog.reservations.stripes", defaultValue = "64")
+    int stripeCount;
+
+    @ConfigProperty(name = "catalog.reservations.wheel-tick", defaultValue = "1s")
+    Duration wheelTick;
+
+    @ConfigProperty(name = "catalog.reservations.wheel-slots", defaultValue = "512")
+    int wheelSlots;
+
+    @ConfigProperty(name = "catalog.reservations.confirm-batch-size", defaultValue = "500")
+    int confirmBatchSize;
+
+    @ConfigProperty(name = "catalog.reservations.confirm-max-attempts", defaultValue = "3")
+    int confirmMaxAttempts;
+
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<PendingConfirmation> confirmed = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger confirmedCount = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private Stripe[] stripes;
+    private ReservationTimerWheel timerWheel;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void init() {
+        stripes = new Stripe[Integer.highestOneBit(Math.max(1, stripeCount))];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        timerWheel = new ReservationTimerWheel(wheelSlots, wheelTick.toMillis());
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("stock-reservations").daemon().factory());
+        scheduler.scheduleAtFixedRate(this::expireDue,
+                timerWheel.getTickMillis(), timerWheel.getTickMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushConfirmed();
+    }
+
+    /**
+     * Hold quantity of a product for the reservation TTL
+     */
+    public Reservation reserveStock(Long productId, int quantity) {
+        if (quantity <= 0) {
+            throw new BusinessException("Reservation quantity must be positive, got " + quantity);
+        }
+        Reservation reservation = withLedger(productId, ledger -> {
+            if (!ledger.trackInventory) {
+                throw new BusinessException("Cannot reserve stock for product that doesn't track inventory");
+            }
+            int available = ledger.available();
+            if (available < quantity) {
+                throw new BusinessException("Insufficient stock. Available: " + available + ", Requested: " + quantity);
+            }
+            ledger.reserved += quantity;
+            return new Reservation(UUID.randomUUID().toString(), productId, quantity,
+                    LocalDateTime.now().plus(reservationTtl), ReservationStatus.RESERVED);
+        });
+        reservations.put(reservation.id, reservation);
+        timerWheel.schedule(reservation.id, reservationTtl.toMillis());
+        return reservation;
+    }
+
+    /**
+     * Turn a reservation into a sale; returns once the quantity is taken from the product stock.
+     * If the stock is no longer there the reservation is dropped and a BusinessException thrown;
+     * if the write keeps failing the reservation is kept until it expires so the caller can retry.
+     */
+    public Reservation confirmReservation(String reservationId) {
+        Reservation reservation = removeReservation(reservationId);
+        adjustLedger(reservation.productId, ledger -> {
+            ledger.reserved -= reservation.quantity;
+            ledger.pendingConfirmed += reservation.quantity;
+        });
+        PendingConfirmation confirmation = new PendingConfirmation(reservation, new CompletableFuture<>());
+        confirmed.add(confirmation);
+        confirmedCount.incrementAndGet();
+        requestFlush();
+        try {
+            confirmation.written.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        return reservation.withStatus(ReservationStatus.CONFIRMED);
+    }
+
+    /**
+     * Give the stock of a reservation back
+     */
+    public Reservation releaseReservation(String reservationId) {
+        Reservation reservation = removeReservation(reservationId);
+        release(reservation);
+        return reservation.withStatus(ReservationStatus.RELEASED);
+    }
+
+    /**
+     * Stock that can still be reserved, served from the ledger without a database round trip
+     */
+    public int getAvailableStock(Long productId) {
+        return withLedger(productId, Ledger::available);
+    }
+
+    /**
+     * Reload the cached stock level of a product once the current transaction commits
+     */
+    public void stockChanged(Long productId) {
+        afterCommit(() -> invalidate(productId));
+    }
+
+    /**
+     * Reload every cached stock level once the current transaction commits, after bulk statements
+     */
+    public void invalidateAllAfterCommit() {
+        afterCommit(() -> {
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    stripe.ledgers.values().removeIf(Ledger::invalidate);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reload the stock levels another node changed
+     */
+    void onRemoteChanges(@Observes RemoteChanges remote) {
+        for (ChangeEvent change : remote.of(ChangeEvent.EntityType.PRODUCT)) {
+            if (change.id == null) {
+                invalidateAllAfterCommit();
+            } else if (change.touches("stockQuantity", "trackInventory")) {
+                stockChanged(change.id);
+            }
+        }
+    }
+
+    /**
+     * Write the confirmations queued so far to the product stock, up to confirm-batch-size per transaction
+     */
+    public void flushConfirmed() {
+        synchronized (flushLock) {
+            flushRequested.set(false);
+            List<PendingConfirmation> batch;
+            while (!(batch = nextBatch()).isEmpty()) {
+                write(batch);
+            }
+        }
+    }
+
+    /**
+     * Reservation counts for monitoring
+     */
+    public ReservationStatistics getStatistics() {
+        return new ReservationStatistics(reservations.size(), confirmedCount.get());
+    }
+
+    private void expireDue() {
+        try {
+            for (String reservationId : timerWheel.advance()) {
+                Reservation reservation = reservations.remove(reservationId);
+                if (reservation != null) {
+                    release(reservation);
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Reservation expiry failed", e);
+        }
+    }
+
+    private void requestFlush() {
+        if (!flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            scheduler.execute(this::flushConfirmed);
+        } catch (RejectedExecutionException e) {
+            // Shutting down: write on the caller's thread
+            flushConfirmed();
+        }
+    }
+
+    private List<PendingConfirmation> nextBatch() {
+        List<PendingConfirmation> batch = new ArrayList<>();
+        PendingConfirmation confirmation;
+        while (batch.size() < confirmBatchSize && (confirmation = confirmed.poll()) != null) {
+            batch.add(confirmation);
+        }
+        confirmedCount.addAndGet(-batch.size());
+        return batch;
+    }
+
+    /**
+     * Write one batch and settle its confirmations: written, rejected for lack of stock,
+     * or failed after confirm-max-attempts and put back as reservations
+     */
+    private void write(List<PendingConfirmation> batch) {
+        List<Reservation> batchReservations = batch.stream().map(PendingConfirmation::reservation).toList();
+        List<Reservation> rejected = null;
+        for (int attempt = 1; rejected == null; attempt++) {
+            try {
+                rejected = productService.commitReservedStock(batchReservations);
+            } catch (RuntimeException e) {
+                if (attempt >= confirmMaxAttempts) {
+                    LOG.errorf(e, "Failed to write %d confirmed reservations after %d attempts", batch.size(), attempt);
+                    for (PendingConfirmation confirmation : batch) {
+                        restore(confirmation.reservation);
+                        confirmation.written.completeExceptionally(new BusinessException(
+                                "Could not confirm reservation " + confirmation.reservation.id + ", please retry"));
+                    }
+                    return;
+                }
+                LOG.warnf("Writing %d confirmed reservations failed (attempt %d of %d): %s",
+                        batch.size(), attempt, confirmMaxAttempts, e.getMessage());
+            }
+        }
+
+        Set<Reservation> shortOfStock = new HashSet<>(rejected);
+        for (PendingConfirmation confirmation : batch) {
+            Reservation reservation = confirmation.reservation;
+            adjustLedger(reservation.productId, ledger -> {
+                ledger.pendingConfirmed -= reservation.quantity;
+                ledger.invalidate();
+            });
+            if (shortOfStock.contains(reservation)) {
+                confirmation.written.completeExceptionally(new BusinessException(
+                        "Insufficient stock to confirm reservation " + reservation.id + ", it has been released"));
+            } else {
+                confirmation.written.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Undo a confirmation that could not be written: the reservation holds its stock again until it expires
+     */
+    private void restore(Reservation reservation) {
+        long remainingMillis = Duration.between(LocalDateTime.now(), reservation.expiresAt).toMillis();
+        boolean unexpired = remainingMillis > 0;
+        adjustLedger(reservation.productId, ledger -> {
+            ledger.pendingConfirmed -= reservation.quantity;
+            if (unexpired) {
+                ledger.reserved += reservation.quantity;
+            }
+        });
+        if (unexpired) {
+            reservations.put(reservation.id, reservation);
+            timerWheel.schedule(reservation.id, remainingMillis);
+        }
+    }
+
+    private Reservation removeReservation(String reservationId) {
+        Reservation reservation = reservationId != null ? reservations.remove(reservationId) : null;
+        if (reservation == null) {
+            throw new EntityNotFoundException("Reservation not found or expired: " + reservationId);
+        }
+        return reservation;
+    }
+
+    private void release(Reservation reservation) {
+        adjustLedger(reservation.productId, ledger -> ledger.reserved -= reservation.quantity);
+    }
+
+    private void invalidate(Long productId) {
+        Stripe stripe = stripeFor(productId);
+        synchronized (stripe) {
+            Ledger ledger = stripe.ledgers.get(productId);
+            if (ledger != null && ledger.invalidate()) {
+                stripe.ledgers.remove(productId);
+            }
+        }
+    }
+
+    /**
+     * Change the reservation counts of a product; unlike {@link #withLedger} this needs no stock level,
+     * so releases and confirmations never wait on (or fail with) the database
+     */
+    private void adjustLedger(Long productId, Consumer<Ledger> adjustment) {
+        Stripe stripe = stripeFor(productId);
+        synchronized (stripe) {
+            Ledger ledger = stripe.ledgers.computeIfAbsent(productId, id -> new Ledger());
+            adjustment.accept(ledger);
+            if (!ledger.loaded && ledger.isIdle()) {
+                stripe.ledgers.remove(productId);
+            }
+        }
+    }
+
+    /**
+     * Run an action on the loaded ledger of a product under its stripe lock.
+     * The stock level is read outside the lock and only installed if no invalidation
+     * happened while it was loading; otherwise it is read again.
+     */
+    private <T> T withLedger(Long productId, Function<Ledger, T> action) {
+        Stripe stripe = stripeFor(productId);
+        while (true) {
+            long generation;
+            synchronized (stripe) {
+                Ledger ledger = stripe.ledgers.computeIfAbsent(productId, id -> new Ledger());
+                if (ledger.loaded) {
+                    return action.apply(ledger);
+                }
+                generation = ledger.generation;
+            }
+
+            Optional<Tuple> stockLevel = QuarkusTransaction.requiringNew()
+                    .call(() -> productRepository.findStockLevel(productId));
+            synchronized (stripe) {
+                Ledger ledger = stripe.ledgers.get(productId);
+                if (stockLevel.isEmpty()) {
+                    if (ledger != null && ledger.isIdle()) {
+                        stripe.ledgers.remove(productId);
+                    }
+                    throw new EntityNotFoundException("Product not found with ID: " + productId);
+                }
+                if (ledger != null && ledger.generation == generation) {
+                    ledger.trackInventory = stockLevel.get().get("trackInventory", Boolean.class);
+                    ledger.stockQuantity = stockLevel.get().get("stockQuantity", Integer.class);
+                    ledger.loaded = true;
+                }
+            }
+        }
+    }
+
+    private Stripe stripeFor(Long productId) {
+        return stripes[Long.hashCode(productId) & (stripes.length - 1)];
+    }
+
+    private void afterCommit(Runnable action) {
+        if (transactionSynchronizationRegistry.getTransactionStatus() == Status.STATUS_NO_TRANSACTION) {
+            action.run();
+            return;
+        }
+        transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private record PendingConfirmation(Reservation reservation, CompletableFuture<Void> written) {
+    }
+
+    private static class Stripe {
+        final Map<Long, Ledger> ledgers = new HashMap<>();
+    }
+
+    /**
+     * Reservation state of one product; guarded by its stripe
+     */
+    private static class Ledger {
+        boolean loaded;
+        long generation;
+        boolean trackInventory;
+        int stockQuantity;
+        int reserved;
+        int pendingConfirmed;
+
+        int available() {
+            return Math.max(0, stockQuantity - reserved - pendingConfirmed);
+        }
+
+        boolean isIdle() {
+            return reserved == 0 && pendingConfirmed == 0;
+        }
+
+        /**
+         * Drop the cached stock level, returns whether the ledger holds nothing else and can be removed
+         */
+        boolean invalidate() {
+            loaded = false;
+            generation++;
+            return isIdle();
+        }
+    }
+
+    /**
+     * A hold on product stock
+     */
+    public static class Reservation {
+        public final String id;
+        public final Long productId;
+        public final int quantity;
+        public final LocalDateTime expiresAt;
+        public final ReservationStatus status;
+
+        public Reservation(String id, Long productId, int quantity, LocalDateTime expiresAt, ReservationStatus status) {
+            this.id = id;
+            this.productId = productId;
+            this.quantity = quantity;
+            this.expiresAt = expiresAt;
+            this.status = status;
+        }
+
+        Reservation withStatus(ReservationStatus status) {
+            return new Reservation(id, productId, quantity, expiresAt, status);
+        }
+    }
+
+    /**
+     * Reservation statistics data class
+     */
+    public static class ReservationStatistics {
+        public final long activeReservations;
+        public final long confirmedPendingWrite;
+
+        public ReservationStatistics(long activeReservations, long confirmedPendingWrite) {
+            this.activeReservations = activeReservations;
+            this.confirmedPendingWrite = confirmedPendingWrite;
+        }
+    }
+
+    /**
+     * Enum for reservation states
+     */
+    public enum ReservationStatus {
+        RESERVED,   // Stock is held until the reservation expires
+        CONFIRMED,  // Sold; taken from the product stock
+        RELEASED    // Given back by the caller
+    }
+}
@@ -0,0 +1,214 @@
+package org.acme.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.acme.repository.BrandRepository;
+import org.acme.repository.CategoryRepository;
+import org.acme.repository.ProductRepository;
+import org.acme.service.invalidation.ChangeEvent;
+import org.acme.service.invalidation.RemoteChanges;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bloom filters over the taken values of the unique keys, so a uniqueness check can skip its
+ * query when a value is definitely free; only possible collisions go to the database, and the
+ * unique constraints stay the final guard. Loaded at startup and kept current by the services,
+ * which add every key they write (before commit, so a rollback only leaves a false positive).
+ * Bulk statements and changes of other nodes make a filter reload on its next use.
+ */
+@ApplicationScoped
+public class UniqueKeyFilter {
+
+    private static final int MIN_CAPACITY = 1024;
+
+    /**
+     * A unique key checked by the services
+     */
+    public enum Key {
+        PRODUCT_SLUG(ChangeEvent.EntityType.PRODUCT, "slug", false),
+        PRODUCT_SKU(ChangeEvent.EntityType.PRODUCT, "sku", false),
+        BRAND_NAME(ChangeEvent.EntityType.BRAND, "name", true),
+        CATEGORY_SLUG(ChangeEvent.EntityType.CATEGORY, "slug", false),
+        CATEGORY_NAME(ChangeEvent.EntityType.CATEGORY, "name", true);
+
+        final ChangeEvent.EntityType entity;
+        final String field;
+        final boolean ignoreCase;
+
+        Key(ChangeEvent.EntityType entity, String field, boolean ignoreCase) {
+            this.entity = entity;
+            this.field = field;
+            this.ignoreCase = ignoreCase;
+        }
+
+        // Case-insensitive keys are folded through upper case too, so spellings that only
+        // the database's LOWER() equates still hash alike
+        String normalize(String value) {
+            return ignoreCase ? value.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT) : value;
+        }
+    }
+
+    @Inject
+    ProductRepository productRepository;
+
+    @Inject
+    BrandRepository brandRepository;
+
+    @Inject
+    CategoryRepository categoryRepository;
+
+    @ConfigProperty(name = "catalog.unique-key-filter.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "catalog.unique-key-filter.bits-per-key", defaultValue = "10")
+    int bitsPerKey;
+
+    private final Map<Key, Slot> slots = new EnumMap<>(Key.class);
+
+    public UniqueKeyFilter() {
+        for (Key key : Key.values()) {
+            slots.put(key, new Slot());
+        }
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (enabled) {
+            for (Key key : Key.values()) {
+                load(key);
+            }
+        }
+    }
+
+    /**
+     * False if no row holds the value, true if one may; null values are never taken
+     */
+    public boolean mightExist(Key key, String value) {
+        if (value == null) {
+            return false;
+        }
+        if (!enabled) {
+            return true;
+        }
+        BloomFilter filter = slots.get(key).filter;
+        if (filter == null) {
+            filter = load(key);
+        }
+        return filter == null || filter.mightContain(key.normalize(value));
+    }
+
+    /**
+     * Note a value written to the key; called in the writing transaction
+     */
+    public void add(Key key, String value) {
+        if (value == null || !enabled) {
+            return;
+        }
+        String normalized = key.normalize(value);
+        Slot slot = slots.get(key);
+        synchronized (slot) {
+            if (slot.filter == null) {
+                // Merged into the filter by the reload, which may not see the write yet
+                slot.addedWhileStale.add(normalized);
+                return;
+            }
+            slot.filter.add(normalized);
+            if (slot.filter.isSaturated()) {
+                // Resized by the reload; until then the filter only answers "maybe" more often
+                slot.filter = null;
+            }
+        }
+    }
+
+    /**
+     * Reload the filters of an entity type on their next use
+     */
+    public void invalidate(ChangeEvent.EntityType entity) {
+        for (Key key : Key.values()) {
+            if (key.entity == entity) {
+                invalidate(key);
+            }
+        }
+    }
+
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) ChangeEvent change) {
+        if (change.id == null) {
+            invalidate(change.entity);
+        }
+    }
+
+    void onRemoteChanges(@Observes RemoteChanges remote) {
+        for (ChangeEvent change : remote.changes) {
+            for (Key key : Key.values()) {
+                if (key.entity == change.entity && change.touches(key.field)) {
+                    invalidate(key);
+                }
+            }
+        }
+    }
+
+    private void invalidate(Key key) {
+        Slot slot = slots.get(key);
+        synchronized (slot) {
+            slot.filter = null;
+            slot.addedWhileStale.clear();
+            slot.generation++;
+        }
+    }
+
+    /**
+     * The reloaded filter of the key, null if it was invalidated again while loading
+     */
+    private BloomFilter load(Key key) {
+        Slot slot = slots.get(key);
+        synchronized (slot.loadLock) {
+            BloomFilter current = slot.filter;
+            if (current != null) {
+                return current;
+            }
+            long generation;
+            synchronized (slot) {
+                generation = slot.generation;
+            }
+            List<String> values = QuarkusTransaction.requiringNew().call(() -> switch (key) {
+                case PRODUCT_SLUG -> productRepository.findAllSlugs();
+                case PRODUCT_SKU -> productRepository.findAllSkus();
+                case BRAND_NAME -> brandRepository.findAllNames();
+                case CATEGORY_SLUG -> categoryRepository.findAllSlugs();
+                case CATEGORY_NAME -> categoryRepository.findAllNames();
+            });
+            BloomFilter filter = new BloomFilter(Math.max(MIN_CAPACITY, values.size() * 2), bitsPerKey);
+            for (String value : values) {
+                filter.add(key.normalize(value));
+            }
+            synchronized (slot) {
+                if (slot.generation != generation) {
+                    // Invalidated while loading, so the load may have missed values; reloaded on the next use
+                    return null;
+                }
+                slot.addedWhileStale.forEach(filter::add);
+                slot.addedWhileStale.clear();
+                slot.filter = filter;
+            }
+            System.out.println("Loaded unique key filter " + key + " with " + filter.size() + " values");
+            return filter;
+        }
+    }
+
+    private static class Slot {
+        final Object loadLock = new Object();
+        // Guarded by the slot
+        volatile BloomFilter filter;
+        final List<String> addedWhileStale = new ArrayList<>();
+        long generation;
+    }
+}
@@ -0,0 +1,42 @@
+package org.acme.service.invalidation;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the catalog as seen by this node: bumped after every committed change of this node
+ * and every batch of changes from other nodes. Versions only compare within one run of one node,
+ * so validators built from them include the {@link #instance} token too.
+ */
+@ApplicationScoped
+public class CatalogVersion {
+
+    private final String instance = UUID.randomUUID().toString();
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Token of this run of this node
+     */
+    public String instance() {
+        return instance;
+    }
+
+    /**
+     * The current version; read it before reading the data it describes
+     */
+    public long current() {
+        return version.get();
+    }
+
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) ChangeEvent change) {
+        version.incrementAndGet();
+    }
+
+    void onRemoteChanges(@Observes RemoteChanges remote) {
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,85 @@
+package org.acme.service.invalidation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A change of a catalog entity, fired by the services inside their transaction; the {@link InvalidationBus}
+ * picks it up once the transaction commits and fans it out to the other nodes.
+ * A null id stands for every entity of the type (bulk statements), an empty field set
+ * for a change of any field (creation, deletion, bulk statements).
+ */
+public final class ChangeEvent {
+
+    /**
+     * Kind of the changed entity
+     */
+    public enum EntityType {
+        BRAND,
+        CATEGORY,
+        PRODUCT
+    }
+
+    public final EntityType entity;
+    public final Long id;
+    public final Set<String> changedFields;
+
+    public ChangeEvent(EntityType entity, Long id, Collection<String> changedFields) {
+        this.entity = Objects.requireNonNull(entity);
+        this.id = id;
+        this.changedFields = Set.copyOf(changedFields);
+    }
+
+    /**
+     * Change of the given fields of one entity; no fields means any field
+     */
+    public static ChangeEvent of(EntityType entity, Long id, String... changedFields) {
+        return new ChangeEvent(entity, id, List.of(changedFields));
+    }
+
+    /**
+     * Change of any field of every entity of the type
+     */
+    public static ChangeEvent all(EntityType entity) {
+        return new ChangeEvent(entity, null, List.of());
+    }
+
+    /**
+     * Whether the change may have touched any of the given fields
+     */
+    public boolean touches(String... fields) {
+        if (changedFields.isEmpty()) {
+            return true;
+        }
+        for (String field : fields) {
+            if (changedFields.contains(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This change and a later one of the same entity as one change
+     */
+    ChangeEvent merge(ChangeEvent later) {
+        if (changedFields.isEmpty() || later.changedFields.isEmpty()) {
+            return new ChangeEvent(entity, id, List.of());
+        }
+        Set<String> fields = new TreeSet<>(changedFields);
+        fields.addAll(later.changedFields);
+        return new ChangeEvent(entity, id, fields);
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeEvent{" +
+                "entity=" + entity +
+                ", id=" + id +
+                ", changedFields=" + changedFields +
+                '}';
+    }
+}
@@ -0,0 +1,36 @@
+package org.acme.service.invalidation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Transport between the nodes started in this JVM: a single instance has nobody to tell,
+ * several (tests, embedded setups) receive each other's batches on the publishing thread
+ */
+public class InProcessTransport implements InvalidationTransport {
+
+    private static final List<InProcessTransport> STARTED = new CopyOnWriteArrayList<>();
+
+    private volatile Consumer<List<ChangeEvent>> receiver;
+
+    @Override
+    public void start(Consumer<List<ChangeEvent>> receiver) {
+        this.receiver = receiver;
+        STARTED.add(this);
+    }
+
+    @Override
+    public void publish(List<ChangeEvent> changes) {
+        for (InProcessTransport node : STARTED) {
+            if (node != this) {
+                node.receiver.accept(changes);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        STARTED.remove(this);
+    }
+}
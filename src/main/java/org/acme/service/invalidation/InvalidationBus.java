@@ -0,0 +1,182 @@
+package org.acme.service.invalidation;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans committed catalog changes out to the other nodes. Services fire {@link ChangeEvent}s inside
+ * their transactions; once one commits its events are collected for a coalescing window, changes
+ * of the same entity merged, and published as one batch through the configured transport.
+ * A node receiving a batch evicts the changed entities from the second-level cache and fires
+ * {@link RemoteChanges} for its in-memory caches.
+ */
+@ApplicationScoped
+public class InvalidationBus {
+
+    private static final Logger LOG = Logger.getLogger(InvalidationBus.class);
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    Event<RemoteChanges> remoteChanges;
+
+    // in-process (nodes of this JVM only) or postgresql (LISTEN/NOTIFY, needs a PostgreSQL datasource)
+    @ConfigProperty(name = "catalog.invalidation.transport", defaultValue = "in-process")
+    String transportName;
+
+    @ConfigProperty(name = "quarkus.datasource.jdbc.url")
+    Optional<String> jdbcUrl;
+
+    @ConfigProperty(name = "quarkus.datasource.username")
+    Optional<String> username;
+
+    @ConfigProperty(name = "quarkus.datasource.password")
+    Optional<String> password;
+
+    @ConfigProperty(name = "catalog.invalidation.channel", defaultValue = "catalog_invalidation")
+    String channel;
+
+    @ConfigProperty(name = "catalog.invalidation.node-id")
+    Optional<String> nodeId;
+
+    @ConfigProperty(name = "catalog.invalidation.coalesce-window", defaultValue = "50ms")
+    Duration coalesceWindow;
+
+    // Above this many changes of one entity type in a window, the batch says "all of them changed"
+    @ConfigProperty(name = "catalog.invalidation.max-batch", defaultValue = "500")
+    int maxBatch;
+
+    private final Map<ChangeKey, ChangeEvent> pending = new LinkedHashMap<>();
+    private boolean flushScheduled;
+    private InvalidationTransport transport;
+    private ScheduledExecutorService scheduler;
+
+    void onStart(@Observes StartupEvent event) {
+        transport = switch (transportName) {
+            case "in-process" -> new InProcessTransport();
+            case "postgresql" -> new PostgresNotifyTransport(dataSource,
+                    jdbcUrl.orElseThrow(() -> new IllegalStateException(
+                            "catalog.invalidation.transport=postgresql needs quarkus.datasource.jdbc.url")),
+                    username.orElse(null), password.orElse(null), channel,
+                    nodeId.orElseGet(() -> UUID.randomUUID().toString()));
+            default -> throw new IllegalArgumentException("Unknown invalidation transport: " + transportName);
+        };
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("invalidation-bus").daemon().factory());
+        transport.start(this::receive);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        scheduler.shutdown();
+        flush();
+        transport.stop();
+    }
+
+    /**
+     * Queue a committed change for the next batch
+     */
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) ChangeEvent change) {
+        if (scheduler == null) {
+            return;
+        }
+        synchronized (pending) {
+            pending.merge(new ChangeKey(change.entity, change.id), change, ChangeEvent::merge);
+            if (!flushScheduled) {
+                flushScheduled = true;
+                scheduler.schedule(this::flush, coalesceWindow.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Publish the queued changes now
+     */
+    public void flush() {
+        List<ChangeEvent> batch;
+        synchronized (pending) {
+            batch = coalesce(pending.values(), maxBatch);
+            pending.clear();
+            flushScheduled = false;
+        }
+        if (!batch.isEmpty()) {
+            try {
+                transport.publish(batch);
+            } catch (RuntimeException e) {
+                LOG.warnf("Failed to publish %d catalog changes: %s", batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Changes of an entity type collapse into one change of all of them when there are too many
+     * or when one of them already covers all
+     */
+    static List<ChangeEvent> coalesce(Iterable<ChangeEvent> changes, int maxBatch) {
+        Map<ChangeEvent.EntityType, List<ChangeEvent>> byType = new EnumMap<>(ChangeEvent.EntityType.class);
+        for (ChangeEvent change : changes) {
+            byType.computeIfAbsent(change.entity, type -> new ArrayList<>()).add(change);
+        }
+        List<ChangeEvent> batch = new ArrayList<>();
+        byType.forEach((type, typeChanges) -> {
+            if (typeChanges.size() > maxBatch || typeChanges.stream().anyMatch(change -> change.id == null)) {
+                batch.add(ChangeEvent.all(type));
+            } else {
+                batch.addAll(typeChanges);
+            }
+        });
+        return batch;
+    }
+
+    private void receive(List<ChangeEvent> changes) {
+        Cache cache = sessionFactory.getCache();
+        for (ChangeEvent change : changes) {
+            Class<?> entityClass = switch (change.entity) {
+                case BRAND -> Brand.class;
+                case CATEGORY -> Category.class;
+                case PRODUCT -> Product.class;
+            };
+            if (change.id != null) {
+                cache.evictEntityData(entityClass, change.id);
+            } else {
+                cache.evictEntityData(entityClass);
+            }
+            if (change.entity == ChangeEvent.EntityType.CATEGORY) {
+                cache.evictCollectionData(Category.class.getName() + ".children");
+            }
+        }
+        cache.evictQueryRegions();
+        remoteChanges.fire(new RemoteChanges(changes));
+    }
+
+    private record ChangeKey(ChangeEvent.EntityType entity, Long id) {
+    }
+}
@@ -0,0 +1,26 @@
+package org.acme.service.invalidation;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Carries batches of committed changes between the nodes of a deployment; selected with
+ * catalog.invalidation.transport. A transport never delivers a node's own batches back to it.
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Start handing the batches published by other nodes to the receiver
+     */
+    void start(Consumer<List<ChangeEvent>> receiver);
+
+    /**
+     * Send a batch to every other node
+     */
+    void publish(List<ChangeEvent> changes);
+
+    /**
+     * Stop receiving
+     */
+    void stop();
+}
@@ -0,0 +1,194 @@
+package org.acme.service.invalidation;
+
+import org.jboss.logging.Logger;
+import org.postgresql.Driver;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.postgresql.PGProperty;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Transport over PostgreSQL LISTEN/NOTIFY on one channel, for nodes sharing a database.
+ * A batch goes out as one or more NOTIFY payloads (limited to 8000 bytes), each a line with the
+ * sending node's id followed by one line per change: "PRODUCT 42 price,stockQuantity", "BRAND *".
+ * NOTIFY borrows a pooled connection per batch; LISTEN runs on a dedicated connection opened with
+ * the driver outside the pool, so it never takes a pool slot from requests. Notifications sent while
+ * it is down are lost, so after reconnecting every entity type is reported changed.
+ */
+public class PostgresNotifyTransport implements InvalidationTransport {
+
+    private static final Logger LOG = Logger.getLogger(PostgresNotifyTransport.class);
+
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    private static final int POLL_MILLIS = 500;
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+    private final DataSource dataSource;
+    private final String listenUrl;
+    private final Properties listenProperties;
+    private final String channel;
+    private final String nodeId;
+    private volatile boolean running;
+    private Thread listener;
+
+    /**
+     * Publish through the pool of dataSource and listen on a connection of its own to listenUrl
+     */
+    public PostgresNotifyTransport(DataSource dataSource, String listenUrl, String username, String password,
+                                   String channel, String nodeId) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid notification channel: " + channel);
+        }
+        if (nodeId.isBlank() || nodeId.contains("\n")) {
+            throw new IllegalArgumentException("Invalid node id: " + nodeId);
+        }
+        this.dataSource = dataSource;
+        this.listenUrl = listenUrl;
+        this.listenProperties = new Properties();
+        if (username != null) {
+            PGProperty.USER.set(listenProperties, username);
+        }
+        if (password != null) {
+            PGProperty.PASSWORD.set(listenProperties, password);
+        }
+        PGProperty.APPLICATION_NAME.set(listenProperties, "catalog-invalidation-" + nodeId);
+        PGProperty.TCP_KEEP_ALIVE.set(listenProperties, true);
+        this.channel = channel;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public void start(Consumer<List<ChangeEvent>> receiver) {
+        running = true;
+        listener = Thread.ofPlatform().name("invalidation-listener").daemon().start(() -> listen(receiver));
+    }
+
+    @Override
+    public void publish(List<ChangeEvent> changes) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement notify = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+            for (String payload : encode(nodeId, changes)) {
+                notify.setString(1, channel);
+                notify.setString(2, payload);
+                notify.execute();
+            }
+        } catch (SQLException e) {
+            LOG.warnf("Failed to publish %d catalog changes: %s", changes.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private void listen(Consumer<List<ChangeEvent>> receiver) {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = openListenConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + channel);
+                if (reconnecting) {
+                    deliver(receiver, () -> Arrays.stream(ChangeEvent.EntityType.values()).map(ChangeEvent::all).toList());
+                }
+                PGConnection notifications = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] received = notifications.getNotifications(POLL_MILLIS);
+                    for (PGNotification notification : received != null ? received : new PGNotification[0]) {
+                        String[] lines = notification.getParameter().split("\n");
+                        if (!lines[0].equals(nodeId)) {
+                            deliver(receiver, () -> decode(lines));
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                LOG.warnf("Invalidation listener lost its connection, reconnecting: %s", e.getMessage());
+                reconnecting = true;
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Hand changes to the receiver; a malformed payload or a failing receiver only loses these changes,
+     * not the listener thread
+     */
+    private static void deliver(Consumer<List<ChangeEvent>> receiver, Supplier<List<ChangeEvent>> changes) {
+        try {
+            receiver.accept(changes.get());
+        } catch (RuntimeException e) {
+            LOG.error("Failed to apply received catalog changes", e);
+        }
+    }
+
+    private Connection openListenConnection() throws SQLException {
+        Connection connection = new Driver().connect(listenUrl, listenProperties);
+        if (connection == null) {
+            throw new SQLException("Not a PostgreSQL JDBC URL: " + listenUrl);
+        }
+        return connection;
+    }
+
+    /**
+     * Payloads of a batch, each starting with the node id line and below the NOTIFY size limit
+     */
+    static List<String> encode(String nodeId, List<ChangeEvent> changes) {
+        List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder(nodeId);
+        int bytes = nodeId.getBytes(StandardCharsets.UTF_8).length;
+        boolean empty = true;
+        for (ChangeEvent change : changes) {
+            String line = "\n" + change.entity + " " + (change.id != null ? change.id : "*")
+                    + (change.changedFields.isEmpty() ? "" : " " + String.join(",", change.changedFields));
+            int lineBytes = line.getBytes(StandardCharsets.UTF_8).length;
+            if (!empty && bytes + lineBytes > MAX_PAYLOAD_BYTES) {
+                payloads.add(payload.toString());
+                payload = new StringBuilder(nodeId);
+                bytes = nodeId.getBytes(StandardCharsets.UTF_8).length;
+            }
+            payload.append(line);
+            bytes += lineBytes;
+            empty = false;
+        }
+        if (!empty) {
+            payloads.add(payload.toString());
+        }
+        return payloads;
+    }
+
+    /**
+     * Changes of a payload split into lines, skipping the node id line
+     */
+    static List<ChangeEvent> decode(String[] lines) {
+        List<ChangeEvent> changes = new ArrayList<>(lines.length - 1);
+        for (int i = 1; i < lines.length; i++) {
+            String[] parts = lines[i].split(" ");
+            changes.add(new ChangeEvent(ChangeEvent.EntityType.valueOf(parts[0]),
+                    parts[1].equals("*") ? null : Long.valueOf(parts[1]),
+                    parts.length > 2 ? List.of(parts[2].split(",")) : List.of()));
+        }
+        return changes;
+    }
+}
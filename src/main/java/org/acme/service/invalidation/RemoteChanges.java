@@ -0,0 +1,24 @@
+package org.acme.service.invalidation;
+
+import java.util.List;
+
+/**
+ * Changes committed by another node, fired by the {@link InvalidationBus} when a batch arrives.
+ * Local caches observe it to drop what the other node made stale; changes of this node are
+ * handled where they are made and never come back as RemoteChanges.
+ */
+public final class RemoteChanges {
+
+    public final List<ChangeEvent> changes;
+
+    public RemoteChanges(List<ChangeEvent> changes) {
+        this.changes = List.copyOf(changes);
+    }
+
+    /**
+     * The changes of one entity type
+     */
+    public List<ChangeEvent> of(ChangeEvent.EntityType entity) {
+        return changes.stream().filter(change -> change.entity == entity).toList();
+    }
+}
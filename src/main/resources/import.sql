@@ -72,8 +72,37 @@ INSERT INTO product_images (product_id, image_url) VALUES
 (10, 'https://example.com/sony-wh-1000xm5-1.jpg'),
 (10, 'https://example.com/sony-wh-1000xm5-2.jpg');
 
--- Insert product tags
-INSERT INTO product_tags (product_id, tag) VALUES 
+-- Insert the tag dictionary, then product tags by name
+INSERT INTO tags (name) VALUES 
+('smartphone'),
+('ios'),
+('premium'),
+('camera'),
+('laptop'),
+('professional'),
+('apple-silicon'),
+('portable'),
+('tablet'),
+('creative'),
+('android'),
+('s-pen'),
+('productivity'),
+('shoes'),
+('running'),
+('comfort'),
+('air-max'),
+('shirt'),
+('moisture-wicking'),
+('dri-fit'),
+('boost'),
+('shorts'),
+('training'),
+('headphones'),
+('wireless'),
+('noise-canceling');
+
+INSERT INTO product_tags (product_id, tag_id)
+SELECT v.product_id, t.id FROM (VALUES 
 (1, 'smartphone'),
 (1, 'ios'),
 (1, 'premium'),
@@ -110,7 +139,8 @@ INSERT INTO product_tags (product_id, tag) VALUES
 (10, 'headphones'),
 (10, 'wireless'),
 (10, 'noise-canceling'),
-(10, 'premium');
+(10, 'premium')
+) AS v(product_id, tag) JOIN tags t ON t.name = v.tag;
 
 -- Set sequence values for auto-increment
 ALTER SEQUENCE brands_seq RESTART WITH 6;
@@ -0,0 +1,104 @@
+package org.acme.graphql;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.acme.service.CategoryService;
+import org.acme.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class CategoryGraphQLResourceTest {
+
+    @Inject
+    CategoryService categoryService;
+
+    @Inject
+    ProductService productService;
+
+    private Category root;
+
+    @BeforeEach
+    void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            Product.deleteAll();
+            Category.deleteAll();
+            Brand.deleteAll();
+        });
+        categoryService.invalidateCategoryTree();
+        root = categoryService.createCategory(new Category("Tree Root", "Description"));
+    }
+
+    @Test
+    void testCategoryProductsAreLoadedWhenSelected() {
+        // Given
+        Product product = new Product("Tree Product", new BigDecimal("3.00"));
+        product.category = root;
+        productService.createProduct(product);
+
+        String query = """
+            query {
+                category(id: %d) {
+                    name
+                    products {
+                        name
+                    }
+                }
+            }
+            """.formatted(root.id);
+
+        // When / Then
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"query\":\"" + query.replace("\"", "\\\"").replace("\n", "\\n") + "\"}")
+            .when()
+            .post("/graphql")
+            .then()
+            .statusCode(200)
+            .body("data.category.name", equalTo("Tree Root"))
+            .body("data.category.products.name", contains("Tree Product"));
+    }
+
+    @Test
+    void testHierarchyStopsAtInactiveCategories() {
+        // Given
+        Category inactive = categoryService.createCategory(new Category("Tree Inactive", "Description"), root.id);
+        categoryService.createCategory(new Category("Tree Hidden", "Description"), inactive.id);
+        categoryService.deactivateCategory(inactive.id);
+        Category active = categoryService.createCategory(new Category("Tree Active", "Description"), root.id);
+        categoryService.createCategory(new Category("Tree Grandchild", "Description"), active.id);
+
+        // When
+        List<String> names = categoryService.getCategoryHierarchy(root.id).stream()
+                .map(category -> category.name)
+                .toList();
+
+        // Then
+        assertEquals(List.of("Tree Active", "Tree Grandchild"), names);
+    }
+
+    @Test
+    void testReturnedCategoriesAreCopies() {
+        // Given
+        Category first = categoryService.getCategory(root.id);
+
+        // When
+        first.name = "Changed";
+
+        // Then
+        assertEquals("Tree Root", categoryService.getCategory(root.id).name);
+        assertThrows(UnsupportedOperationException.class, () -> first.children.add(new Category("Added")));
+    }
+}
@@ -0,0 +1,123 @@
+package org.acme.graphql;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.acme.service.BrandService;
+import org.acme.service.ReadRouting;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class GraphQLHttpCachingTest {
+
+    @Inject
+    BrandService brandService;
+
+    @BeforeEach
+    @Transactional
+    void setUp() {
+        Product.deleteAll();
+        Category.deleteAll();
+        Brand.deleteAll();
+        brandService.createBrand(new Brand("Cached Brand", "Cached Description"));
+    }
+
+    @Test
+    void testMatchingIfNoneMatchIsAnsweredWith304() {
+        // Given
+        String etag = given()
+            .queryParam("query", "{ brands { id name } }")
+            .when()
+            .get("/graphql")
+            .then()
+            .statusCode(200)
+            .header("Cache-Control", equalTo("public, max-age=300"))
+            .body("data.brands.name", hasItem("Cached Brand"))
+            .extract().header("ETag");
+
+        // When / Then
+        assertNotNull(etag);
+        given()
+            .queryParam("query", "{ brands { id name } }")
+            .header("If-None-Match", etag)
+            .when()
+            .get("/graphql")
+            .then()
+            .statusCode(304)
+            .header("ETag", equalTo(etag));
+    }
+
+    @Test
+    void testCommittedChangeRevalidatesToNewETag() {
+        // Given
+        String etag = given()
+            .queryParam("query", "{ brands { name } }")
+            .when()
+            .get("/graphql")
+            .then()
+            .statusCode(200)
+            .extract().header("ETag");
+
+        // When
+        brandService.createBrand(new Brand("Newer Brand", "Newer Description"));
+
+        // Then
+        String newEtag = given()
+            .queryParam("query", "{ brands { name } }")
+            .header("If-None-Match", etag)
+            .when()
+            .get("/graphql")
+            .then()
+            .statusCode(200)
+            .body("data.brands.name", hasItem("Newer Brand"))
+            .extract().header("ETag");
+        assertNotEquals(etag, newEtag);
+    }
+
+    @Test
+    void testCacheControlFollowsQueriedTypes() {
+        // Product listings are cached briefly
+        given()
+            .queryParam("query", "{ featuredProducts { id name } }")
+            .when()
+            .get("/graphql")
+            .then()
+            .statusCode(200)
+            .header("Cache-Control", equalTo("public, max-age=10"))
+            .header("ETag", notNullValue());
+
+        // Reservation state is not versioned
+        given()
+            .queryParam("query", "{ reservationStatistics { activeReservations } }")
+            .when()
+            .get("/graphql")
+            .then()
+            .header("Cache-Control", equalTo("no-store"))
+            .header("ETag", nullValue());
+    }
+
+    @Test
+    void testTaggedResponsesCarryNoReadRoutingCookie() {
+        // Given - a client still sticky to the primary after a write
+        String until = Long.toString(System.currentTimeMillis() + 60_000);
+
+        // When / Then
+        given()
+            .cookie(ReadRouting.PRIMARY_UNTIL_COOKIE, until)
+            .queryParam("query", "{ featuredProducts { id name } }")
+            .when()
+            .get("/graphql")
+            .then()
+            .statusCode(200)
+            .header("Cache-Control", equalTo("public, max-age=10"))
+            .header("Set-Cookie", nullValue());
+    }
+}
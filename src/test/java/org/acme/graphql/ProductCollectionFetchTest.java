@@ -0,0 +1,116 @@
+package org.acme.graphql;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class ProductCollectionFetchTest {
+
+    private static final int PRODUCT_COUNT = 30;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @BeforeEach
+    @Transactional
+    void setUp() {
+        // Clean up any existing test data in correct order
+        Product.deleteAll();
+        Category.deleteAll();
+        Brand.deleteAll();
+
+        Brand brand = new Brand("Fetch Brand");
+        brand.persist();
+        Category category = new Category("Fetch Category");
+        category.persist();
+
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            Product product = new Product("Fetch Product " + i, new BigDecimal("10.00"), category, brand);
+            product.sku = "FETCH-" + i;
+            product.imageUrls = List.of("https://example.com/" + i + "-1.jpg", "https://example.com/" + i + "-2.jpg");
+            product.tags = List.of("tag-a", "tag-" + i);
+            product.persist();
+        }
+    }
+
+    @Test
+    void testPaginatedListingWithCollectionsUsesBatchFetch() {
+        String query = """
+            query {
+                productsWithPagination(pageIndex: 0, pageSize: 30) {
+                    id
+                    name
+                    imageUrls
+                    tags
+                }
+            }
+            """;
+
+        // Page query plus one query per collection
+        assertStatementCount(query, "productsWithPagination", 3);
+    }
+
+    @Test
+    void testUnpaginatedListingWithCollectionsUsesSubselectFetch() {
+        String query = """
+            query {
+                products {
+                    id
+                    name
+                    imageUrls
+                    tags
+                }
+            }
+            """;
+
+        // Listing query plus one subselect per collection
+        assertStatementCount(query, "products", 3);
+    }
+
+    @Test
+    void testListingWithoutCollectionsLoadsNoCollections() {
+        String query = """
+            query {
+                productsWithPagination(pageIndex: 0, pageSize: 30) {
+                    id
+                    name
+                }
+            }
+            """;
+
+        assertStatementCount(query, "productsWithPagination", 1);
+    }
+
+    private void assertStatementCount(String query, String field, long maxStatements) {
+        long before = sessionFactory.getStatistics().getPrepareStatementCount();
+
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"query\":\"" + query.replace("\"", "\\\"").replace("\n", "\\n") + "\"}")
+            .when()
+            .post("/graphql")
+            .then()
+            .statusCode(200)
+            .body("errors", nullValue())
+            .body("data." + field, hasSize(PRODUCT_COUNT));
+
+        long statements = sessionFactory.getStatistics().getPrepareStatementCount() - before;
+        assertTrue(statements <= maxStatements,
+            "Expected at most " + maxStatements + " SQL statements but got " + statements);
+    }
+}
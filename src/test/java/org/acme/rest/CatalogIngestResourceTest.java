@@ -0,0 +1,74 @@
+package org.acme.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.transaction.Transactional;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+@QuarkusTest
+class CatalogIngestResourceTest {
+
+    @BeforeEach
+    @Transactional
+    void setUp() {
+        // Clean up any existing test data in correct order
+        Product.deleteAll();
+        Category.deleteAll();
+        Brand.deleteAll();
+    }
+
+    @Test
+    void testIngestAcceptsBodiesOverTheGlobalLimit() {
+        // Given - about 50K, over the global 16K and under the ingest route's 64K
+        String csv = csv(1500);
+
+        // When / Then
+        given()
+            .contentType(CatalogIngestResource.TEXT_CSV)
+            .body(csv)
+            .when()
+            .post(CatalogIngestResource.PATH)
+            .then()
+            .statusCode(200)
+            .body("rowsWritten", equalTo(1500));
+    }
+
+    @Test
+    void testIngestRejectsBodiesOverItsOwnLimit() {
+        given()
+            .contentType(CatalogIngestResource.TEXT_CSV)
+            .body(csv(4000))
+            .when()
+            .post(CatalogIngestResource.PATH)
+            .then()
+            .statusCode(413);
+    }
+
+    @Test
+    void testOtherRoutesKeepTheGlobalLimit() {
+        String padding = " ".repeat(32 * 1024);
+
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"query\":\"{ brands { id } }" + padding + "\"}")
+            .when()
+            .post("/graphql")
+            .then()
+            .statusCode(413);
+    }
+
+    private static String csv(int rows) {
+        StringBuilder csv = new StringBuilder("sku,name,price,stock_quantity\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("ROUTE-").append(i).append(",Route Widget ").append(i).append(",1.00,1\n");
+        }
+        return csv.toString();
+    }
+}
@@ -0,0 +1,125 @@
+package org.acme.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class CatalogCountersTest {
+
+    @Inject
+    CatalogCounters catalogCounters;
+
+    @Inject
+    BrandService brandService;
+
+    @Inject
+    CategoryService categoryService;
+
+    @Inject
+    ProductService productService;
+
+    private Long brandId;
+    private Long categoryId;
+    private Long productId;
+
+    @BeforeEach
+    @Transactional
+    void setUp() {
+        // Clean up any existing test data in correct order
+        Product.deleteAll();
+        Category.deleteAll();
+        Brand.deleteAll();
+        catalogCounters.recountAfterCommit();
+
+        Brand brand = brandService.createBrand(new Brand("Counted Brand", "Counted Description"));
+        Category category = categoryService.createCategory(new Category("Counted Category", "Counted Description"));
+        Product product = new Product("Counted Product", new BigDecimal("9.99"), category, brand);
+        product.sku = "COUNTED-1";
+        product.stockQuantity = 20;
+        productService.createProduct(product);
+
+        brandId = brand.id;
+        categoryId = category.id;
+        productId = product.id;
+    }
+
+    @Test
+    void testCountersFollowServiceWrites() {
+        // Given
+        CatalogCounters.Totals totals = catalogCounters.getTotals();
+        assertEquals(1, totals.activeProducts);
+        assertEquals(1, totals.brandsWithProducts);
+        assertEquals(1, totals.categoriesWithProducts);
+        assertEquals(1, totals.rootCategories);
+
+        // When
+        productService.setFeaturedStatus(productId, true);
+        productService.updateStock(productId, 0);
+
+        // Then
+        totals = catalogCounters.getTotals();
+        assertEquals(1, totals.featuredProducts);
+        assertEquals(1, totals.lowStockProducts);
+        assertEquals(1, totals.outOfStockProducts);
+
+        // When
+        productService.deactivateProduct(productId);
+
+        // Then
+        ProductService.ProductStatistics productStatistics = productService.getProductStatistics();
+        assertEquals(0, productStatistics.totalActive);
+        assertEquals(0, productStatistics.totalFeatured);
+        BrandService.BrandStatistics brandStatistics = brandService.getBrandStatistics();
+        assertEquals(1, brandStatistics.totalActive);
+        assertEquals(0, brandStatistics.totalWithProducts);
+        assertEquals(1, brandStatistics.totalWithoutProducts);
+    }
+
+    @Test
+    void testCountersMatchRecount() {
+        // Given
+        productService.addStock(productId, 5);
+        brandService.deactivateBrand(brandId);
+        Category child = categoryService.createCategory(new Category("Counted Child", "Child Description"), categoryId);
+        categoryService.moveCategory(child.id, null);
+
+        // When
+        CatalogCounters.Totals incremental = catalogCounters.getTotals();
+        CatalogCounters.Totals recounted = catalogCounters.recount();
+
+        // Then
+        assertEquals(recounted.activeProducts, incremental.activeProducts);
+        assertEquals(recounted.lowStockProducts, incremental.lowStockProducts);
+        assertEquals(0, incremental.activeBrands);
+        assertEquals(recounted.brandsWithProducts, incremental.brandsWithProducts);
+        assertEquals(2, incremental.rootCategories);
+        assertEquals(recounted.rootCategories, incremental.rootCategories);
+        assertEquals(recounted.categoriesWithProducts, incremental.categoriesWithProducts);
+    }
+
+    @Test
+    void testHardDeletesMakeTheCountersRecount() {
+        // Given
+        assertEquals(1, catalogCounters.getTotals().activeProducts);
+
+        // When - a bulk delete, not going through the services
+        QuarkusTransaction.requiringNew().run(() -> Product.deleteAll());
+
+        // Then
+        CatalogCounters.Totals totals = catalogCounters.getTotals();
+        assertEquals(0, totals.activeProducts);
+        assertEquals(0, totals.brandsWithProducts);
+        assertEquals(0, totals.categoriesWithProducts);
+    }
+}
@@ -0,0 +1,117 @@
+package org.acme.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.acme.service.CatalogIngestService.IngestFormat;
+import org.acme.service.CatalogIngestService.IngestReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class CatalogIngestServiceTest {
+
+    @Inject
+    CatalogIngestService catalogIngestService;
+
+    @Inject
+    BrandService brandService;
+
+    @Inject
+    CategoryService categoryService;
+
+    @BeforeEach
+    @Transactional
+    void setUp() {
+        // Clean up any existing test data in correct order
+        Product.deleteAll();
+        Category.deleteAll();
+        Brand.deleteAll();
+
+        brandService.createBrand(new Brand("Ingest Brand", "Ingest Description"));
+        Category category = new Category("Ingest Category", "Ingest Description");
+        category.slug = "ingest-category";
+        categoryService.createCategory(category);
+    }
+
+    @Test
+    void testCsvIngestValidatesAndDedupesBySku() {
+        // Given
+        String csv = """
+                sku,name,price,stock_quantity,brand,category,tags
+                INGEST-1,First Widget,10.00,5,Ingest Brand,ingest-category,red|blue
+                INGEST-2,Broken Widget,-1,5,Ingest Brand,ingest-category,
+                INGEST-3,Orphan Widget,12.50,5,No Such Brand,ingest-category,
+                INGEST-1,"First Widget, Revised",11.00,7,ingest brand,Ingest Category,green
+                INGEST-4,Second Widget,20.00,,,,
+                """;
+
+        // When
+        IngestReport report = ingest(csv, IngestFormat.CSV);
+
+        // Then
+        assertEquals(5, report.rowsRead);
+        assertEquals(2, report.rowsWritten);
+        assertEquals(3, report.rowsRejected);
+        assertEquals(List.of(3L, 4L, 2L), report.rejects.stream().map(reject -> reject.line).toList());
+        assertTrue(report.rejects.get(2).reason.startsWith("Duplicate SKU"));
+
+        QuarkusTransaction.requiringNew().run(() -> {
+            Product revised = Product.findBySku("INGEST-1");
+            assertEquals("First Widget, Revised", revised.name);
+            assertEquals(0, new BigDecimal("11.00").compareTo(revised.price));
+            assertEquals(7, revised.stockQuantity);
+            assertEquals("Ingest Brand", revised.brand.name);
+            assertEquals("Ingest Category", revised.category.name);
+            assertEquals(List.of("green"), revised.tags);
+
+            Product second = Product.findBySku("INGEST-4");
+            assertEquals(0, second.stockQuantity);
+            assertNull(second.brand);
+            assertTrue(second.active);
+            assertNull(Product.findBySku("INGEST-2"));
+        });
+    }
+
+    @Test
+    void testNdjsonIngestUpsertsExistingProducts() {
+        // Given
+        ingest("""
+                {"sku": "INGEST-5", "name": "Gadget", "price": 5.25, "tags": ["one", "two"]}
+                """, IngestFormat.NDJSON);
+
+        // When
+        IngestReport report = ingest("""
+                {"sku": "INGEST-5", "name": "Gadget Pro", "price": 6.75, "featured": true, "tags": ["three"]}
+                not json
+                """, IngestFormat.NDJSON);
+
+        // Then
+        assertEquals(1, report.rowsWritten);
+        assertEquals(1, report.rowsRejected);
+        assertEquals(2, report.rejects.get(0).line);
+
+        QuarkusTransaction.requiringNew().run(() -> {
+            assertEquals(1, Product.count("sku", "INGEST-5"));
+            Product product = Product.findBySku("INGEST-5");
+            assertEquals("Gadget Pro", product.name);
+            assertTrue(product.featured);
+            assertEquals(List.of("three"), product.tags);
+        });
+    }
+
+    private IngestReport ingest(String body, IngestFormat format) {
+        return catalogIngestService.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format);
+    }
+}
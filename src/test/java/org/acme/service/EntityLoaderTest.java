@@ -0,0 +1,110 @@
+package org.acme.service;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class EntityLoaderTest {
+
+    @Inject
+    EntityLoader entityLoader;
+
+    @Inject
+    BrandService brandService;
+
+    @Inject
+    CategoryService categoryService;
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    UniqueKeyFilter uniqueKeys;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    private Brand brand;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            Product.deleteAll();
+            Category.deleteAll();
+            Brand.deleteAll();
+        });
+        brand = brandService.createBrand(new Brand("Loader Brand", "Description"));
+        category = categoryService.createCategory(new Category("Loader Category", "Description"));
+    }
+
+    @Test
+    void testRowsFoundByTheRequestAreReferencedWithoutLoading() {
+        // Given - the category was found earlier in the request and has left the second-level cache
+        long loadsBefore = inRequest(() -> {
+            categoryService.findCategoryById(category.id);
+            sessionFactory.getCache().evictEntityData(Category.class);
+            long loads = sessionFactory.getStatistics().getEntityLoadCount();
+
+            // When - a later transaction of the request wires it as a foreign key target
+            Category reference = QuarkusTransaction.requiringNew().call(() -> entityLoader.reference(Category.class, category.id).orElseThrow());
+
+            // Then
+            assertFalse(Hibernate.isInitialized(reference));
+            return loads;
+        });
+        assertEquals(loadsBefore, sessionFactory.getStatistics().getEntityLoadCount());
+
+        // A new request loads the row to check that it exists
+        inRequest(() -> QuarkusTransaction.requiringNew().call(() -> entityLoader.reference(Category.class, category.id).orElseThrow()));
+        assertEquals(loadsBefore + 1, sessionFactory.getStatistics().getEntityLoadCount());
+    }
+
+    @Test
+    void testUnchangedKeysAndRelationsAreNotLookedUp() {
+        // Given
+        Product product = new Product("Loader Product", new BigDecimal("9.99"), category, brand);
+        product.sku = "LOADER-1";
+        product = productService.createProduct(product);
+        assertTrue(uniqueKeys.mightExist(UniqueKeyFilter.Key.PRODUCT_SLUG, product.slug));
+        Product productData = new Product("Loader Product", new BigDecimal("12.50"), category, brand);
+        productData.sku = product.sku;
+        productData.slug = product.slug;
+        long queriesBefore = sessionFactory.getStatistics().getQueryExecutionCount();
+
+        // When
+        Product updated = productService.updateProduct(product.id, productData);
+
+        // Then - slug and SKU are its own, brand and category unchanged: no existence queries
+        assertEquals(queriesBefore, sessionFactory.getStatistics().getQueryExecutionCount());
+        assertEquals(0, new BigDecimal("12.50").compareTo(updated.price));
+    }
+
+    private static <T> T inRequest(java.util.function.Supplier<T> work) {
+        // A thread of its own, so the request context is a fresh one
+        return CompletableFuture.supplyAsync(() -> {
+            ManagedContext requestContext = Arc.container().requestContext();
+            requestContext.activate();
+            try {
+                return work.get();
+            } finally {
+                requestContext.terminate();
+            }
+        }).join();
+    }
+}
@@ -0,0 +1,109 @@
+package org.acme.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.InventoryMovement;
+import org.acme.entity.Product;
+import org.acme.service.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class InventoryCompactorTest {
+
+    @Inject
+    InventoryCompactor inventoryCompactor;
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    CatalogCounters catalogCounters;
+
+    private Long productId;
+
+    @BeforeEach
+    @Transactional
+    void setUp() {
+        // Clean up any existing test data in correct order
+        Product.deleteAll();
+        Category.deleteAll();
+        Brand.deleteAll();
+        catalogCounters.recountAfterCommit();
+
+        Product product = new Product("Ledger Product", new BigDecimal("12.50"), null, null);
+        product.sku = "LEDGER-1";
+        product.stockQuantity = 50;
+        productService.createProduct(product);
+        productId = product.id;
+    }
+
+    @Test
+    void testStockChangesAreAppendedToLedger() {
+        // When
+        productService.addStock(productId, 30);
+        productService.reduceStock(productId, 45);
+        productService.updateStock(productId, 20);
+
+        // Then
+        assertEquals(20, reload().stockQuantity);
+        List<InventoryMovement> movements = productService.getInventoryMovements(productId, 10);
+        assertEquals(List.of(InventoryMovement.Reason.ADJUSTMENT, InventoryMovement.Reason.SALE, InventoryMovement.Reason.RESTOCK),
+                movements.stream().map(movement -> movement.reason).toList());
+        assertEquals(List.of(-15, -45, 30), movements.stream().map(movement -> movement.quantityChange).toList());
+    }
+
+    @Test
+    void testCompactionFoldsMovementsIntoSnapshot() {
+        // Given
+        productService.addStock(productId, 10);
+        productService.reduceStock(productId, 25);
+
+        // When - no stock change is in flight, so nothing has to age past the horizon
+        inventoryCompactor.compact(Duration.ZERO);
+
+        // Then
+        Product compacted = reload();
+        assertEquals(35, compacted.stockQuantity);
+        assertEquals(35, compacted.stockSnapshot);
+        assertEquals(0, compacted.stockTaken);
+        assertEquals(productService.getInventoryMovements(productId, 1).get(0).id, compacted.stockMovementId);
+
+        // When
+        productService.addStock(productId, 5);
+
+        // Then
+        assertEquals(40, reload().stockQuantity);
+        assertEquals(35, reload().stockSnapshot);
+    }
+
+    @Test
+    void testCompactionLeavesRecentMovementsAndTakingsAlone() {
+        // Given
+        productService.reduceStock(productId, 20);
+
+        // When
+        inventoryCompactor.compact(Duration.ofMinutes(10));
+
+        // Then
+        Product product = reload();
+        assertEquals(30, product.stockQuantity);
+        assertEquals(50, product.stockSnapshot);
+        assertEquals(20, product.stockTaken);
+        assertThrows(BusinessException.class, () -> productService.reduceStock(productId, 31));
+    }
+
+    private Product reload() {
+        return QuarkusTransaction.requiringNew().call(() -> productService.findProductById(productId));
+    }
+}
@@ -0,0 +1,228 @@
+package org.acme.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.Tuple;
+import jakarta.transaction.Transactional;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.acme.repository.TagRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class ProductColumnIndexTest {
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    CatalogCounters catalogCounters;
+
+    @Inject
+    BrandService brandService;
+
+    @Inject
+    CategoryService categoryService;
+
+    @Inject
+    ProductFacetService productFacetService;
+
+    @Inject
+    TagRepository tagRepository;
+
+    private Long appleId;
+    private Long bananaId;
+    private Long cherryId;
+
+    @BeforeEach
+    @Transactional
+    void setUp() {
+        // Clean up any existing test data in correct order
+        Product.deleteAll();
+        Category.deleteAll();
+        Brand.deleteAll();
+        catalogCounters.recountAfterCommit();
+
+        appleId = createProduct("Apple", "3.50", 10);
+        bananaId = createProduct("Banana", "1.25", 0);
+        cherryId = createProduct("Cherry", "7.00", 3);
+    }
+
+    @Test
+    void testFiltersFollowCommittedChanges() {
+        // Given
+        productService.setFeaturedStatus(cherryId, true);
+        productService.setFeaturedStatus(appleId, true);
+        productService.reduceStock(appleId, 8);
+
+        // When
+        List<Product> featured = productService.getFeaturedProducts();
+        List<Product> lowStock = productService.getLowStockProducts();
+        productService.deactivateProduct(bananaId);
+        List<Product> outOfStock = productService.getOutOfStockProducts();
+
+        // Then
+        assertEquals(List.of(appleId, cherryId), ids(featured));
+        assertEquals(List.of(bananaId, appleId, cherryId), ids(lowStock));
+        assertEquals(2, lowStock.get(1).stockQuantity);
+        assertTrue(outOfStock.isEmpty());
+        assertEquals(List.of(appleId, cherryId), ids(productService.getInStockProducts()));
+    }
+
+    @Test
+    void testPriceRangeIsPagedInPriceOrder() {
+        // Given
+        Product banana = productService.findProductById(bananaId);
+        banana.price = new BigDecimal("9.99");
+        productService.updateProduct(bananaId, banana);
+
+        // When
+        List<Product> all = productService.getProductsByPriceRange(new BigDecimal("3.50"), new BigDecimal("10"));
+        List<Product> secondPage = productService.getProductsByPriceRange(new BigDecimal("0"), new BigDecimal("100"), 1, 2);
+
+        // Then
+        assertEquals(List.of(appleId, cherryId, bananaId), ids(all));
+        assertEquals(List.of(bananaId), ids(secondPage));
+    }
+
+    @Test
+    void testCategoryPriceOrderFollowsPriceChanges() {
+        // Given
+        Category category = categoryService.createCategory(new Category("Orchard Fruit", "Orchard fruit"));
+        Product apple = productService.findProductById(appleId);
+        apple.category = category;
+        productService.updateProduct(appleId, apple);
+        Product cherry = productService.findProductById(cherryId);
+        cherry.category = category;
+        productService.updateProduct(cherryId, cherry);
+        assertEquals(List.of(appleId, cherryId), ids(productService.getCheapestProducts(category.id, 5)));
+
+        // When
+        cherry = productService.findProductById(cherryId);
+        cherry.price = new BigDecimal("2.00");
+        productService.updateProduct(cherryId, cherry);
+
+        // Then
+        assertEquals(List.of(cherryId, appleId), ids(productService.getCheapestProducts(category.id, 5)));
+        assertEquals(List.of(appleId), ids(productService.getMostExpensiveProducts(category.id, 1)));
+        assertEquals(List.of(appleId), ids(productService.getMostExpensiveProducts(null, 1)));
+        assertEquals(List.of(appleId), ids(productService.getProductsByPriceRange(
+                category.id, new BigDecimal("1.00"), new BigDecimal("5.00"), 1, 10)));
+    }
+
+    @Test
+    void testFilterCombinesPostings() {
+        // Given
+        Brand brand = brandService.createBrand(new Brand("Orchard", "Fruit brand"));
+        Category category = categoryService.createCategory(new Category("Stone Fruit", "Stone fruit"));
+        Product cherry = productService.findProductById(cherryId);
+        cherry.brand = brand;
+        cherry.category = category;
+        cherry.tags = List.of("red", "summer");
+        productService.updateProduct(cherryId, cherry);
+        Product apple = productService.findProductById(appleId);
+        apple.brand = brand;
+        apple.tags = List.of("red");
+        productService.updateProduct(appleId, apple);
+        productService.setFeaturedStatus(bananaId, true);
+
+        // When
+        List<Product> redFromBrand = productService.filterProducts(
+                new ProductFilter(List.of(brand.id), null, List.of("red"), null, null, null, null, null, null), 0, 20);
+        ProductFilter summerOrFeatured = new ProductFilter(null, null, null, null, null, null, null, null, List.of(
+                new ProductFilter(null, List.of(category.id), List.of("summer"), null, null, null, null, null, null),
+                new ProductFilter(null, null, null, true, null, null, null, null, null)));
+        List<Product> anyOf = productService.filterProducts(summerOrFeatured, 0, 20);
+        List<Product> secondPage = productService.filterProducts(ProductFilter.ALL, 1, 2);
+
+        // Then
+        assertEquals(List.of(appleId, cherryId), ids(redFromBrand));
+        assertEquals(List.of(bananaId, cherryId), ids(anyOf));
+        assertEquals(List.of(cherryId), ids(secondPage));
+    }
+
+    @Test
+    void testFacetsCountMatchingProducts() {
+        // Given
+        Brand brand = brandService.createBrand(new Brand("Orchard", "Fruit brand"));
+        Product apple = productService.findProductById(appleId);
+        apple.brand = brand;
+        apple.tags = List.of("red", "crisp");
+        productService.updateProduct(appleId, apple);
+        Product cherry = productService.findProductById(cherryId);
+        cherry.brand = brand;
+        cherry.tags = List.of("red");
+        productService.updateProduct(cherryId, cherry);
+
+        // When
+        ProductFacetService.ProductFacets facets = productFacetService.getFacets(ProductFilter.ALL);
+        ProductFacetService.ProductFacets inStock = productFacetService.getFacets(
+                new ProductFilter(null, null, null, null, true, null, null, null, null));
+
+        // Then
+        assertEquals(3, facets.total);
+        assertEquals(1, facets.brands.size());
+        assertEquals(2, facets.brands.get(0).count);
+        assertEquals("red", facets.tags.get(0).tag);
+        assertEquals(2, facets.tags.get(0).count);
+        assertEquals(3, facets.priceBuckets.get(0).count);
+        assertEquals(2, inStock.total);
+        assertSame(inStock, productFacetService.getFacets(
+                new ProductFilter(null, null, null, null, true, null, null, List.of(), null)));
+    }
+
+    @Test
+    void testProductsByTagsUsesTagDictionary() {
+        // Given
+        Product apple = productService.findProductById(appleId);
+        apple.tags = List.of("red", "crisp", "red");
+        productService.updateProduct(appleId, apple);
+        Product cherry = productService.findProductById(cherryId);
+        cherry.tags = List.of("red");
+        productService.updateProduct(cherryId, cherry);
+
+        // When
+        List<Product> anyTag = productService.getProductsByTags(
+                List.of("crisp", "red"), ProductService.TagMatchMode.ANY, 20, null);
+        List<Product> allTags = productService.getProductsByTags(
+                List.of("crisp", "red"), ProductService.TagMatchMode.ALL, 20, null);
+        List<Product> afterApple = productService.getProductsByTags(
+                List.of("red"), ProductService.TagMatchMode.ANY, 1, appleId);
+        List<ProductFacetService.TagCount> popular = productService.getPopularTags(1);
+        List<Tuple> popularRows = tagRepository.findPopularTags(1);
+
+        // Then
+        QuarkusTransaction.requiringNew().run(() ->
+                assertEquals(List.of("red", "crisp"), productService.findProductById(appleId).tags));
+        assertEquals(List.of(appleId, cherryId), ids(anyTag));
+        assertEquals(List.of(appleId), ids(allTags));
+        assertEquals(List.of(cherryId), ids(afterApple));
+        assertTrue(productService.getProductsByTags(List.of("unknown"), ProductService.TagMatchMode.ANY, 20, null).isEmpty());
+        assertEquals(1, popular.size());
+        assertEquals("red", popular.get(0).tag);
+        assertEquals(2, popular.get(0).count);
+        assertEquals(1, popularRows.size());
+        assertEquals("red", popularRows.get(0).get("name"));
+        assertEquals(2L, ((Number) popularRows.get(0).get("products")).longValue());
+    }
+
+    private Long createProduct(String name, String price, int stock) {
+        Product product = new Product(name, new BigDecimal(price), null, null);
+        product.sku = name.toUpperCase() + "-COL";
+        product.stockQuantity = stock;
+        productService.createProduct(product);
+        return product.id;
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(product -> product.id).toList();
+    }
+}
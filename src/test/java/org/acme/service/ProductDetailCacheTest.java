@@ -0,0 +1,113 @@
+package org.acme.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class ProductDetailCacheTest {
+
+    @Inject
+    ProductDetailCache productDetailCache;
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    BrandService brandService;
+
+    @Inject
+    CategoryService categoryService;
+
+    @Inject
+    CacheStatisticsService cacheStatisticsService;
+
+    private Long brandId;
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            Product.deleteAll();
+            Category.deleteAll();
+            Brand.deleteAll();
+        });
+        productDetailCache.invalidateAll();
+
+        Brand brand = brandService.createBrand(new Brand("Detail Brand", "Description"));
+        Category category = categoryService.createCategory(new Category("Detail Category", "Description"));
+        Product product = new Product("Detail Product", new BigDecimal("49.99"), category, brand);
+        product.sku = "DETAIL-1";
+        product.imageUrls = List.of("https://example.com/detail.jpg");
+        product.tags = List.of("detail", "hot");
+        productService.createProduct(product);
+        brandId = brand.id;
+        productId = product.id;
+    }
+
+    @Test
+    void testHotProductsAreServedWithoutSql() {
+        // Given
+        productDetailCache.getProduct(productId);
+        long statementsBefore = cacheStatisticsService.getPreparedStatementCount();
+
+        // When
+        Product byId = productDetailCache.getProduct(productId);
+        Product bySku = productDetailCache.findProductBySku("DETAIL-1").orElseThrow();
+        Product bySlug = productDetailCache.findProductBySlug(byId.slug).orElseThrow();
+
+        // Then
+        assertEquals(statementsBefore, cacheStatisticsService.getPreparedStatementCount());
+        assertEquals(productId, bySku.id);
+        assertEquals(productId, bySlug.id);
+        assertEquals("Detail Brand", byId.brand.name);
+        assertEquals("Detail Category", byId.category.name);
+        assertEquals(List.of("https://example.com/detail.jpg"), byId.imageUrls);
+        assertTrue(byId.tags.containsAll(List.of("detail", "hot")));
+    }
+
+    @Test
+    void testEveryReadGetsItsOwnCopy() {
+        // Given
+        Product first = productDetailCache.getProduct(productId);
+
+        // When
+        first.name = "Changed by the caller";
+        first.brand.name = "Changed by the caller";
+
+        // Then
+        Product second = productDetailCache.getProduct(productId);
+        assertEquals("Detail Product", second.name);
+        assertEquals("Detail Brand", second.brand.name);
+    }
+
+    @Test
+    void testCommittedChangesEvictTheirEntries() {
+        // Given
+        productDetailCache.getProduct(productId);
+
+        // When
+        productService.setFeaturedStatus(productId, true);
+        brandService.updateBrand(brandId, new Brand("Renamed Detail Brand", "Description"));
+
+        // Then
+        Product product = productDetailCache.getProduct(productId);
+        assertTrue(product.featured);
+        assertEquals("Renamed Detail Brand", product.brand.name);
+    }
+
+    @Test
+    void testUnknownSkuIsNotFound() {
+        assertTrue(productDetailCache.findProductBySku("NO-SUCH-SKU").isEmpty());
+    }
+}
@@ -0,0 +1,159 @@
+package org.acme.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.transaction.Transactional;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.acme.service.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class ProductStockConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int INITIAL_STOCK = 500;
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    CatalogCounters catalogCounters;
+
+    private Long productId;
+
+    @BeforeEach
+    @Transactional
+    void setUp() {
+        // Clean up any existing test data in correct order
+        Product.deleteAll();
+        Category.deleteAll();
+        Brand.deleteAll();
+        catalogCounters.recountAfterCommit();
+
+        Product product = new Product("Hot Product", new BigDecimal("19.99"), null, null);
+        product.sku = "HOT-SKU";
+        product.stockQuantity = INITIAL_STOCK;
+        productService.createProduct(product);
+        productId = product.id;
+    }
+
+    @Test
+    void testConcurrentCheckoutsNeverOversell() throws Exception {
+        // Given
+        int attemptsPerThread = 100;
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        // When
+        long elapsedNanos = runConcurrently(THREADS, attemptsPerThread, thread -> {
+            try {
+                productService.reduceStock(productId, 1);
+                sold.incrementAndGet();
+            } catch (BusinessException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        // Then
+        report("reduceStock", THREADS * attemptsPerThread, elapsedNanos);
+        assertEquals(INITIAL_STOCK, sold.get());
+        assertEquals(THREADS * attemptsPerThread - INITIAL_STOCK, rejected.get());
+        assertEquals(0, reload().stockQuantity);
+        assertEquals(1, catalogCounters.getTotals().outOfStockProducts);
+    }
+
+    @Test
+    void testConcurrentAdditionsAndCheckoutsLoseNoUpdates() throws Exception {
+        // Given
+        int operationsPerThread = 100;
+
+        // When
+        long elapsedNanos = runConcurrently(THREADS, operationsPerThread, thread -> {
+            if (thread % 2 == 0) {
+                productService.addStock(productId, 2);
+            } else {
+                productService.reduceStock(productId, 1);
+            }
+        });
+
+        // Then
+        report("addStock/reduceStock", THREADS * operationsPerThread, elapsedNanos);
+        int added = THREADS / 2 * operationsPerThread * 2;
+        int taken = THREADS / 2 * operationsPerThread;
+        assertEquals(INITIAL_STOCK + added - taken, reload().stockQuantity);
+    }
+
+    @Test
+    void testUpdateBasedOnStaleVersionIsRejected() {
+        // Given
+        Product current = reload();
+        Long readVersion = current.version;
+        productService.updateProduct(productId, changes("Hot Product Renamed", readVersion));
+
+        // When & Then
+        assertThrows(OptimisticLockException.class,
+                () -> productService.updateProduct(productId, changes("Hot Product Overwritten", readVersion)));
+        Product updated = reload();
+        assertEquals("Hot Product Renamed", updated.name);
+        assertEquals(readVersion + 1, updated.version);
+    }
+
+    private Product reload() {
+        return QuarkusTransaction.requiringNew().call(() -> productService.findProductById(productId));
+    }
+
+    private Product changes(String name, Long version) {
+        Product productData = new Product(name, new BigDecimal("21.99"), null, null);
+        productData.sku = "HOT-SKU";
+        productData.version = version;
+        return productData;
+    }
+
+    private long runConcurrently(int threads, int operationsPerThread, ThreadOperation operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int threadIndex = thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < operationsPerThread; i++) {
+                        operation.run(threadIndex);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void report(String operation, int mutations, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        System.out.printf("%s on one SKU: %d mutations from %d threads in %.2fs (%.0f mutations/s)%n",
+                operation, mutations, THREADS, seconds, mutations / seconds);
+    }
+
+    @FunctionalInterface
+    private interface ThreadOperation {
+        void run(int thread);
+    }
+}
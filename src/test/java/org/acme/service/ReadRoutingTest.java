@@ -0,0 +1,105 @@
+package org.acme.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.enterprise.context.control.ActivateRequestContext;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class ReadRoutingTest {
+
+    @Inject
+    ReadRouting readRouting;
+
+    @Inject
+    CategoryService categoryService;
+
+    @BeforeEach
+    @Transactional
+    void setUp() {
+        // Clean up any existing test data in correct order
+        Product.deleteAll();
+        Category.deleteAll();
+        Brand.deleteAll();
+
+        Product product = new Product("Routed Product", new BigDecimal("15.00"), null, null);
+        product.sku = "ROUTED-1";
+        product.persist();
+    }
+
+    @Test
+    @ActivateRequestContext
+    void testReadsOutsideTransactionUseReplica() {
+        // When
+        Session replica = readRouting.readSession();
+
+        // Then
+        assertTrue(readRouting.routesToReplica());
+        assertTrue(replica.isDefaultReadOnly());
+        assertEquals(CacheMode.GET, replica.getCacheMode());
+        assertEquals("Routed Product", replica.createSelectionQuery(
+                "FROM Product WHERE sku = :sku", Product.class).setParameter("sku", "ROUTED-1").getSingleResult().name);
+
+        QuarkusTransaction.requiringNew().run(() -> assertFalse(readRouting.routesToReplica()));
+    }
+
+    @Test
+    void testMutationMakesClientStickToPrimary() {
+        // Given
+        String query = "query { productsBasic(pageIndex: 0, pageSize: 10) { sku } }";
+        String mutation = "mutation { createBrand(input: { name: \\\"Routed Brand\\\" }) { id } }";
+
+        // When / Then
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"query\":\"" + query + "\"}")
+            .when()
+            .post("/graphql")
+            .then()
+            .statusCode(200)
+            .body("data.productsBasic.sku", contains("ROUTED-1"))
+            .header("Set-Cookie", nullValue());
+
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"query\":\"" + mutation + "\"}")
+            .when()
+            .post("/graphql")
+            .then()
+            .statusCode(200)
+            .body("data.createBrand.id", notNullValue())
+            .cookie(ReadRouting.PRIMARY_UNTIL_COOKIE, notNullValue());
+    }
+
+    @Test
+    void testReadOnlyTransactionsDoNotStick() {
+        // Given - the next read rebuilds the category tree in a transaction of its own
+        categoryService.invalidateCategoryTree();
+        String query = "query { categories { id } }";
+
+        // When / Then
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"query\":\"" + query + "\"}")
+            .when()
+            .post("/graphql")
+            .then()
+            .statusCode(200)
+            .header("Set-Cookie", nullValue());
+    }
+}
@@ -0,0 +1,93 @@
+package org.acme.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.acme.repository.ProductRepository;
+import org.acme.service.invalidation.ChangeEvent;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class RecentWindowsTest {
+
+    @Inject
+    RecentWindows recentWindows;
+
+    @Inject
+    BrandService brandService;
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    ProductRepository productRepository;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @BeforeEach
+    void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            Product.deleteAll();
+            Category.deleteAll();
+            Brand.deleteAll();
+        });
+        // Deleted by statements, so the windows reload
+        recentWindows.reloadAfterCommit(ChangeEvent.EntityType.BRAND);
+        recentWindows.reloadAfterCommit(ChangeEvent.EntityType.PRODUCT);
+    }
+
+    @Test
+    void testCommittedWritesReachTheWindowsWithoutQueries() {
+        // Given
+        Brand first = brandService.createBrand(new Brand("Window Brand A", "Description"));
+        Brand second = brandService.createBrand(new Brand("Window Brand B", "Description"));
+        Brand third = brandService.createBrand(new Brand("Window Brand C", "Description"));
+        brandService.getRecentlyCreatedBrands(1);
+        brandService.getRecentlyUpdatedBrands(1);
+        brandService.updateBrand(first.id, new Brand("Window Brand A2", "Description"));
+        long queriesBefore = sessionFactory.getStatistics().getQueryExecutionCount();
+
+        // When
+        List<Brand> created = brandService.getRecentlyCreatedBrands(2);
+        List<Brand> updated = brandService.getRecentlyUpdatedBrands(1);
+
+        // Then
+        assertEquals(List.of(third.id, second.id), created.stream().map(brand -> brand.id).toList());
+        assertEquals(List.of(first.id), updated.stream().map(brand -> brand.id).toList());
+        assertEquals(queriesBefore, sessionFactory.getStatistics().getQueryExecutionCount());
+    }
+
+    @Test
+    void testWindowsMatchTheTableAfterDeactivation() {
+        // Given
+        Long deactivatedId = null;
+        for (int i = 0; i < 5; i++) {
+            Product product = productService.createProduct(new Product("Window Product " + i, new BigDecimal("5.00")));
+            if (i == 3) {
+                deactivatedId = product.id;
+            }
+        }
+        productService.getRecentlyCreatedProducts(1);
+
+        // When
+        productService.deactivateProduct(deactivatedId);
+
+        // Then
+        List<Long> fromWindow = productService.getRecentlyCreatedProducts(4).stream().map(product -> product.id).toList();
+        List<Long> fromTable = QuarkusTransaction.requiringNew().call(() -> productRepository.findRecentlyCreated(4)
+                .stream().map(product -> product.id).toList());
+        assertEquals(fromTable, fromWindow);
+        assertFalse(fromWindow.contains(deactivatedId));
+    }
+}
@@ -0,0 +1,130 @@
+package org.acme.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class ReferenceDataCacheTest {
+
+    @Inject
+    BrandService brandService;
+
+    @Inject
+    CategoryService categoryService;
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    CacheStatisticsService cacheStatisticsService;
+
+    private Long brandId;
+    private Long categoryId;
+    private Long productId;
+
+    @BeforeEach
+    @Transactional
+    void setUp() {
+        // Clean up any existing test data in correct order
+        Product.deleteAll();
+        Category.deleteAll();
+        Brand.deleteAll();
+
+        Brand brand = brandService.createBrand(new Brand("Cached Brand", "Cached Description"));
+        Category category = categoryService.createCategory(new Category("Cached Category", "Cached Description"));
+        Product product = new Product("Cached Product", new BigDecimal("19.99"), category, brand);
+        product.sku = "CACHED-1";
+        productService.createProduct(product);
+
+        brandId = brand.id;
+        categoryId = category.id;
+        productId = product.id;
+    }
+
+    @Test
+    void testHotBrandAndCategoryLookupsAreServedWithoutSql() {
+        // Given - first lookup populates the second-level cache
+        QuarkusTransaction.requiringNew().run(() -> {
+            brandService.findBrandById(brandId);
+            categoryService.findCategoryById(categoryId);
+        });
+        long statementsBefore = cacheStatisticsService.getPreparedStatementCount();
+        long brandHitsBefore = cacheStatisticsService.getCacheStatistics().get("org.acme.entity.Brand").hitCount;
+
+        // When - every lookup runs in a fresh persistence context
+        for (int i = 0; i < 10; i++) {
+            QuarkusTransaction.requiringNew().run(() -> {
+                assertEquals("Cached Brand", brandService.findBrandById(brandId).name);
+                assertEquals("Cached Category", categoryService.findCategoryById(categoryId).name);
+            });
+        }
+
+        // Then
+        assertEquals(statementsBefore, cacheStatisticsService.getPreparedStatementCount());
+        assertTrue(cacheStatisticsService.getCacheStatistics().get("org.acme.entity.Brand").hitCount >= brandHitsBefore + 10);
+    }
+
+    @Test
+    void testProductRelationsResolveFromCache() {
+        // Given
+        QuarkusTransaction.requiringNew().run(() -> {
+            brandService.findBrandById(brandId);
+            categoryService.findCategoryById(categoryId);
+        });
+        long brandHitsBefore = cacheStatisticsService.getCacheStatistics().get("org.acme.entity.Brand").hitCount;
+        long categoryHitsBefore = cacheStatisticsService.getCacheStatistics().get("org.acme.entity.Category").hitCount;
+
+        // When - loading the product itself needs SQL, its brand and category do not
+        QuarkusTransaction.requiringNew().run(() -> {
+            Product product = productService.findProductById(productId);
+            long statementsBefore = cacheStatisticsService.getPreparedStatementCount();
+            assertEquals("Cached Brand", product.brand.name);
+            assertEquals("Cached Category", product.category.name);
+            assertEquals(statementsBefore, cacheStatisticsService.getPreparedStatementCount());
+        });
+
+        // Then
+        assertTrue(cacheStatisticsService.getCacheStatistics().get("org.acme.entity.Brand").hitCount > brandHitsBefore);
+        assertTrue(cacheStatisticsService.getCacheStatistics().get("org.acme.entity.Category").hitCount > categoryHitsBefore);
+    }
+
+    @Test
+    void testActiveBrandListIsServedFromQueryCache() {
+        // Given - warm the query cache (twice, so the result is newer than the setup commit)
+        QuarkusTransaction.requiringNew().run(() -> brandService.getAllActiveBrands());
+        QuarkusTransaction.requiringNew().run(() -> brandService.getAllActiveBrands());
+        long statementsBefore = cacheStatisticsService.getPreparedStatementCount();
+
+        // When
+        QuarkusTransaction.requiringNew().run(() -> assertEquals(1, brandService.getAllActiveBrands().size()));
+
+        // Then
+        assertEquals(statementsBefore, cacheStatisticsService.getPreparedStatementCount());
+        assertTrue(cacheStatisticsService.getCacheStatistics().get(CacheStatisticsService.QUERY_RESULTS_REGION).hitCount > 0);
+    }
+
+    @Test
+    void testBrandUpdateIsVisibleThroughCache() {
+        // Given
+        QuarkusTransaction.requiringNew().run(() -> brandService.findBrandById(brandId));
+
+        // When
+        Brand updateData = new Brand("Renamed Brand", "Renamed Description");
+        brandService.updateBrand(brandId, updateData);
+
+        // Then
+        QuarkusTransaction.requiringNew().run(() ->
+            assertEquals("Renamed Brand", brandService.findBrandById(brandId).name));
+    }
+}
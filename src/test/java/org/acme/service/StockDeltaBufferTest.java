@@ -0,0 +1,128 @@
+package org.acme.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+@TestProfile(StockDeltaBufferTest.WriteBehindProfile.class)
+class StockDeltaBufferTest {
+
+    @Inject
+    StockDeltaBuffer stockDeltaBuffer;
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    CatalogCounters catalogCounters;
+
+    private Long hotProductId;
+    private Long coldProductId;
+
+    @BeforeEach
+    @Transactional
+    void setUp() {
+        // Clean up any existing test data in correct order
+        Product.deleteAll();
+        Category.deleteAll();
+        Brand.deleteAll();
+        catalogCounters.recountAfterCommit();
+
+        hotProductId = createProduct("HOT-SKU", 0);
+        coldProductId = createProduct("COLD-SKU", 5);
+    }
+
+    @Test
+    void testAdditionsAreCoalescedIntoOneFlush() {
+        // Given
+        for (int i = 0; i < 300; i++) {
+            productService.addStock(hotProductId, 2);
+        }
+        productService.addStock(coldProductId, 1);
+        assertEquals(0, reload(hotProductId).stockQuantity);
+
+        // When
+        StockDeltaBuffer.FlushStatistics flush = stockDeltaBuffer.flush();
+
+        // Then
+        assertEquals(301, flush.additions);
+        assertEquals(2, flush.productsWritten);
+        assertEquals(600, reload(hotProductId).stockQuantity);
+        assertEquals(6, reload(coldProductId).stockQuantity);
+        assertEquals(0, catalogCounters.getTotals().outOfStockProducts);
+    }
+
+    @Test
+    void testRolledBackAdditionsAreNotBuffered() {
+        // Given
+        assertThrows(RuntimeException.class, () -> QuarkusTransaction.requiringNew().run(() -> {
+            productService.addStock(hotProductId, 7);
+            throw new IllegalStateException("checkout failed");
+        }));
+
+        // When
+        stockDeltaBuffer.flush();
+
+        // Then
+        assertEquals(0, reload(hotProductId).stockQuantity);
+    }
+
+    @Test
+    void testJournalReplaysOnlyUnappliedSegments(@TempDir Path directory) {
+        // Given
+        try (StockDeltaJournal journal = new StockDeltaJournal(directory, false)) {
+            journal.open(0);
+            journal.append(1L, 5);
+            long applied = journal.rotate();
+            journal.append(1L, 3);
+            journal.append(2L, 4);
+            journal.append(1L, 1);
+
+            // When
+            try (StockDeltaJournal reopened = new StockDeltaJournal(directory, false)) {
+                Map<Long, Integer> unapplied = reopened.open(applied);
+
+                // Then
+                assertEquals(Map.of(1L, 4, 2L, 4), unapplied);
+            }
+        }
+    }
+
+    private Long createProduct(String sku, int stock) {
+        Product product = new Product(sku, new BigDecimal("4.99"), null, null);
+        product.sku = sku;
+        product.stockQuantity = stock;
+        productService.createProduct(product);
+        return product.id;
+    }
+
+    private Product reload(Long productId) {
+        return QuarkusTransaction.requiringNew().call(() -> productService.findProductById(productId));
+    }
+
+    public static class WriteBehindProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "catalog.stock-write-behind.enabled", "true",
+                    "catalog.stock-write-behind.flush-interval", "1h",
+                    "catalog.stock-write-behind.journal-dir", "target/stock-journal-" + System.nanoTime());
+        }
+    }
+}
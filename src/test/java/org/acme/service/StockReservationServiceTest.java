@@ -0,0 +1,142 @@
+package org.acme.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.acme.service.StockReservationService.Reservation;
+import org.acme.service.StockReservationService.ReservationStatus;
+import org.acme.service.exception.BusinessException;
+import org.acme.service.exception.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class StockReservationServiceTest {
+
+    @Inject
+    StockReservationService stockReservationService;
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    CatalogCounters catalogCounters;
+
+    private Long productId;
+
+    @BeforeEach
+    @Transactional
+    void setUp() {
+        // Clean up any existing test data in correct order
+        Product.deleteAll();
+        Category.deleteAll();
+        Brand.deleteAll();
+        catalogCounters.recountAfterCommit();
+        stockReservationService.invalidateAllAfterCommit();
+
+        Product product = new Product("Flash Sale Product", new BigDecimal("9.99"), null, null);
+        product.sku = "FLASH-1";
+        product.stockQuantity = 10;
+        productService.createProduct(product);
+        productId = product.id;
+    }
+
+    @Test
+    void testConfirmedReservationIsTakenFromStock() {
+        // Given
+        Reservation reservation = stockReservationService.reserveStock(productId, 4);
+
+        // When
+        Reservation confirmed = stockReservationService.confirmReservation(reservation.id);
+
+        // Then - written before the confirmation returns
+        assertEquals(ReservationStatus.CONFIRMED, confirmed.status);
+        assertEquals(6, reload().stockQuantity);
+        assertEquals(6, stockReservationService.getAvailableStock(productId));
+        assertEquals(0, stockReservationService.getStatistics().confirmedPendingWrite);
+    }
+
+    @Test
+    void testConfirmationFailsWhenStockWasTakenElsewhere() {
+        // Given - another node (here a direct sale) takes the stock the reservation held
+        Reservation reservation = stockReservationService.reserveStock(productId, 4);
+        productService.reduceStock(productId, 8);
+
+        // When
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> stockReservationService.confirmReservation(reservation.id));
+
+        // Then
+        assertTrue(exception.getMessage().startsWith("Insufficient stock to confirm reservation"));
+        assertEquals(2, reload().stockQuantity);
+        assertEquals(2, stockReservationService.getAvailableStock(productId));
+        assertThrows(EntityNotFoundException.class, () -> stockReservationService.confirmReservation(reservation.id));
+    }
+
+    @Test
+    void testReleasedReservationGivesStockBack() {
+        // Given
+        Reservation reservation = stockReservationService.reserveStock(productId, 7);
+        assertEquals(3, stockReservationService.getAvailableStock(productId));
+
+        // When
+        stockReservationService.releaseReservation(reservation.id);
+
+        // Then
+        assertEquals(10, stockReservationService.getAvailableStock(productId));
+        assertEquals(10, reload().stockQuantity);
+        assertThrows(EntityNotFoundException.class, () -> stockReservationService.confirmReservation(reservation.id));
+    }
+
+    @Test
+    void testReservationBeyondAvailableStockIsRejected() {
+        // Given
+        stockReservationService.reserveStock(productId, 8);
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> stockReservationService.reserveStock(productId, 3));
+        assertEquals("Insufficient stock. Available: 2, Requested: 3", exception.getMessage());
+    }
+
+    @Test
+    void testStockChangeReloadsLedger() {
+        // Given
+        stockReservationService.reserveStock(productId, 5);
+
+        // When
+        productService.addStock(productId, 20);
+
+        // Then
+        assertEquals(25, stockReservationService.getAvailableStock(productId));
+    }
+
+    @Test
+    void testTimerWheelReturnsEntriesOnceDue() {
+        // Given
+        ReservationTimerWheel wheel = new ReservationTimerWheel(4, 100);
+        wheel.schedule("soon", 150);
+        wheel.schedule("next-revolution", 600);
+
+        // When & Then
+        assertEquals(List.of(), wheel.advance());
+        assertEquals(List.of("soon"), wheel.advance());
+        assertEquals(List.of(), wheel.advance());
+        assertEquals(List.of(), wheel.advance());
+        assertEquals(List.of(), wheel.advance());
+        assertEquals(List.of("next-revolution"), wheel.advance());
+    }
+
+    private Product reload() {
+        return QuarkusTransaction.requiringNew().call(() -> productService.findProductById(productId));
+    }
+}
@@ -0,0 +1,94 @@
+package org.acme.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.acme.entity.Tag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class TagDictionaryTest {
+
+    @Inject
+    ProductService productService;
+
+    @BeforeEach
+    @Transactional
+    void setUp() {
+        // Clean up any existing test data in correct order
+        Product.deleteAll();
+        Category.deleteAll();
+        Brand.deleteAll();
+    }
+
+    @Test
+    void testDirectlyPersistedProductsRegisterTheirTags() {
+        // Given - persisted without going through ProductService
+        Long productId = QuarkusTransaction.requiringNew().call(() -> {
+            Product first = new Product("Dictionary One", new BigDecimal("1.00"));
+            first.sku = "DICT-1";
+            first.tags = List.of("dict-shared", "dict-one");
+            first.persist();
+            Product second = new Product("Dictionary Two", new BigDecimal("1.00"));
+            second.sku = "DICT-2";
+            second.tags = List.of("dict-shared");
+            second.persist();
+            return first.id;
+        });
+
+        // When
+        List<String> tags = QuarkusTransaction.requiringNew().call(() -> List.copyOf(Product.<Product>findById(productId).tags));
+
+        // Then
+        assertEquals(List.of("dict-shared", "dict-one"), tags);
+        assertEquals(1L, QuarkusTransaction.requiringNew().call(() -> Tag.count("name", "dict-shared")));
+    }
+
+    @Test
+    void testTagOnlyUpdatesRegisterNewNames() {
+        // Given
+        Product product = new Product("Dictionary Update", new BigDecimal("1.00"));
+        product.sku = "DICT-3";
+        product.tags = List.of("dict-before");
+        productService.createProduct(product);
+
+        // When - only the collection changes, in place and replaced
+        QuarkusTransaction.requiringNew().run(() -> Product.<Product>findById(product.id).tags.add("dict-added"));
+        QuarkusTransaction.requiringNew().run(() -> {
+            Product loaded = Product.findById(product.id);
+            List<String> replaced = new ArrayList<>(loaded.tags);
+            replaced.add("dict-replaced");
+            loaded.tags = replaced;
+        });
+
+        // Then
+        assertEquals(List.of("dict-before", "dict-added", "dict-replaced"),
+                QuarkusTransaction.requiringNew().call(() -> List.copyOf(productService.findProductById(product.id).tags)));
+    }
+
+    @Test
+    void testServiceDropsBlankAndDuplicateTags() {
+        // Given
+        Product product = new Product("Dictionary Clean", new BigDecimal("1.00"));
+        product.sku = "DICT-4";
+        product.tags = new ArrayList<>(List.of("dict-clean", " ", "dict-clean"));
+
+        // When
+        productService.createProduct(product);
+
+        // Then
+        assertEquals(List.of("dict-clean"),
+                QuarkusTransaction.requiringNew().call(() -> List.copyOf(productService.findProductById(product.id).tags)));
+    }
+}
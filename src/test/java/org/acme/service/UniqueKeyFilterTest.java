@@ -0,0 +1,93 @@
+package org.acme.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.acme.service.exception.BusinessException;
+import org.acme.service.invalidation.ChangeEvent;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class UniqueKeyFilterTest {
+
+    @Inject
+    UniqueKeyFilter uniqueKeys;
+
+    @Inject
+    BrandService brandService;
+
+    @Inject
+    CategoryService categoryService;
+
+    @Inject
+    ProductService productService;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @BeforeEach
+    void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            Product.deleteAll();
+            Category.deleteAll();
+            Brand.deleteAll();
+        });
+    }
+
+    @Test
+    void testWrittenKeysAreReportedAsTaken() {
+        // Given
+        Brand brand = brandService.createBrand(new Brand("Filter Brand", "Description"));
+        Category category = categoryService.createCategory(new Category("Filter Category", "Description"));
+        Product product = new Product("Filter Product", new BigDecimal("9.99"), category, brand);
+        product.sku = "FILTER-1";
+        productService.createProduct(product);
+
+        // Then - names match case-insensitively, generated slugs are known too
+        assertTrue(uniqueKeys.mightExist(UniqueKeyFilter.Key.BRAND_NAME, "FILTER brand"));
+        assertTrue(uniqueKeys.mightExist(UniqueKeyFilter.Key.CATEGORY_SLUG, category.slug));
+        assertTrue(uniqueKeys.mightExist(UniqueKeyFilter.Key.PRODUCT_SLUG, product.slug));
+        assertTrue(uniqueKeys.mightExist(UniqueKeyFilter.Key.PRODUCT_SKU, "FILTER-1"));
+        assertFalse(uniqueKeys.mightExist(UniqueKeyFilter.Key.PRODUCT_SKU, "FILTER-2"));
+        assertThrows(BusinessException.class,
+                () -> brandService.createBrand(new Brand("filter BRAND", "Duplicate")));
+    }
+
+    @Test
+    void testFreeValuesSkipTheExistenceQuery() {
+        // Given
+        Brand brand = brandService.createBrand(new Brand("First Filter Brand", "Description"));
+        uniqueKeys.mightExist(UniqueKeyFilter.Key.BRAND_NAME, "First Filter Brand");
+        long queriesBefore = sessionFactory.getStatistics().getQueryExecutionCount();
+
+        // When
+        brandService.updateBrand(brand.id, new Brand("Renamed Filter Brand", "Description"));
+
+        // Then - the new name was checked without a query
+        assertEquals(queriesBefore, sessionFactory.getStatistics().getQueryExecutionCount());
+    }
+
+    @Test
+    void testBulkWritesReloadTheFilter() {
+        // Given - a brand written behind the services' backs
+        QuarkusTransaction.requiringNew().run(() -> new Brand("Bulk Filter Brand", "Description").persist());
+        assertFalse(uniqueKeys.mightExist(UniqueKeyFilter.Key.BRAND_NAME, "Bulk Filter Brand"));
+
+        // When
+        uniqueKeys.invalidate(ChangeEvent.EntityType.BRAND);
+
+        // Then
+        assertTrue(uniqueKeys.mightExist(UniqueKeyFilter.Key.BRAND_NAME, "Bulk Filter Brand"));
+        assertThrows(BusinessException.class,
+                () -> brandService.createBrand(new Brand("Bulk Filter Brand", "Duplicate")));
+    }
+}
@@ -0,0 +1,146 @@
+package org.acme.service.invalidation;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.acme.entity.Brand;
+import org.acme.entity.Category;
+import org.acme.entity.Product;
+import org.acme.service.BrandService;
+import org.acme.service.CategoryService;
+import org.acme.service.CategoryTreeSnapshot;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+class InvalidationBusTest {
+
+    @Inject
+    InvalidationBus invalidationBus;
+
+    @Inject
+    BrandService brandService;
+
+    @Inject
+    CategoryService categoryService;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    // A second node in the same JVM
+    private final InProcessTransport otherNode = new InProcessTransport();
+    private final List<ChangeEvent> received = new CopyOnWriteArrayList<>();
+
+    private Long brandId;
+
+    @BeforeEach
+    void setUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            Product.deleteAll();
+            Category.deleteAll();
+            Brand.deleteAll();
+            brandId = brandService.createBrand(new Brand("Bus Brand", "Bus Description")).id;
+        });
+        // Publishes the setup changes before the other node listens
+        invalidationBus.flush();
+        otherNode.start(received::addAll);
+    }
+
+    @AfterEach
+    void tearDown() {
+        otherNode.stop();
+    }
+
+    @Test
+    void testCommittedChangesReachOtherNodesCoalesced() {
+        // Given
+        brandService.updateBrand(brandId, new Brand("Renamed Bus Brand", "Bus Description"));
+        brandService.deactivateBrand(brandId);
+
+        // When
+        invalidationBus.flush();
+
+        // Then - both changes of the brand arrive as one
+        assertEquals(1, received.size());
+        ChangeEvent change = received.get(0);
+        assertEquals(ChangeEvent.EntityType.BRAND, change.entity);
+        assertEquals(brandId, change.id);
+        assertTrue(change.touches("active"));
+        assertTrue(change.touches("name"));
+        assertFalse(change.touches("featured"));
+    }
+
+    @Test
+    void testRolledBackChangesAreNotPublished() {
+        // Given
+        assertThrows(RuntimeException.class, () -> QuarkusTransaction.requiringNew().run(() -> {
+            brandService.deactivateBrand(brandId);
+            throw new IllegalStateException("rollback");
+        }));
+
+        // When
+        invalidationBus.flush();
+
+        // Then
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    void testRemoteChangesEvictCachesOfThisNode() {
+        // Given
+        QuarkusTransaction.requiringNew().run(() -> brandService.findBrandById(brandId));
+        assertTrue(sessionFactory.getCache().containsEntity(Brand.class, brandId));
+        CategoryTreeSnapshot tree = categoryService.getCategoryTree();
+
+        // When
+        otherNode.publish(List.of(ChangeEvent.of(ChangeEvent.EntityType.BRAND, brandId, "name"),
+                ChangeEvent.all(ChangeEvent.EntityType.CATEGORY)));
+
+        // Then
+        assertFalse(sessionFactory.getCache().containsEntity(Brand.class, brandId));
+        assertNotSame(tree, categoryService.getCategoryTree());
+    }
+
+    @Test
+    void testBurstsCollapseToAllOfAType() {
+        // Given
+        List<ChangeEvent> burst = List.of(ChangeEvent.of(ChangeEvent.EntityType.PRODUCT, 1L, "price"),
+                ChangeEvent.of(ChangeEvent.EntityType.PRODUCT, 2L, "price"),
+                ChangeEvent.of(ChangeEvent.EntityType.BRAND, 3L, "name"));
+
+        // When
+        List<ChangeEvent> batch = InvalidationBus.coalesce(burst, 1);
+
+        // Then
+        assertEquals(2, batch.size());
+        assertEquals(3L, batch.get(0).id);
+        assertEquals(ChangeEvent.EntityType.PRODUCT, batch.get(1).entity);
+        assertNull(batch.get(1).id);
+    }
+
+    @Test
+    void testNotifyPayloadRoundTrip() {
+        // Given
+        List<ChangeEvent> changes = List.of(ChangeEvent.of(ChangeEvent.EntityType.PRODUCT, 42L, "price", "stockQuantity"),
+                ChangeEvent.all(ChangeEvent.EntityType.BRAND));
+
+        // When
+        List<String> payloads = PostgresNotifyTransport.encode("node-a", changes);
+        List<ChangeEvent> decoded = PostgresNotifyTransport.decode(payloads.get(0).split("\n"));
+
+        // Then
+        assertEquals(1, payloads.size());
+        assertTrue(payloads.get(0).startsWith("node-a\n"));
+        assertEquals(42L, decoded.get(0).id);
+        assertEquals(changes.get(0).changedFields, decoded.get(0).changedFields);
+        assertNull(decoded.get(1).id);
+        assertTrue(decoded.get(1).changedFields.isEmpty());
+    }
+}